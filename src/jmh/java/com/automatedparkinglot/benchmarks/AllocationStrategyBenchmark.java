@@ -0,0 +1,132 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.allocation.BatchBestFitAllocationStrategy;
+import com.automatedparkinglot.allocation.FloorAllocationStrategy;
+import com.automatedparkinglot.allocation.FloorCapacity;
+import com.automatedparkinglot.allocation.GreedyAllocationStrategy;
+import com.automatedparkinglot.dtos.ParkingRequest;
+import com.automatedparkinglot.topology.FloorTopology;
+import com.automatedparkinglot.topology.LotTopology;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filling an empty lot at peak with the floor allocation strategies, in memory: as many cars as
+ * there are parking spaces arrive, and are assigned floors window by window like batch parking
+ * requests. Besides the time to fill the lot, the parked and rejected cars of every iteration are
+ * printed, i.e. the resulting utilization of the lot and the number of NO_AVAILABLE_FLOOR
+ * rejections.
+ * <p>
+ * The cars are 120 to 250 cm high and 1000 to 4000 kg heavy, i.e. 2500 kg on average like the
+ * weight capacity per parking space of the generated lot, so both parking spaces and weight
+ * capacities are scarce.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"}) // Like a server, not a small default heap
+@State(Scope.Benchmark)
+public class AllocationStrategyBenchmark {
+
+  @Param({"greedy", "batch-best-fit"})
+  public String strategy;
+
+  @Param({"32", "128"})
+  public int windowSize;
+
+  @Param({"500"})
+  public int floors;
+
+  @Param({"200"})
+  public int parkingSpacesPerFloor;
+
+  private FloorAllocationStrategy floorAllocationStrategy;
+  private List<FloorTopology> floorTopologies;
+  private List<ParkingRequest> arrivingCars;
+  private BigDecimal[] allowedWeights;
+  private int[] freeParkingSpaces;
+  private long parkedCars;
+  private long rejectedCars;
+
+  @Setup(Level.Trial)
+  public void generateLotAndCars() {
+    floorAllocationStrategy = "greedy".equals(strategy) ? new GreedyAllocationStrategy()
+        : new BatchBestFitAllocationStrategy();
+    var topology = LotTopology.generate(floors, parkingSpacesPerFloor, 42);
+    floorTopologies = topology.getFloors();
+    var random = new SplittableRandom(42);
+    var numberOfArrivingCars = (int) topology.countParkingSpaces();
+    arrivingCars = new ArrayList<>(numberOfArrivingCars);
+    for (int i = 0; i < numberOfArrivingCars; i++) {
+      var parkingRequest = new ParkingRequest();
+      parkingRequest.setCarId("BENCH-" + i);
+      parkingRequest.setCarHeight(BigDecimal.valueOf(random.nextInt(12000, 25001), 2));
+      parkingRequest.setCarWeight(BigDecimal.valueOf(random.nextInt(100000, 400001), 2));
+      arrivingCars.add(parkingRequest);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void emptyLot() {
+    allowedWeights = floorTopologies.stream().map(FloorTopology::getWeightCapacity)
+        .toArray(BigDecimal[]::new);
+    freeParkingSpaces = floorTopologies.stream().mapToInt(FloorTopology::getParkingSpaces)
+        .toArray();
+    parkedCars = 0;
+    rejectedCars = 0;
+  }
+
+  @TearDown(Level.Iteration)
+  public void reportOccupancy() {
+    var parkingSpaces = floorTopologies.stream().mapToLong(FloorTopology::getParkingSpaces).sum();
+    System.out.printf("%d cars parked (utilization %.2f%%), %d cars rejected%n", parkedCars,
+        100.0 * parkedCars / parkingSpaces, rejectedCars);
+  }
+
+  @Benchmark
+  public void fillLot() {
+    for (int from = 0; from < arrivingCars.size(); from += windowSize) {
+      var window = arrivingCars.subList(from, Math.min(from + windowSize, arrivingCars.size()));
+      var floorNumbers = floorAllocationStrategy.assignFloors(window, this.copyFloorCapacities());
+      for (int i = 0; i < window.size(); i++) {
+        if (Objects.isNull(floorNumbers[i])) {
+          rejectedCars++;
+          continue;
+        }
+        var position = floorNumbers[i] - 1;
+        freeParkingSpaces[position]--;
+        allowedWeights[position] = allowedWeights[position].subtract(
+            window.get(i).getCarWeight());
+        parkedCars++;
+      }
+    }
+  }
+
+  private List<FloorCapacity> copyFloorCapacities() {
+    var floorCapacities = new ArrayList<FloorCapacity>(floorTopologies.size());
+    for (int i = 0; i < floorTopologies.size(); i++) {
+      floorCapacities.add(new FloorCapacity(floorTopologies.get(i).getNumber(),
+          floorTopologies.get(i).getCeilingHeight(), allowedWeights[i], freeParkingSpaces[i]));
+    }
+    return floorCapacities;
+  }
+
+}
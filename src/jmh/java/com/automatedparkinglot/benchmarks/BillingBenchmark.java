@@ -0,0 +1,58 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.entities.Bill;
+import com.automatedparkinglot.entities.Floor;
+import com.automatedparkinglot.entities.ParkingRecord;
+import com.automatedparkinglot.services.BillService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Computing a bill (price-per-minute, duration, total amount, and billing dates) without the
+ * database
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BillingBenchmark {
+
+  private final BillService billService = new BillService(null, null, null);
+  private ParkingRecord parkingRecord;
+  private Floor floor;
+
+  @Setup
+  public void createCompletedParking() {
+    floor = new Floor();
+    floor.setNumber(3);
+    floor.setCeilingHeight(new BigDecimal("170.00"));
+    floor.setWeightCapacity(new BigDecimal("20000.00"));
+    floor.setAllowedWeight(new BigDecimal("20000.00"));
+    parkingRecord = new ParkingRecord();
+    parkingRecord.setCarId("BENCH-1");
+    parkingRecord.setCarWeight(new BigDecimal("1500.00"));
+    parkingRecord.setFloor(3);
+    parkingRecord.setAllowedWeightOnFloorBeforeParking(new BigDecimal("18500.00"));
+    parkingRecord.setParkingTimestamp(LocalDateTime.of(2022, 5, 1, 8, 15, 30));
+    parkingRecord.setEmptyingTimestamp(LocalDateTime.of(2022, 5, 1, 17, 42, 10));
+  }
+
+  @Benchmark
+  public Bill generateBill() {
+    return billService.generateBill(parkingRecord, floor);
+  }
+
+}
@@ -0,0 +1,41 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Random cars arriving at a gate: 120 to 180 cm high, so that they fit at least the highest floor,
+ * and 1000 to 2500 kg heavy
+ */
+@State(Scope.Thread)
+public class CarState {
+
+  private static final AtomicLong CAR_SEQUENCE = new AtomicLong();
+
+  private final SplittableRandom random = new SplittableRandom(CAR_SEQUENCE.incrementAndGet());
+
+  public BigDecimal nextCarHeight() {
+    return BigDecimal.valueOf(random.nextInt(12000, 18001), 2);
+  }
+
+  public BigDecimal nextCarWeight() {
+    return BigDecimal.valueOf(random.nextInt(100000, 250001), 2);
+  }
+
+  public String nextCarId() {
+    return "BENCH-" + CAR_SEQUENCE.incrementAndGet();
+  }
+
+  public ParkingRequest nextParkingRequest() {
+    var parkingRequest = new ParkingRequest();
+    parkingRequest.setCarId(this.nextCarId());
+    parkingRequest.setCarHeight(this.nextCarHeight());
+    parkingRequest.setCarWeight(this.nextCarWeight());
+    return parkingRequest;
+  }
+
+}
@@ -0,0 +1,38 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.entities.Floor;
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.services.FloorService;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding the best floor for a car, with and without reading the chosen floor from the database
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FloorSelectionBenchmark {
+
+  @Benchmark
+  public Floor findBestFloorForCar(LotState lot, CarState car) {
+    return lot.getBean(FloorService.class)
+        .findBestFloorForCar(car.nextCarHeight(), car.nextCarWeight());
+  }
+
+  @Benchmark
+  public Optional<Integer> findBestFloorNumberInIndex(LotState lot, CarState car) {
+    return lot.getBean(FloorIndex.class)
+        .findBestFloorNumberForCar(car.nextCarHeight(), car.nextCarWeight());
+  }
+
+}
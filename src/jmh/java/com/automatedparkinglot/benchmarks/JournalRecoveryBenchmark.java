@@ -0,0 +1,86 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.journal.JournalStore;
+import com.automatedparkinglot.journal.JournaledParking;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recovering the parked cars of a full lot from the journal files: loading the snapshot of all
+ * parked cars and replaying the journal entries written after it (The database is not involved.)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"}) // Like a server, not a small default heap
+@State(Scope.Benchmark)
+public class JournalRecoveryBenchmark {
+
+  @Param({"100000"})
+  public int parkedCars;
+
+  @Param({"10000"})
+  public int entriesAfterSnapshot;
+
+  private Path directory;
+
+  @Setup(Level.Trial)
+  public void writeJournal() throws IOException {
+    directory = Files.createTempDirectory("parking-journal");
+    var journalStore = new JournalStore(directory, 64 << 20);
+    journalStore.open();
+    for (long id = 1; id <= parkedCars; id++) {
+      journalStore.appendParked(createParking(id));
+    }
+    journalStore.writeSnapshot();
+    // Cars leaving and new cars taking their parking spaces
+    for (long id = 1; id <= entriesAfterSnapshot / 2; id++) {
+      journalStore.appendPulledOut(id);
+      journalStore.appendParked(createParking(parkedCars + id));
+    }
+    journalStore.flush();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteJournal() throws IOException {
+    try (var paths = Files.walk(directory)) {
+      for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public Collection<JournaledParking> recover() throws IOException {
+    // Each recovery starts a new, empty segment, which the next recovery overwrites
+    return new JournalStore(directory, 64 << 20).open();
+  }
+
+  private static JournaledParking createParking(long parkingRecordId) {
+    return new JournaledParking(parkingRecordId, "BENCH-" + parkingRecordId,
+        BigDecimal.valueOf(150000 + parkingRecordId % 100000, 2), new BigDecimal("160.00"),
+        new BigDecimal("20000.00"), LocalDateTime.of(2022, 5, 1, 8, 15, 30), 1,
+        parkingRecordId);
+  }
+
+}
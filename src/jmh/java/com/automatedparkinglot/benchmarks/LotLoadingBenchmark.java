@@ -0,0 +1,71 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.AutomatedParkingLotApplication;
+import com.automatedparkinglot.lotstate.LotStateLoader;
+import com.automatedparkinglot.topology.LotTopology;
+import com.automatedparkinglot.topology.LotTopologyLoader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The lot-dependent part of the startup: bulk-loading the topology of a large lot into the
+ * database (LotTopologyLoader) and loading the in-memory lot state from it (LotStateLoader)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"}) // Like a server, not a small default heap
+@State(Scope.Benchmark)
+public class LotLoadingBenchmark {
+
+  @Param({"500"})
+  public int floors;
+
+  @Param({"200"})
+  public int parkingSpacesPerFloor;
+
+  private ConfigurableApplicationContext applicationContext;
+  private LotTopology topology;
+  private LotTopologyLoader lotTopologyLoader;
+  private LotStateLoader lotStateLoader;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    applicationContext = new SpringApplicationBuilder(AutomatedParkingLotApplication.class)
+        .web(WebApplicationType.NONE)
+        .properties("logging.level.com.automatedparkinglot=WARN",
+            "logging.level.parking-events=WARN")
+        .run();
+    topology = LotTopology.generate(floors, parkingSpacesPerFloor, 42);
+    lotTopologyLoader = applicationContext.getBean(LotTopologyLoader.class);
+    lotStateLoader = applicationContext.getBean(LotStateLoader.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    applicationContext.close();
+  }
+
+  @Benchmark
+  public void loadLot() {
+    lotTopologyLoader.load(topology);
+    lotStateLoader.reload();
+  }
+
+}
@@ -0,0 +1,56 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.AutomatedParkingLotApplication;
+import com.automatedparkinglot.lotstate.LotStateLoader;
+import com.automatedparkinglot.topology.LotTopology;
+import com.automatedparkinglot.topology.LotTopologyLoader;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application started without a web server on a parking lot of a configurable size. The default
+ * lot is generated with the size of the one in lot-topology.csv (3 floors of 10 parking spaces). Bigger lots can be benchmarked with
+ * e.g. -p floors=500 -p parkingSpacesPerFloor=200 (100k parking spaces).
+ */
+@State(Scope.Benchmark)
+public class LotState {
+
+  @Param({"3"})
+  public int floors;
+
+  @Param({"10"})
+  public int parkingSpacesPerFloor;
+
+  public ConfigurableApplicationContext applicationContext;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    applicationContext = new SpringApplicationBuilder(AutomatedParkingLotApplication.class)
+        .web(WebApplicationType.NONE)
+        .properties("logging.level.com.automatedparkinglot=WARN",
+            "logging.level.parking-events=WARN",
+            // The cars are moved by the lifts almost at once, so their transports do not pile up
+            "automated-parking-lot.movement.time-scale=0.000001")
+        .run();
+    applicationContext.getBean(LotTopologyLoader.class)
+        .load(LotTopology.generate(floors, parkingSpacesPerFloor, 42));
+    applicationContext.getBean(LotStateLoader.class).reload();
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    applicationContext.close();
+  }
+
+  public <T> T getBean(Class<T> beanClass) {
+    return applicationContext.getBean(beanClass);
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.topology.LotTopology;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the CSV description of a synthetic lot, which the application loads when
+ * automated-parking-lot.topology.location points to it, e.g.
+ * --automated-parking-lot.topology.location=file:target/lot-topology.csv
+ * <p>
+ * Options (all optional): --floors=500 --parking-spaces-per-floor=200 --seed=42
+ * --output=target/lot-topology.csv
+ * <p>
+ * Run with: mvn -P benchmarks test-compile exec:exec@generate-lot -Dlot.args="--floors=1000"
+ */
+public class LotTopologyGenerator {
+
+  private LotTopologyGenerator() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    var options = parseOptions(args);
+    var floors = Integer.parseInt(options.getOrDefault("floors", "500"));
+    var parkingSpacesPerFloor = Integer.parseInt(
+        options.getOrDefault("parking-spaces-per-floor", "200"));
+    var seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    var output = Path.of(options.getOrDefault("output", "target/lot-topology.csv"));
+
+    var topology = LotTopology.generate(floors, parkingSpacesPerFloor, seed);
+    try (var writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+      topology.write(writer);
+    }
+    System.out.printf("Wrote a lot of %d floors and %d parking spaces to %s%n", floors,
+        topology.countParkingSpaces(), output.toAbsolutePath());
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    var options = new HashMap<String, String>();
+    for (var arg : args) {
+      var keyAndValue = arg.replaceFirst("^--", "").split("=", 2);
+      options.put(keyAndValue[0], keyAndValue.length > 1 ? keyAndValue[1] : "true");
+    }
+    return options;
+  }
+
+}
@@ -0,0 +1,139 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.movement.MovementClock;
+import com.automatedparkinglot.movement.TransportSystem;
+import com.automatedparkinglot.movement.TransportTask;
+import com.automatedparkinglot.movement.TransportTimings;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+
+/**
+ * A discrete-event simulation of the lifts and shuttles moving the cars, in virtual time, to find
+ * how many cars per hour a configuration of the physical system can move. The {@link
+ * TransportSystem} of the application is run on a virtual clock, with a constant number of cars in
+ * motion: a car is pulled out as soon as it is stored, and parked again on a random floor as soon
+ * as it is delivered, so the lifts and shuttles are kept saturated. The throughput and the
+ * percentiles of the transport durations are reported for every number of lifts and shuttles.
+ * <p>
+ * Options (all optional): --lifts=1,2,4 --shuttles-per-floor=1,2 --floors=3 --cars-in-motion=32
+ * --hours=8 --lift-ms-per-floor=3000 --lift-transfer-ms=10000 --shuttle-ms=30000
+ * <p>
+ * Run with: mvn -P benchmarks test-compile exec:exec@movement-simulation
+ * -Dmovement.args="--floors=10 --lifts=2,4,6"
+ */
+public class MovementSimulation {
+
+  private final PriorityQueue<Event> events = new PriorityQueue<>(
+      Comparator.comparingLong((Event event) -> event.time).thenComparingLong(event -> event.id));
+  private final Map<ParkingOperation, Histogram> durations = new HashMap<>();
+  private final SplittableRandom random = new SplittableRandom(42);
+  private final int floors;
+  private long now;
+  private long eventIds;
+  private long taskIds;
+  private long completedTasks;
+
+  private MovementSimulation(int floors) {
+    this.floors = floors;
+    durations.put(ParkingOperation.PARK, new Histogram(3));
+    durations.put(ParkingOperation.PULL_OUT, new Histogram(3));
+  }
+
+  public static void main(String[] args) {
+    var options = new HashMap<String, String>();
+    for (var arg : args) {
+      var option = arg.replaceFirst("^--", "").split("=", 2);
+      options.put(option[0], option.length > 1 ? option[1] : "true");
+    }
+    var lifts = parseInts(options.getOrDefault("lifts", "1,2,4"));
+    var shuttlesPerFloor = parseInts(options.getOrDefault("shuttles-per-floor", "1,2"));
+    var floors = Integer.parseInt(options.getOrDefault("floors", "3"));
+    var carsInMotion = Integer.parseInt(options.getOrDefault("cars-in-motion", "32"));
+    var hours = Integer.parseInt(options.getOrDefault("hours", "8"));
+    var timings = new TransportTimings(
+        Long.parseLong(options.getOrDefault("lift-ms-per-floor", "3000")),
+        Long.parseLong(options.getOrDefault("lift-transfer-ms", "10000")),
+        Long.parseLong(options.getOrDefault("shuttle-ms", "30000")));
+
+    System.out.printf("Movement simulation: %d floors, %d cars in motion, %d h%n", floors,
+        carsInMotion, hours);
+    System.out.printf("%6s %10s %12s %14s %14s %18s %18s%n", "Lifts", "Shuttles", "Cars/h",
+        "Park p50 (s)", "Park p99 (s)", "Pull-out p50 (s)", "Pull-out p99 (s)");
+    for (var liftCount : lifts) {
+      for (var shuttleCount : shuttlesPerFloor) {
+        var simulation = new MovementSimulation(floors);
+        simulation.run(liftCount, shuttleCount, timings, carsInMotion, hours);
+        var parks = simulation.durations.get(ParkingOperation.PARK);
+        var pullOuts = simulation.durations.get(ParkingOperation.PULL_OUT);
+        System.out.printf("%6d %10d %12.1f %14.1f %14.1f %18.1f %18.1f%n", liftCount,
+            shuttleCount, (double) simulation.completedTasks / hours,
+            parks.getValueAtPercentile(50) / 1000.0, parks.getValueAtPercentile(99) / 1000.0,
+            pullOuts.getValueAtPercentile(50) / 1000.0,
+            pullOuts.getValueAtPercentile(99) / 1000.0);
+      }
+    }
+  }
+
+  private static int[] parseInts(String values) {
+    return Arrays.stream(values.split(",")).mapToInt(Integer::parseInt).toArray();
+  }
+
+  private void run(int lifts, int shuttlesPerFloor, TransportTimings timings, int carsInMotion,
+      int hours) {
+    var end = TimeUnit.HOURS.toMillis(hours);
+    var clock = new MovementClock() {
+      @Override
+      public long now() {
+        return now;
+      }
+
+      @Override
+      public void schedule(Runnable action, long delayInMillis) {
+        events.add(new Event(now + delayInMillis, eventIds++, action));
+      }
+    };
+    var transportSystem = new TransportSystem[1];
+    transportSystem[0] = new TransportSystem(lifts, shuttlesPerFloor, timings, clock, task -> {
+      completedTasks++;
+      durations.get(task.getOperation()).recordValue(task.getDurationInMillis());
+      // The stored car leaves at once, and the delivered car comes back at once
+      var nextOperation = task.isPullOut() ? ParkingOperation.PARK : ParkingOperation.PULL_OUT;
+      var nextFloor = task.isPullOut() ? 1 + random.nextInt(floors) : task.getFloor();
+      clock.schedule(() -> transportSystem[0].submit(new TransportTask(taskIds++, nextOperation,
+          task.getCarId(), nextFloor, null)), 0);
+    });
+    for (int car = 0; car < carsInMotion; car++) {
+      transportSystem[0].submit(new TransportTask(taskIds++, ParkingOperation.PARK, "CAR" + car,
+          1 + random.nextInt(floors), null));
+    }
+    while (!events.isEmpty() && events.peek().time <= end) {
+      var event = events.poll();
+      now = event.time;
+      event.action.run();
+    }
+  }
+
+  /**
+   * A movement of the simulation, over at its time
+   */
+  private static class Event {
+
+    private final long time;
+    private final long id;
+    private final Runnable action;
+
+    private Event(long time, long id, Runnable action) {
+      this.time = time;
+      this.id = id;
+      this.action = action;
+    }
+  }
+
+}
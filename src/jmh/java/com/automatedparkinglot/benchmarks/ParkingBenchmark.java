@@ -0,0 +1,32 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.services.AutomatedParkingService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parking a car and pulling it out again end to end through {@link AutomatedParkingService}, i.e.
+ * two transactions (Bills are generated by the background bill writer.)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParkingBenchmark {
+
+  @Benchmark
+  public void parkAndPullOut(LotState lot, CarState car) {
+    var automatedParkingService = lot.getBean(AutomatedParkingService.class);
+    var parkingRequest = car.nextParkingRequest();
+    automatedParkingService.parkCarInAParkingSpace(parkingRequest);
+    automatedParkingService.pullCarOutOfLotAndGenerateBill(parkingRequest.getCarId());
+  }
+
+}
@@ -0,0 +1,294 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.AutomatedParkingLotApplication;
+import com.automatedparkinglot.lotstate.LotStateLoader;
+import com.automatedparkinglot.topology.LotTopology;
+import com.automatedparkinglot.topology.LotTopologyLoader;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+/**
+ * A load generator starting the application on a random port and driving the parking and pull-out
+ * endpoints from many gates at once. Every gate is a thread which either parks a new car or pulls
+ * one of its parked cars out, according to the configured arrival/departure mix. Throughput and
+ * latency percentiles (HdrHistogram) are reported per endpoint, and error codes are counted
+ * separately.
+ * <p>
+ * Slow gates, which hold a connection by sending their parking requests one byte at a time, can be
+ * added to compare the request execution modes: with Tomcat's thread pool, every slow request holds
+ * a request thread, while with virtual threads it does not.
+ * <p>
+ * Options (all optional): --gates=64 --duration=60 --warmup=10 --arrival-ratio=0.5 --floors=3
+ * --parking-spaces-per-floor=10 --slow-gates=0 --slow-gate-byte-interval-ms=50
+ * --virtual-threads=false (requires Java 21 or later) --pool-size=10
+ * <p>
+ * Run with: mvn -P benchmarks test-compile exec:exec@load-test -Dload.args="--gates=128"
+ */
+public class ParkingLoadTest {
+
+  private static final String PARK = "park";
+  private static final String PULL_OUT = "pull-out-and-bill";
+  private static final Pattern ERROR_CODE = Pattern.compile("\"errorCode\"\\s*:\\s*\"(\\w+)\"");
+  private static final long HIGHEST_TRACKABLE_LATENCY_IN_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .build();
+  private final Map<String, Recorder> latencyRecorders = Map.of(
+      PARK, new Recorder(HIGHEST_TRACKABLE_LATENCY_IN_MICROS, 3),
+      PULL_OUT, new Recorder(HIGHEST_TRACKABLE_LATENCY_IN_MICROS, 3));
+  private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+  private final int port;
+  private final String baseUrl;
+  private final double arrivalRatio;
+  private final long slowGateByteIntervalInMillis;
+  private volatile boolean running = true;
+
+  private ParkingLoadTest(int port, double arrivalRatio, long slowGateByteIntervalInMillis) {
+    this.port = port;
+    this.baseUrl = "http://localhost:" + port + "/automated-parking-lot/";
+    this.arrivalRatio = arrivalRatio;
+    this.slowGateByteIntervalInMillis = slowGateByteIntervalInMillis;
+  }
+
+  public static void main(String[] args) throws Exception {
+    var options = parseOptions(args);
+    var gates = Integer.parseInt(options.getOrDefault("gates", "64"));
+    var durationInSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+    var warmupInSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+    var arrivalRatio = Double.parseDouble(options.getOrDefault("arrival-ratio", "0.5"));
+    var floors = Integer.parseInt(options.getOrDefault("floors", "3"));
+    var parkingSpacesPerFloor = Integer.parseInt(
+        options.getOrDefault("parking-spaces-per-floor", "10"));
+    var slowGates = Integer.parseInt(options.getOrDefault("slow-gates", "0"));
+    var slowGateByteIntervalInMillis = Long.parseLong(
+        options.getOrDefault("slow-gate-byte-interval-ms", "50"));
+    var virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+    var poolSize = Integer.parseInt(options.getOrDefault("pool-size", "10"));
+    // Every gate is admitted by default, so the request execution modes are compared, and not the
+    // admission control
+    var maxInFlight = Integer.parseInt(
+        options.getOrDefault("max-in-flight", String.valueOf(gates + slowGates)));
+
+    var applicationContext = (ServletWebServerApplicationContext) new SpringApplicationBuilder(
+        AutomatedParkingLotApplication.class)
+        .properties("server.port=0", "logging.level.com.automatedparkinglot=WARN",
+            "logging.level.parking-events=WARN",
+            // The cars are moved by the lifts almost at once, so their transports do not pile up
+            "automated-parking-lot.movement.time-scale=0.000001")
+        // Command line arguments take precedence over application.properties
+        .run("--automated-parking-lot.virtual-threads.enabled=" + virtualThreads,
+            "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+            "--automated-parking-lot.admission.gate-ids=" + gateIds(gates, slowGates),
+            "--automated-parking-lot.admission.max-in-flight=" + maxInFlight);
+    try {
+      applicationContext.getBean(LotTopologyLoader.class)
+          .load(LotTopology.generate(floors, parkingSpacesPerFloor, 42));
+      applicationContext.getBean(LotStateLoader.class).reload();
+      var loadTest = new ParkingLoadTest(applicationContext.getWebServer().getPort(),
+          arrivalRatio, slowGateByteIntervalInMillis);
+      System.out.printf("Load test: %d gates (and %d slow gates), %d s (after %d s of warmup), "
+              + "arrival ratio %.2f, %d floors of %d parking spaces, %s, %d database "
+              + "connections%n", gates, slowGates, durationInSeconds, warmupInSeconds,
+          arrivalRatio, floors, parkingSpacesPerFloor,
+          virtualThreads ? "virtual threads" : "Tomcat thread pool", poolSize);
+      loadTest.run(gates, slowGates, warmupInSeconds, durationInSeconds);
+    } finally {
+      applicationContext.close();
+    }
+  }
+
+  /**
+   * The IDs of all gates, so every gate is admitted with a limit of its own
+   */
+  private static String gateIds(int gates, int slowGates) {
+    return IntStream.range(0, gates + slowGates)
+        .mapToObj(gate -> (gate < gates ? "GATE" : "SLOW") + gate)
+        .collect(Collectors.joining(","));
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    var options = new HashMap<String, String>();
+    for (var arg : args) {
+      var keyAndValue = arg.replaceFirst("^--", "").split("=", 2);
+      options.put(keyAndValue[0], keyAndValue.length > 1 ? keyAndValue[1] : "true");
+    }
+    return options;
+  }
+
+  private void run(int gates, int slowGates, int warmupInSeconds, int durationInSeconds)
+      throws InterruptedException {
+    var executorService = Executors.newFixedThreadPool(gates + slowGates);
+    var finishedGates = new CountDownLatch(gates + slowGates);
+    for (int gate = 0; gate < gates + slowGates; gate++) {
+      var gateNumber = gate;
+      var slowGate = gate >= gates;
+      executorService.execute(() -> {
+        try {
+          if (slowGate) {
+            this.runSlowGate(gateNumber);
+          } else {
+            this.runGate(gateNumber);
+          }
+        } finally {
+          finishedGates.countDown();
+        }
+      });
+    }
+
+    // Discard everything recorded during warmup
+    TimeUnit.SECONDS.sleep(warmupInSeconds);
+    latencyRecorders.values().forEach(Recorder::reset);
+    outcomes.clear();
+    var start = System.nanoTime();
+    TimeUnit.SECONDS.sleep(durationInSeconds);
+    var intervalHistograms = new TreeMap<String, Histogram>();
+    latencyRecorders.forEach(
+        (endpoint, recorder) -> intervalHistograms.put(endpoint, recorder.getIntervalHistogram()));
+    var elapsedInSeconds = (System.nanoTime() - start) / 1e9;
+    var outcomeCounts = new TreeMap<String, Long>();
+    outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.sum()));
+
+    running = false;
+    finishedGates.await(1, TimeUnit.MINUTES);
+    executorService.shutdownNow();
+    this.report(intervalHistograms, outcomeCounts, elapsedInSeconds);
+  }
+
+  private void runGate(int gateNumber) {
+    var random = new SplittableRandom(gateNumber);
+    var parkedCarIds = new ArrayDeque<String>();
+    var carSequence = 0;
+    while (running) {
+      if (parkedCarIds.isEmpty() || random.nextDouble() < arrivalRatio) {
+        var carId = "GATE" + gateNumber + "-" + carSequence++;
+        var body = String.format(
+            "{\"carId\":\"%s\",\"carHeight\":\"%d.00\",\"carWeight\":\"%d.00\"}", carId,
+            random.nextInt(120, 181), random.nextInt(1000, 2501));
+        if (this.send(gateNumber, PARK, PARK, body)) {
+          parkedCarIds.add(carId);
+        }
+      } else {
+        this.send(gateNumber, PULL_OUT, PULL_OUT + "/" + parkedCarIds.poll(), "");
+      }
+    }
+  }
+
+  /**
+   * Keeps sending parking requests over raw connections, one byte of the body at a time (The car
+   * is too high for any floor, so the slow gates do not fill up the lot, and their requests are not
+   * reported.)
+   */
+  private void runSlowGate(int gateNumber) {
+    var carSequence = 0;
+    while (running) {
+      var body = String.format(
+          "{\"carId\":\"SLOW%d-%d\",\"carHeight\":\"999.00\",\"carWeight\":\"1000.00\"}",
+          gateNumber, carSequence++).getBytes(StandardCharsets.US_ASCII);
+      var headers = "POST /automated-parking-lot/park HTTP/1.1\r\n"
+          + "Host: localhost\r\n"
+          + "Content-Type: application/json\r\n"
+          + "Gate-Id: SLOW" + gateNumber + "\r\n"
+          + "Content-Length: " + body.length + "\r\n"
+          + "Connection: close\r\n\r\n";
+      try (var socket = new Socket("localhost", port)) {
+        var outputStream = socket.getOutputStream();
+        outputStream.write(headers.getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < body.length; i++) {
+          if (!running) {
+            return;
+          }
+          outputStream.write(body[i]);
+          outputStream.flush();
+          TimeUnit.MILLISECONDS.sleep(slowGateByteIntervalInMillis);
+        }
+        socket.getInputStream().readAllBytes();
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (IOException ioException) {
+        // The connection was closed by the server, so open a new one
+      }
+    }
+  }
+
+  /**
+   * Sends a request and records its latency and outcome
+   *
+   * @return True if the request succeeded
+   */
+  private boolean send(int gateNumber, String endpoint, String path, String body) {
+    var request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .header("Content-Type", "application/json")
+        .header("Gate-Id", "GATE" + gateNumber)
+        .POST(BodyPublishers.ofString(body))
+        .build();
+    var start = System.nanoTime();
+    String outcome;
+    try {
+      var response = httpClient.send(request, BodyHandlers.ofString());
+      latencyRecorders.get(endpoint)
+          .recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start),
+              HIGHEST_TRACKABLE_LATENCY_IN_MICROS));
+      if (response.statusCode() == 200) {
+        outcome = "OK";
+      } else {
+        var errorCode = ERROR_CODE.matcher(response.body());
+        outcome = errorCode.find() ? errorCode.group(1) : "HTTP_" + response.statusCode();
+      }
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      running = false;
+      return false;
+    } catch (Exception exception) {
+      outcome = exception.getClass().getSimpleName();
+    }
+    outcomes.computeIfAbsent(endpoint + " " + outcome, key -> new LongAdder()).increment();
+    return "OK".equals(outcome);
+  }
+
+  private void report(Map<String, Histogram> histograms, Map<String, Long> outcomeCounts,
+      double elapsedInSeconds) {
+    var lines = new ArrayList<String>();
+    lines.add(String.format("%-20s %12s %10s %10s %10s %10s %10s", "Endpoint", "Requests/s",
+        "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "max (ms)", "Requests"));
+    histograms.forEach((endpoint, histogram) -> lines.add(String.format(
+        "%-20s %12.1f %10.2f %10.2f %10.2f %10.2f %10d", endpoint,
+        histogram.getTotalCount() / elapsedInSeconds,
+        histogram.getValueAtPercentile(50) / 1000.0,
+        histogram.getValueAtPercentile(99) / 1000.0,
+        histogram.getValueAtPercentile(99.9) / 1000.0,
+        histogram.getMaxValue() / 1000.0,
+        histogram.getTotalCount())));
+    lines.add("");
+    lines.add(String.format("%-45s %10s", "Outcome", "Requests"));
+    outcomeCounts.forEach(
+        (outcome, count) -> lines.add(String.format("%-45s %10d", outcome, count)));
+    System.out.println(String.join(System.lineSeparator(), lines));
+  }
+
+}
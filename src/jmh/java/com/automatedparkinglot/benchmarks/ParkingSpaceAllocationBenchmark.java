@@ -0,0 +1,35 @@
+package com.automatedparkinglot.benchmarks;
+
+import com.automatedparkinglot.entities.ParkingSpace;
+import com.automatedparkinglot.services.ParkingSpaceService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Assigning a car to a free parking space on a floor. Every assignment is rolled back, which also
+ * gives the parking space back to the in-memory allocator, so the lot never fills up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParkingSpaceAllocationBenchmark {
+
+  @Benchmark
+  public ParkingSpace parkCarInAFreeParkingSpace(LotState lot, CarState car) {
+    var parkingSpaceService = lot.getBean(ParkingSpaceService.class);
+    return lot.getBean(TransactionTemplate.class).execute(transactionStatus -> {
+      transactionStatus.setRollbackOnly();
+      return parkingSpaceService.parkCarInAFreeParkingSpace(lot.floors, car.nextCarId());
+    });
+  }
+
+}
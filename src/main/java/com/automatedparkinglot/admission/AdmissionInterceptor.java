@@ -0,0 +1,134 @@
+package com.automatedparkinglot.admission;
+
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.exception.AutomatedParkingExceptionResponse;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admission control of the requests which park, reserve, or pull out cars: at most a number of them
+ * are handled at once in the whole lot, and at most a smaller number per gate, identified by the
+ * Gate-Id header. A request beyond either limit is rejected at once with 429 Too Many Requests and
+ * a Retry-After header, instead of waiting for a database connection on a request thread, so an
+ * overloaded lot keeps its latency and a single misbehaving gate cannot take all of its capacity.
+ * <p>
+ * Requests without a Gate-Id header are only subject to the limit of the lot. Gates are a fixed set
+ * of devices, so a limit is kept per configured gate ID for the lifetime of the application.
+ * Requests with any other gate ID, which is sent by the client and cannot be trusted, share a
+ * single limit of the same size, so unknown gate IDs neither grow the limits kept nor get their
+ * own.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+  private static final String GATE_ID_HEADER = "Gate-Id";
+  private static final String ADMITTED_ATTRIBUTE =
+      AdmissionInterceptor.class.getName() + ".admitted";
+  private static final String GATE_PERMITS_ATTRIBUTE =
+      AdmissionInterceptor.class.getName() + ".gatePermits";
+
+  private final ParkingMetrics parkingMetrics;
+  private final ObjectMapper objectMapper;
+  private final Semaphore lotPermits;
+  private final String retryAfterInSeconds;
+  private final Map<String, Semaphore> gatePermitsByGateId;
+  private final Semaphore unknownGatePermits;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param parkingMetrics      A {@link ParkingMetrics} instance
+   * @param objectMapper        An {@link ObjectMapper} instance
+   * @param maxInFlight         The maximum number of requests handled at once in the lot
+   * @param maxInFlightPerGate  The maximum number of requests handled at once per gate
+   * @param retryAfterInSeconds The time after which a rejected request is to be retried
+   * @param gateIds             The IDs of the gates of the lot
+   */
+  @Autowired
+  public AdmissionInterceptor(ParkingMetrics parkingMetrics, ObjectMapper objectMapper,
+      @Value("${automated-parking-lot.admission.max-in-flight:100}") int maxInFlight,
+      @Value("${automated-parking-lot.admission.max-in-flight-per-gate:4}") int maxInFlightPerGate,
+      @Value("${automated-parking-lot.admission.retry-after-seconds:1}") long retryAfterInSeconds,
+      @Value("${automated-parking-lot.admission.gate-ids:}") String[] gateIds) {
+    this.parkingMetrics = parkingMetrics;
+    this.objectMapper = objectMapper;
+    this.lotPermits = new Semaphore(maxInFlight);
+    this.retryAfterInSeconds = String.valueOf(retryAfterInSeconds);
+    this.gatePermitsByGateId = Arrays.stream(gateIds)
+        .map(String::strip)
+        .filter(gateId -> !gateId.isEmpty())
+        .distinct()
+        .collect(Collectors.toUnmodifiableMap(Function.identity(),
+            gateId -> new Semaphore(maxInFlightPerGate)));
+    this.unknownGatePermits = new Semaphore(maxInFlightPerGate);
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) throws IOException {
+    if (request.getDispatcherType() != DispatcherType.REQUEST) {
+      return true;
+    }
+    var gateId = request.getHeader(GATE_ID_HEADER);
+    var gatePermits = Objects.isNull(gateId) ? null
+        : gatePermitsByGateId.getOrDefault(gateId, unknownGatePermits);
+    if (Objects.nonNull(gatePermits) && !gatePermits.tryAcquire()) {
+      this.reject(response);
+      return false;
+    }
+    if (!lotPermits.tryAcquire()) {
+      if (Objects.nonNull(gatePermits)) {
+        gatePermits.release();
+      }
+      this.reject(response);
+      return false;
+    }
+    request.setAttribute(ADMITTED_ATTRIBUTE, Boolean.TRUE);
+    request.setAttribute(GATE_PERMITS_ATTRIBUTE, gatePermits);
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception exception) {
+    if (!Boolean.TRUE.equals(request.getAttribute(ADMITTED_ATTRIBUTE))) {
+      return;
+    }
+    request.removeAttribute(ADMITTED_ATTRIBUTE);
+    var gatePermits = (Semaphore) request.getAttribute(GATE_PERMITS_ATTRIBUTE);
+    if (Objects.nonNull(gatePermits)) {
+      gatePermits.release();
+    }
+    lotPermits.release();
+  }
+
+  private void reject(HttpServletResponse response) throws IOException {
+    var exceptionCode = AutomatedParkingExceptionCode.LOT_OVERLOADED;
+    parkingMetrics.countError(exceptionCode);
+    var exceptionResponse = new AutomatedParkingExceptionResponse();
+    exceptionResponse.setErrorCode(exceptionCode.name());
+    exceptionResponse.setErrorMessage(exceptionCode.getExplanatoryMessage());
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterInSeconds);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), exceptionResponse);
+  }
+
+}
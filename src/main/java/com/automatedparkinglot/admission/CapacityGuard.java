@@ -0,0 +1,64 @@
+package com.automatedparkinglot.admission;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.lotstate.CarLocationCache;
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.lotstate.LotCapacityLimits;
+import com.automatedparkinglot.services.ReservationService;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * A check in front of the parking and reservation transactions, which rejects a car no floor can
+ * take with NO_AVAILABLE_FLOOR by comparing it with the {@link LotCapacityLimits} published by the
+ * {@link FloorIndex}: no transaction is started, no database connection is taken, and the lock of
+ * the index is not contended. When the lot is full, every new car is rejected this way.
+ */
+@Component
+public class CapacityGuard {
+
+  private final FloorIndex floorIndex;
+  private final CarLocationCache carLocationCache;
+  private final ReservationService reservationService;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param floorIndex         A {@link FloorIndex} instance
+   * @param carLocationCache   A {@link CarLocationCache} instance
+   * @param reservationService A {@link ReservationService} instance
+   */
+  @Autowired
+  public CapacityGuard(FloorIndex floorIndex, CarLocationCache carLocationCache,
+      ReservationService reservationService) {
+    this.floorIndex = floorIndex;
+    this.carLocationCache = carLocationCache;
+    this.reservationService = reservationService;
+  }
+
+  /**
+   * Rejects a car which cannot be parked because it is above the limits of the lot. Incomplete
+   * parking requests are left to the validation of the services.
+   *
+   * @param parkingRequest Parking request of the car to be parked or reserved for
+   */
+  public void rejectIfNoFloorCanFit(ParkingRequest parkingRequest) {
+    var carHeight = parkingRequest.getCarHeight();
+    var carWeight = parkingRequest.getCarWeight();
+    if (Objects.isNull(carHeight) || Objects.isNull(carWeight)
+        || floorIndex.getCapacityLimits().mayFit(carHeight, carWeight)) {
+      return;
+    }
+    // A car with a reservation already has a parking space, and a parked car is rejected as such
+    var carId = parkingRequest.getCarId();
+    if (Objects.isNull(carId) || reservationService.isReserved(carId)
+        || Objects.nonNull(carLocationCache.get(carId))) {
+      return;
+    }
+    throw AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR);
+  }
+
+}
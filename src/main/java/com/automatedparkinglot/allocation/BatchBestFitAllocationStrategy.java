@@ -0,0 +1,67 @@
+package com.automatedparkinglot.allocation;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * A strategy assigning a window of cars together, to waste as little ceiling height and to strand
+ * as few parking spaces behind an exhausted weight as possible.
+ * <p>
+ * The cars are assigned from the tallest to the shortest, and among equally tall cars from the
+ * heaviest to the lightest, so the cars with the fewest fitting floors choose first and a short car
+ * does not take the last space of a high floor that a taller car of the same window needs. Each car
+ * is assigned among the floors of the closest fitting ceiling height, to the one whose remaining
+ * weight per free parking space is the closest to the car's weight: heavy cars go where there is
+ * weight to spare, and light cars use up the floors on which little weight is left per space.
+ */
+@Component
+@ConditionalOnProperty(name = "automated-parking-lot.allocation.strategy",
+    havingValue = "batch-best-fit")
+public class BatchBestFitAllocationStrategy implements FloorAllocationStrategy {
+
+  @Override
+  public Integer[] assignFloors(List<ParkingRequest> cars, List<FloorCapacity> floors) {
+    var floorNumbers = new Integer[cars.size()];
+    var remainingCapacities = new RemainingFloorCapacities(floors);
+    var carIndexes = IntStream.range(0, cars.size())
+        .filter(i -> Objects.nonNull(cars.get(i)))
+        .boxed()
+        .sorted(Comparator.comparing((Integer i) -> cars.get(i).getCarHeight())
+            .thenComparing(i -> cars.get(i).getCarWeight())
+            .reversed())
+        .collect(Collectors.toList());
+    for (var i : carIndexes) {
+      var car = cars.get(i);
+      var bestPosition = -1;
+      var bestWeightMismatch = Double.MAX_VALUE;
+      for (int position = remainingCapacities.findLowestFittingPosition(car.getCarHeight());
+          position < remainingCapacities.size(); position++) {
+        if (bestPosition >= 0 && remainingCapacities.getCeilingHeight(position)
+            .compareTo(remainingCapacities.getCeilingHeight(bestPosition)) > 0) {
+          break; // Only the floors of the closest fitting ceiling height are considered
+        }
+        if (!remainingCapacities.canTake(position, car.getCarWeight())) {
+          continue;
+        }
+        var weightMismatch = Math.abs(remainingCapacities.getAllowedWeight(position).doubleValue()
+            / remainingCapacities.getFreeParkingSpaces(position)
+            - car.getCarWeight().doubleValue());
+        if (weightMismatch < bestWeightMismatch) {
+          bestPosition = position;
+          bestWeightMismatch = weightMismatch;
+        }
+      }
+      if (bestPosition >= 0) {
+        floorNumbers[i] = remainingCapacities.take(bestPosition, car.getCarWeight());
+      }
+    }
+    return floorNumbers;
+  }
+
+}
@@ -0,0 +1,31 @@
+package com.automatedparkinglot.allocation;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import java.util.List;
+
+/**
+ * A strategy assigning floors to a window of queued cars, i.e. the cars of a batch parking request.
+ * The parking spaces of a floor are all alike, so a car gets the first free parking space of its
+ * floor, and a strategy only decides on the floors.
+ * <p>
+ * The assignment is a plan made on a copy of the floors' capacities: a floor planned for a car is
+ * checked again when the car is parked, and a car whose planned floor cannot take it anymore (or
+ * which got no floor) is parked on the closest fitting floor. A single car is always parked on the
+ * closest fitting floor found by the {@link com.automatedparkinglot.lotstate.FloorIndex}.
+ * <p>
+ * Selected by automated-parking-lot.allocation.strategy: greedy (the default) or batch-best-fit.
+ */
+public interface FloorAllocationStrategy {
+
+  /**
+   * Assigns floors to a window of cars
+   *
+   * @param cars   The cars in order of arrival, each with a height and a weight; null entries are
+   *               cars which are not to be parked (e.g. invalid ones), and get no floor
+   * @param floors The capacities of the floors
+   * @return The ordinal numbers of the floors assigned to the cars, in the same order as the cars,
+   * or null for a car which no floor can take
+   */
+  Integer[] assignFloors(List<ParkingRequest> cars, List<FloorCapacity> floors);
+
+}
@@ -0,0 +1,21 @@
+package com.automatedparkinglot.allocation;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * What a floor can still take, as seen by a {@link FloorAllocationStrategy}: floor's ordinal number
+ * from ground, floor's ceiling height, floor's remaining weight allowed for new cars to be parked,
+ * and the number of free parking spaces on the floor
+ */
+@Getter
+@AllArgsConstructor
+public class FloorCapacity {
+
+  private final Integer number;
+  private final BigDecimal ceilingHeight;
+  private final BigDecimal allowedWeight;
+  private final int freeParkingSpaces;
+
+}
@@ -0,0 +1,39 @@
+package com.automatedparkinglot.allocation;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * The default strategy: the cars are assigned one by one in order of arrival, each to the floor
+ * whose ceiling height is the closest one to the car's height among the floors which can take it.
+ * This is the choice made for a single car by the {@link com.automatedparkinglot.lotstate.FloorIndex}.
+ */
+@Component
+@ConditionalOnProperty(name = "automated-parking-lot.allocation.strategy", havingValue = "greedy",
+    matchIfMissing = true)
+public class GreedyAllocationStrategy implements FloorAllocationStrategy {
+
+  @Override
+  public Integer[] assignFloors(List<ParkingRequest> cars, List<FloorCapacity> floors) {
+    var floorNumbers = new Integer[cars.size()];
+    var remainingCapacities = new RemainingFloorCapacities(floors);
+    for (int i = 0; i < cars.size(); i++) {
+      var car = cars.get(i);
+      if (Objects.isNull(car)) {
+        continue;
+      }
+      for (int position = remainingCapacities.findLowestFittingPosition(car.getCarHeight());
+          position < remainingCapacities.size(); position++) {
+        if (remainingCapacities.canTake(position, car.getCarWeight())) {
+          floorNumbers[i] = remainingCapacities.take(position, car.getCarWeight());
+          break;
+        }
+      }
+    }
+    return floorNumbers;
+  }
+
+}
@@ -0,0 +1,88 @@
+package com.automatedparkinglot.allocation;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The capacities of the floors ordered by ceiling height, from which the cars assigned by a
+ * strategy take a parking space and their weight
+ */
+class RemainingFloorCapacities {
+
+  private final FloorCapacity[] floorsByCeilingHeight;
+  private final BigDecimal[] allowedWeights;
+  private final int[] freeParkingSpaces;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param floors The capacities of the floors
+   */
+  RemainingFloorCapacities(List<FloorCapacity> floors) {
+    floorsByCeilingHeight = floors.stream()
+        .sorted(Comparator.comparing(FloorCapacity::getCeilingHeight)
+            .thenComparing(FloorCapacity::getNumber))
+        .toArray(FloorCapacity[]::new);
+    allowedWeights = new BigDecimal[floorsByCeilingHeight.length];
+    freeParkingSpaces = new int[floorsByCeilingHeight.length];
+    for (int i = 0; i < floorsByCeilingHeight.length; i++) {
+      allowedWeights[i] = floorsByCeilingHeight[i].getAllowedWeight();
+      freeParkingSpaces[i] = floorsByCeilingHeight[i].getFreeParkingSpaces();
+    }
+  }
+
+  int size() {
+    return floorsByCeilingHeight.length;
+  }
+
+  /**
+   * Finds the first floor whose ceiling is high enough for a car by binary search
+   *
+   * @param carHeight The height of the car
+   * @return The position of the floor, or the number of floors if no ceiling is high enough
+   */
+  int findLowestFittingPosition(BigDecimal carHeight) {
+    int low = 0;
+    int high = floorsByCeilingHeight.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (floorsByCeilingHeight[middle].getCeilingHeight().compareTo(carHeight) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  boolean canTake(int position, BigDecimal carWeight) {
+    return freeParkingSpaces[position] > 0 && allowedWeights[position].compareTo(carWeight) >= 0;
+  }
+
+  BigDecimal getCeilingHeight(int position) {
+    return floorsByCeilingHeight[position].getCeilingHeight();
+  }
+
+  BigDecimal getAllowedWeight(int position) {
+    return allowedWeights[position];
+  }
+
+  int getFreeParkingSpaces(int position) {
+    return freeParkingSpaces[position];
+  }
+
+  /**
+   * Takes a parking space and a car's weight from a floor
+   *
+   * @param position  The position of the floor
+   * @param carWeight The weight of the car
+   * @return The ordinal number of the floor
+   */
+  Integer take(int position, BigDecimal carWeight) {
+    freeParkingSpaces[position]--;
+    allowedWeights[position] = allowedWeights[position].subtract(carWeight);
+    return floorsByCeilingHeight[position].getNumber();
+  }
+
+}
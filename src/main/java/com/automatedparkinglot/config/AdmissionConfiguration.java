@@ -0,0 +1,31 @@
+package com.automatedparkinglot.config;
+
+import com.automatedparkinglot.admission.AdmissionInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the {@link AdmissionInterceptor} in front of the endpoints which park, reserve, or pull out
+ * cars. Occupancy and export requests don't change the lot, and are not limited.
+ */
+@Configuration(proxyBeanMethods = false)
+public class AdmissionConfiguration implements WebMvcConfigurer {
+
+  private final AdmissionInterceptor admissionInterceptor;
+
+  @Autowired
+  public AdmissionConfiguration(AdmissionInterceptor admissionInterceptor) {
+    this.admissionInterceptor = admissionInterceptor;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(admissionInterceptor)
+        .addPathPatterns("/automated-parking-lot/park", "/automated-parking-lot/park/batch",
+            "/automated-parking-lot/reserve", "/automated-parking-lot/cancel-reservation/**",
+            "/automated-parking-lot/pull-out-and-bill/**");
+  }
+
+}
@@ -0,0 +1,59 @@
+package com.automatedparkinglot.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * An opt-in request execution mode in which Tomcat handles every request on a new virtual thread
+ * instead of a thread of its bounded pool. Controllers and the transactions of the services run on
+ * the request thread, so a request blocked on JDBC or on a slow client only parks a virtual thread,
+ * and the number of concurrent requests is not limited by server.tomcat.threads.max anymore. The
+ * database connection pool (spring.datasource.hikari.maximum-pool-size) becomes the limit of how
+ * many requests work on the database at once; the others wait for a connection.
+ * <p>
+ * Enabled by automated-parking-lot.virtual-threads.enabled=true. The application is still built
+ * for Java 11, so the virtual thread API is looked up at startup, which fails if the application
+ * does not run on Java 21 or later.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "automated-parking-lot.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+  /**
+   * Creates the executor starting a virtual thread per request (It is shut down with the
+   * application context.)
+   *
+   * @return The executor
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService virtualThreadRequestExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (NoSuchMethodException noSuchMethodException) {
+      throw new IllegalStateException("Virtual threads require Java 21 or later, but the "
+          + "application runs on Java " + Runtime.version().feature() + ".",
+          noSuchMethodException);
+    } catch (ReflectiveOperationException reflectiveOperationException) {
+      throw new IllegalStateException("The virtual thread executor could not be created.",
+          reflectiveOperationException);
+    }
+  }
+
+  /**
+   * Makes Tomcat process requests on virtual threads
+   *
+   * @param virtualThreadRequestExecutor The executor starting a virtual thread per request
+   * @return The customizer of Tomcat's protocol handler
+   */
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+      ExecutorService virtualThreadRequestExecutor) {
+    return protocolHandler -> protocolHandler.setExecutor(virtualThreadRequestExecutor);
+  }
+
+}
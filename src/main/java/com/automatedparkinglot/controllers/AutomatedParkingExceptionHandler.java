@@ -1,9 +1,14 @@
 package com.automatedparkinglot.controllers;
 
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
 import com.automatedparkinglot.exception.AutomatedParkingException;
 import com.automatedparkinglot.exception.AutomatedParkingExceptionResponse;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.automatedparkinglot.util.LogSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -14,8 +19,25 @@ public class AutomatedParkingExceptionHandler {
 
   private final Logger logger = LoggerFactory.getLogger(AutomatedParkingExceptionHandler.class);
 
+  private final ParkingMetrics parkingMetrics;
+  private final LogSampler<AutomatedParkingExceptionCode> logSampler;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param parkingMetrics      A {@link ParkingMetrics} instance
+   * @param logIntervalInMillis The minimum time between two logged rejections with the same code
+   */
+  @Autowired
+  public AutomatedParkingExceptionHandler(ParkingMetrics parkingMetrics,
+      @Value("${automated-parking-lot.rejections.log-interval-ms:1000}") long logIntervalInMillis) {
+    this.parkingMetrics = parkingMetrics;
+    this.logSampler = new LogSampler<>(AutomatedParkingExceptionCode.class, logIntervalInMillis);
+  }
+
   /**
-   * Process an exception and prepares the response to be returned once it's thrown
+   * Process an exception and prepares the response to be returned once it's thrown. Rejections are
+   * counted, but only logged once per interval and exception code, without a stack trace.
    *
    * @param automatedParkingException Thrown instance of the custom exception,
    *                                  AutomatedParkingException
@@ -25,11 +47,16 @@ public class AutomatedParkingExceptionHandler {
   @ResponseStatus(HttpStatus.BAD_REQUEST)
   public AutomatedParkingExceptionResponse handleRequirementException(
       AutomatedParkingException automatedParkingException) {
-    logger.error("PARKING ERROR!", automatedParkingException);
+    var exceptionCode = automatedParkingException.getExceptionCode();
+    parkingMetrics.countError(exceptionCode);
+    var suppressedRejections = logSampler.sample(exceptionCode);
+    if (suppressedRejections >= 0) {
+      logger.warn("PARKING ERROR! {} ({} similar rejections suppressed since the last one)",
+          exceptionCode, suppressedRejections);
+    }
     var exceptionResponse = new AutomatedParkingExceptionResponse();
-    exceptionResponse.setErrorCode(automatedParkingException.getExceptionCode().name());
-    exceptionResponse.setErrorMessage(
-        automatedParkingException.getExceptionCode().getExplanatoryMessage());
+    exceptionResponse.setErrorCode(exceptionCode.name());
+    exceptionResponse.setErrorMessage(exceptionCode.getExplanatoryMessage());
     return exceptionResponse;
   }
 
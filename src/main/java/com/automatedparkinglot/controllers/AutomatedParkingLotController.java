@@ -2,13 +2,22 @@ package com.automatedparkinglot.controllers;
 
 import static org.springframework.http.HttpStatus.OK;
 
+import com.automatedparkinglot.admission.CapacityGuard;
 import com.automatedparkinglot.dtos.ParkingRequest;
+import com.automatedparkinglot.dtos.ParkingResult;
+import com.automatedparkinglot.dtos.ReservationResult;
+import com.automatedparkinglot.dtos.TransportTaskResult;
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.idempotency.IdempotencyCache;
 import com.automatedparkinglot.services.AutomatedParkingService;
+import com.automatedparkinglot.services.ReservationService;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -16,35 +25,102 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping(value = "/automated-parking-lot", consumes = "application/json", produces = "application/json")
 public class AutomatedParkingLotController {
 
+  private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
   private final AutomatedParkingService automatedParkingService;
+  private final ReservationService reservationService;
+  private final IdempotencyCache idempotencyCache;
+  private final CapacityGuard capacityGuard;
 
   @Autowired
-  private AutomatedParkingLotController(AutomatedParkingService automatedParkingService) {
+  private AutomatedParkingLotController(AutomatedParkingService automatedParkingService,
+      ReservationService reservationService, IdempotencyCache idempotencyCache,
+      CapacityGuard capacityGuard) {
     this.automatedParkingService = automatedParkingService;
+    this.reservationService = reservationService;
+    this.idempotencyCache = idempotencyCache;
+    this.capacityGuard = capacityGuard;
   }
 
   /**
-   * An endpoint to park a car in an available and the most suitable parking space
+   * An endpoint to park a car in an available and the most suitable parking space. It returns
+   * without waiting for the car to be transported there. A retry with the same idempotency key gets
+   * the outcome of the first request.
    *
+   * @param idempotencyKey A key unique to the parking, optional
    * @param parkingRequest A DTO to transfer information of a car to be parked
-   * @return A {@link ResponseEntity} instance
+   * @return A {@link ResponseEntity} instance with the task transporting the car
    */
   @PostMapping(value = "/park")
-  public ResponseEntity<Void> parkCarInAParkingSpace(@RequestBody ParkingRequest parkingRequest) {
-    automatedParkingService.parkCarInAParkingSpace(parkingRequest);
-    return new ResponseEntity<>(OK);
+  public ResponseEntity<TransportTaskResult> parkCarInAParkingSpace(
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+      @RequestBody ParkingRequest parkingRequest) {
+    return idempotencyCache.execute(idempotencyKey, ParkingOperation.PARK, parkingRequest, () -> {
+      capacityGuard.rejectIfNoFloorCanFit(parkingRequest);
+      return new ResponseEntity<>(automatedParkingService.parkCarInAParkingSpace(parkingRequest),
+          OK);
+    });
+  }
+
+  /**
+   * An endpoint to park several cars, e.g. cars queued at a gate, at once. A retry with the same
+   * idempotency key gets the outcome of the first request.
+   *
+   * @param idempotencyKey  A key unique to the batch, optional
+   * @param parkingRequests DTOs to transfer information of the cars to be parked
+   * @return A {@link ResponseEntity} instance with the outcome of every parking request
+   */
+  @PostMapping(value = "/park/batch")
+  public ResponseEntity<List<ParkingResult>> parkCarsInParkingSpaces(
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+      @RequestBody List<ParkingRequest> parkingRequests) {
+    return idempotencyCache.execute(idempotencyKey, ParkingOperation.BATCH_PARK, parkingRequests,
+        () -> new ResponseEntity<>(
+            automatedParkingService.parkCarsInParkingSpaces(parkingRequests), OK));
+  }
+
+  /**
+   * An endpoint to reserve the most suitable parking space for a car which has not arrived yet. The
+   * car is parked in it by the parking endpoints when it arrives before the reservation expires.
+   *
+   * @param parkingRequest A DTO to transfer information of the car to be expected
+   * @return A {@link ResponseEntity} instance with the reserved parking space
+   */
+  @PostMapping(value = "/reserve")
+  public ResponseEntity<ReservationResult> reserveParkingSpace(
+      @RequestBody ParkingRequest parkingRequest) {
+    capacityGuard.rejectIfNoFloorCanFit(parkingRequest);
+    return new ResponseEntity<>(automatedParkingService.reserveParkingSpace(parkingRequest), OK);
   }
 
   /**
-   * An endpoint to pull a parked car out of the parking lot
+   * An endpoint to cancel the reservation of a car and release its parking space
    *
-   * @param carId The ID of the car to be pulled out of the parking lot
+   * @param carId The ID of the car whose reservation is to be cancelled
    * @return A {@link ResponseEntity} instance
    */
-  @PostMapping(value = "/pull-out-and-bill/{carId}")
-  public ResponseEntity<Void> pullCarOutOfLotAndGenerateBill(@PathVariable String carId) {
-    automatedParkingService.pullCarOutOfLotAndGenerateBill(carId);
+  @PostMapping(value = "/cancel-reservation/{carId}")
+  public ResponseEntity<Void> cancelReservation(@PathVariable String carId) {
+    reservationService.cancelReservation(carId);
     return new ResponseEntity<>(OK);
   }
 
+  /**
+   * An endpoint to pull a parked car out of the parking lot. It returns without waiting for the car
+   * to be transported to the exit. A retry with the same idempotency key gets the outcome of the
+   * first request, so the car is billed once.
+   *
+   * @param idempotencyKey A key unique to the pull-out, optional
+   * @param carId          The ID of the car to be pulled out of the parking lot
+   * @return A {@link ResponseEntity} instance with the task transporting the car
+   */
+  @PostMapping(value = "/pull-out-and-bill/{carId}")
+  public ResponseEntity<TransportTaskResult> pullCarOutOfLotAndGenerateBill(
+      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+      @PathVariable String carId) {
+    return idempotencyCache.execute(idempotencyKey, ParkingOperation.PULL_OUT, carId,
+        () -> new ResponseEntity<>(automatedParkingService.pullCarOutOfLotAndGenerateBill(carId),
+            OK));
+  }
+
 }
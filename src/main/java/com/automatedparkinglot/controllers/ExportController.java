@@ -0,0 +1,73 @@
+package com.automatedparkinglot.controllers;
+
+import static org.springframework.http.HttpStatus.OK;
+
+import com.automatedparkinglot.enums.ExportFormat;
+import com.automatedparkinglot.services.ExportService;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping(value = "/automated-parking-lot/export")
+public class ExportController {
+
+  private final ExportService exportService;
+
+  @Autowired
+  private ExportController(ExportService exportService) {
+    this.exportService = exportService;
+  }
+
+  /**
+   * An endpoint to export the parking records of the parkings started in a time range. The rows are
+   * streamed in a chunked response while they are read from the database.
+   *
+   * @param from   The start of the time range, inclusive, e.g. 2022-05-14T00:00
+   * @param to     The end of the time range, exclusive
+   * @param format The format of the rows: ndjson (the default) or csv
+   * @return A {@link ResponseEntity} instance with the streamed rows
+   */
+  @GetMapping(value = "/parking-records")
+  public ResponseEntity<StreamingResponseBody> exportParkingRecords(
+      @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "ndjson") String format) {
+    var exportFormat = ExportFormat.of(format);
+    exportService.validateTimeRange(from, to);
+    return ResponseEntity.status(OK)
+        .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+        .body(outputStream -> exportService.exportParkingRecords(from, to, exportFormat,
+            outputStream));
+  }
+
+  /**
+   * An endpoint to export the bills of the parkings ended in a time range. The rows are streamed in
+   * a chunked response while they are read from the database.
+   *
+   * @param from   The start of the time range, inclusive, e.g. 2022-05-14T00:00
+   * @param to     The end of the time range, exclusive
+   * @param format The format of the rows: ndjson (the default) or csv
+   * @return A {@link ResponseEntity} instance with the streamed rows
+   */
+  @GetMapping(value = "/bills")
+  public ResponseEntity<StreamingResponseBody> exportBills(
+      @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "ndjson") String format) {
+    var exportFormat = ExportFormat.of(format);
+    exportService.validateTimeRange(from, to);
+    return ResponseEntity.status(OK)
+        .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+        .body(outputStream -> exportService.exportBills(from, to, exportFormat, outputStream));
+  }
+
+}
@@ -0,0 +1,97 @@
+package com.automatedparkinglot.controllers;
+
+import static org.springframework.http.HttpStatus.OK;
+
+import com.automatedparkinglot.dtos.FittingCarsResult;
+import com.automatedparkinglot.dtos.FloorOccupancyResult;
+import com.automatedparkinglot.dtos.OccupancyResult;
+import com.automatedparkinglot.services.OccupancyService;
+import com.automatedparkinglot.services.OccupancyStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/automated-parking-lot/occupancy", produces = "application/json")
+public class OccupancyController {
+
+  private final OccupancyService occupancyService;
+  private final OccupancyStream occupancyStream;
+
+  @Autowired
+  private OccupancyController(OccupancyService occupancyService,
+      OccupancyStream occupancyStream) {
+    this.occupancyService = occupancyService;
+    this.occupancyStream = occupancyStream;
+  }
+
+  /**
+   * An endpoint to get the occupancy of the whole lot, e.g. for display boards
+   *
+   * @return A {@link ResponseEntity} instance with the occupancy of the lot
+   */
+  @GetMapping
+  public ResponseEntity<OccupancyResult> getLotOccupancy() {
+    return new ResponseEntity<>(occupancyService.getLotOccupancy(), OK);
+  }
+
+  /**
+   * An endpoint to get the occupancy of every floor
+   *
+   * @return A {@link ResponseEntity} instance with the occupancies of the floors
+   */
+  @GetMapping(value = "/floors")
+  public ResponseEntity<List<FloorOccupancyResult>> getFloorOccupancies() {
+    return new ResponseEntity<>(occupancyService.getFloorOccupancies(), OK);
+  }
+
+  /**
+   * An endpoint to get the occupancy of a floor
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @return A {@link ResponseEntity} instance with the occupancy of the floor
+   */
+  @GetMapping(value = "/floors/{floorNumber}")
+  public ResponseEntity<FloorOccupancyResult> getFloorOccupancy(@PathVariable Integer floorNumber) {
+    return new ResponseEntity<>(occupancyService.getFloorOccupancy(floorNumber), OK);
+  }
+
+  /**
+   * An endpoint to get how many cars of a height class, and optionally of a weight, could be parked
+   * right now
+   *
+   * @param carHeight The height of the cars
+   * @param carWeight The weight of the cars (optional)
+   * @return A {@link ResponseEntity} instance with the number of fitting cars
+   */
+  @GetMapping(value = "/fitting-cars")
+  public ResponseEntity<FittingCarsResult> countFittingCars(@RequestParam BigDecimal carHeight,
+      @RequestParam(required = false) BigDecimal carWeight) {
+    return new ResponseEntity<>(occupancyService.countFittingCars(carHeight, carWeight), OK);
+  }
+
+  /**
+   * An endpoint to subscribe to the occupancy changes as server-sent events: first all floors, then
+   * the changed floors at most once per publish interval
+   *
+   * @param request  The request of the subscriber
+   * @param response The response the events are streamed to asynchronously
+   * @throws IOException If the response can't be written
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public void streamOccupancy(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    occupancyStream.subscribe(request, response);
+  }
+
+}
@@ -0,0 +1,37 @@
+package com.automatedparkinglot.controllers;
+
+import static org.springframework.http.HttpStatus.OK;
+
+import com.automatedparkinglot.dtos.TransportTaskResult;
+import com.automatedparkinglot.movement.MovementScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/automated-parking-lot/transport-tasks", produces = "application/json")
+public class TransportTaskController {
+
+  private final MovementScheduler movementScheduler;
+
+  @Autowired
+  private TransportTaskController(MovementScheduler movementScheduler) {
+    this.movementScheduler = movementScheduler;
+  }
+
+  /**
+   * An endpoint to follow the transport of a car parked or pulled out, by the task ID returned by
+   * the parking and pull-out endpoints
+   *
+   * @param taskId The ID of the transport task
+   * @return A {@link ResponseEntity} instance with the stage of the transport
+   */
+  @GetMapping(value = "/{taskId}")
+  public ResponseEntity<TransportTaskResult> getTransportTask(@PathVariable long taskId) {
+    return new ResponseEntity<>(movementScheduler.getTransportTask(taskId), OK);
+  }
+
+}
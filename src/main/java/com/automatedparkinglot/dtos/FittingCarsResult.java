@@ -0,0 +1,17 @@
+package com.automatedparkinglot.dtos;
+
+import java.math.BigDecimal;
+import lombok.Data;
+
+/**
+ * A DTO to transfer how many cars of a height class, and optionally of a weight, could be parked in
+ * the lot right now
+ */
+@Data
+public class FittingCarsResult {
+
+  private BigDecimal carHeight;
+  private BigDecimal carWeight;
+  private long fittingCars;
+
+}
@@ -0,0 +1,21 @@
+package com.automatedparkinglot.dtos;
+
+import java.math.BigDecimal;
+import lombok.Data;
+
+/**
+ * A DTO to transfer the occupancy of a floor: floor's ordinal number, floor's ceiling height, the
+ * numbers of all and of free parking spaces on the floor, floor's weight capacity, and floor's
+ * remaining weight allowed for new cars to be parked
+ */
+@Data
+public class FloorOccupancyResult {
+
+  private Integer floor;
+  private BigDecimal ceilingHeight;
+  private int parkingSpaces;
+  private int freeParkingSpaces;
+  private BigDecimal weightCapacity;
+  private BigDecimal allowedWeight;
+
+}
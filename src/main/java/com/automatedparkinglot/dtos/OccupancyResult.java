@@ -0,0 +1,18 @@
+package com.automatedparkinglot.dtos;
+
+import java.math.BigDecimal;
+import lombok.Data;
+
+/**
+ * A DTO to transfer the occupancy of the whole lot: the numbers of all and of free parking spaces,
+ * the total weight capacity, and the total remaining weight allowed for new cars to be parked
+ */
+@Data
+public class OccupancyResult {
+
+  private long parkingSpaces;
+  private long freeParkingSpaces;
+  private BigDecimal weightCapacity;
+  private BigDecimal allowedWeight;
+
+}
@@ -0,0 +1,20 @@
+package com.automatedparkinglot.dtos;
+
+import lombok.Data;
+
+/**
+ * A DTO to transfer the outcome of a parking request in a batch: the floor and the parking space
+ * assigned to the car with the ID of the task transporting it there, or the error code and message
+ * if the car could not be parked
+ */
+@Data
+public class ParkingResult {
+
+  private String carId;
+  private Integer floor;
+  private Long parkingSpaceId;
+  private Long transportTaskId;
+  private String errorCode;
+  private String errorMessage;
+
+}
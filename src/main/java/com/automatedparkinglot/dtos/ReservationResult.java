@@ -0,0 +1,18 @@
+package com.automatedparkinglot.dtos;
+
+import java.time.Instant;
+import lombok.Data;
+
+/**
+ * A DTO to transfer a reservation: the floor and the parking space held for the car, and the time
+ * until which they are held
+ */
+@Data
+public class ReservationResult {
+
+  private String carId;
+  private Integer floor;
+  private Long parkingSpaceId;
+  private Instant expiresAt;
+
+}
@@ -0,0 +1,20 @@
+package com.automatedparkinglot.dtos;
+
+import com.automatedparkinglot.enums.TransportStage;
+import lombok.Data;
+
+/**
+ * A DTO to transfer a transport task of a car parked or pulled out: the car, its parking space, and
+ * the stage the transport is in
+ */
+@Data
+public class TransportTaskResult {
+
+  private Long taskId;
+  private String operation;
+  private String carId;
+  private Integer floor;
+  private Long parkingSpaceId;
+  private TransportStage stage;
+
+}
@@ -1,10 +1,12 @@
 package com.automatedparkinglot.entities;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -18,8 +20,10 @@ import lombok.Data;
 @Table(name = "bills")
 public class Bill {
 
+  // A sequence (unlike an identity column) lets Hibernate insert bills in JDBC batches
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_sequence")
+  @SequenceGenerator(name = "bill_sequence", sequenceName = "bill_sequence", allocationSize = 50)
   private Long id;
   @NotNull
   private String carId;
@@ -28,6 +32,8 @@ public class Bill {
   @NotNull
   private String billingTo;
   @NotNull
+  private LocalDateTime emptyingTimestamp; // The end of the billing period, for exports by time
+  @NotNull
   @Min(0)
   private BigDecimal pricePerMinute;
   @NotNull
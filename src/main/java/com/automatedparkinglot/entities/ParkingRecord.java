@@ -1,8 +1,12 @@
 package com.automatedparkinglot.entities;
 
+import com.automatedparkinglot.enums.ParkingStatus;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -12,7 +16,8 @@ import lombok.Data;
 
 /**
  * An entity covering the record of a parking that covers some information about parking itself and
- * the parked car
+ * the parked car. Completed and billed parking records are moved to the history table by the
+ * {@link com.automatedparkinglot.services.ParkingRecordArchiver}.
  */
 @Data
 @Entity
@@ -38,6 +43,10 @@ public class ParkingRecord {
   @NotNull
   private Long parkingSpaceId;
   @NotNull
-  private String status;
+  @Enumerated(EnumType.ORDINAL)
+  @Column(columnDefinition = "SMALLINT")
+  private ParkingStatus status;
+  @NotNull
+  private Boolean billed = false; // Set once the bill of a completed parking has been saved
 
 }
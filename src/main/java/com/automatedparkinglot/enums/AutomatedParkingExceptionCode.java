@@ -18,7 +18,21 @@ public enum AutomatedParkingExceptionCode {
       "A parked car to be pulled out with this ID is not available in the lot!"),
   CAR_ID_MISSING("Car ID must be provided!"),
   CAR_WEIGHT_MISSING("Car scan must pass the weight of the car to the system!"),
-  CAR_HEIGHT_MISSING("Car scan must pass the height of the car to the system!");
+  CAR_HEIGHT_MISSING("Car scan must pass the height of the car to the system!"),
+  CAR_ALREADY_RESERVED("There is already a reservation in the lot for the car with this ID!"),
+  NO_RESERVATION_WITH_THIS_ID(
+      "A reservation to be cancelled for the car with this ID is not available in the lot!"),
+  INVALID_EXPORT_FORMAT("Exports can only be made in the ndjson or csv format!"),
+  INVALID_TIME_RANGE("The start of the time range must be before its end!"),
+  NO_FLOOR_WITH_THIS_NUMBER("A floor with this number is not available in the lot!"),
+  IDEMPOTENCY_KEY_REUSED("This idempotency key has already been used for a different request!"),
+  IDEMPOTENT_REQUEST_IN_PROGRESS(
+      "The first request with this idempotency key is still being handled, so the request must be retried later!"),
+  LOT_OVERLOADED("The lot is handling too many requests, so the request must be retried later!"),
+  NO_TRANSPORT_TASK_WITH_THIS_ID(
+      "A transport task with this ID is not available in the lot, or it was completed long ago!"),
+  PARKING_REQUEST_MISSING("Every element of a batch must be a parking request!"),
+  BATCH_TOO_LARGE("A batch can't have more parking requests than the maximum batch size!");
 
   private final String explanatoryMessage;
 }
@@ -0,0 +1,35 @@
+package com.automatedparkinglot.enums;
+
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import java.util.Arrays;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An enumeration to list the formats in which parking records and bills are exported, with their
+ * names in requests and their media types
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+  NDJSON("ndjson", "application/x-ndjson"),
+  CSV("csv", "text/csv");
+
+  private final String tag;
+  private final String mediaType;
+
+  /**
+   * Finds an export format by its name in requests
+   *
+   * @param tag The name of the format in requests, e.g. ndjson
+   * @return The export format
+   */
+  public static ExportFormat of(String tag) {
+    return Arrays.stream(values())
+        .filter(exportFormat -> exportFormat.tag.equalsIgnoreCase(tag))
+        .findFirst()
+        .orElseThrow(() -> AutomatedParkingException.of(
+            AutomatedParkingExceptionCode.INVALID_EXPORT_FORMAT));
+  }
+}
@@ -0,0 +1,32 @@
+package com.automatedparkinglot.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An enumeration to list the movements of cars written to the event log, with their names in the
+ * compact event log and the sentences of their human-readable banners (formatted with the car ID,
+ * the parking space ID, and the floor)
+ */
+@Getter
+@AllArgsConstructor
+public enum ParkingEventType {
+
+  CAR_ARRIVING("car-arriving", "The car %s is being transported to the parking lot."),
+  CAR_ASSIGNED("car-assigned",
+      "The automated parking lot system assigned the car %s to the parking space %s on the floor %s."),
+  CAR_LEAVING("car-leaving", "The car %s is being transported out of the parking lot."),
+  PARKING_OVER("parking-over",
+      "The parking of the car %s in the parking space %s on the floor %s is over and the parking data are being transferred to the billing system."),
+  BILL_GENERATED("bill-generated", null),
+  SPACE_RESERVED("space-reserved",
+      "The automated parking lot system reserved the parking space %2$s on the floor %3$s for the car %1$s."),
+  RESERVATION_RELEASED("reservation-released",
+      "The reservation of the parking space %2$s on the floor %3$s for the car %1$s is over without the car."),
+  CAR_STORED("car-stored",
+      "The car %s has been stored in the parking space %s on the floor %s."),
+  CAR_DELIVERED("car-delivered", "The car %s has been delivered to the exit of the parking lot.");
+
+  private final String eventName;
+  private final String bannerFormat;
+}
@@ -0,0 +1,21 @@
+package com.automatedparkinglot.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An enumeration to list the operations of the parking lot whose phases are timed, with the values
+ * of their metric tags
+ */
+@Getter
+@AllArgsConstructor
+public enum ParkingOperation {
+
+  PARK("park"),
+  BATCH_PARK("batch-park"),
+  RESERVE("reserve"),
+  PULL_OUT("pull-out"),
+  BILLING("billing");
+
+  private final String tag;
+}
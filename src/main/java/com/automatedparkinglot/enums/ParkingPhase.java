@@ -0,0 +1,23 @@
+package com.automatedparkinglot.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An enumeration to list the phases of parking and pulling out a car, with the values of their
+ * metric tags
+ */
+@Getter
+@AllArgsConstructor
+public enum ParkingPhase {
+
+  VALIDATION("validation"),
+  FLOOR_SELECTION("floor-selection"),
+  SPACE_ALLOCATION("space-allocation"),
+  SPACE_RELEASE("space-release"),
+  RECORD_SAVE("record-save"),
+  FLOOR_UPDATE("floor-update"),
+  BILL_GENERATION("bill-generation");
+
+  private final String tag;
+}
@@ -0,0 +1,18 @@
+package com.automatedparkinglot.enums;
+
+/**
+ * An enumeration to list the stages of the transport of a car between the entrance of the lot and
+ * its parking space: a car being parked is carried up by a lift and then stored by a shuttle of its
+ * floor, and a car being pulled out is retrieved by a shuttle and then carried down by a lift. A
+ * task is QUEUED until its request is committed, or until an earlier transport of the same car is
+ * completed.
+ */
+public enum TransportStage {
+
+  QUEUED,
+  WAITING_FOR_LIFT,
+  ON_LIFT,
+  WAITING_FOR_SHUTTLE,
+  ON_SHUTTLE,
+  COMPLETED
+}
@@ -1,22 +1,47 @@
 package com.automatedparkinglot.exception;
 
 import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import java.util.EnumMap;
+import java.util.Map;
 import lombok.Getter;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 /**
  * A custom exception to be thrown if there is a problematic case
+ * <p>
+ * Such cases are expected business rejections (e.g. the lot is full), not failures, so the
+ * exception captures no stack trace and one preallocated instance per exception code is thrown.
  */
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
 @Getter
 public class AutomatedParkingException extends RuntimeException {
 
+  private static final Map<AutomatedParkingExceptionCode, AutomatedParkingException> exceptionsByCode =
+      new EnumMap<>(AutomatedParkingExceptionCode.class);
+
+  static {
+    for (var exceptionCode : AutomatedParkingExceptionCode.values()) {
+      exceptionsByCode.put(exceptionCode, new AutomatedParkingException(exceptionCode));
+    }
+  }
+
   private final AutomatedParkingExceptionCode exceptionCode;
 
   public AutomatedParkingException(AutomatedParkingExceptionCode exceptionCode) {
-    super(exceptionCode.getExplanatoryMessage());
+    // Neither a stack trace nor suppressed exceptions are recorded, so an instance can be shared
+    super(exceptionCode.getExplanatoryMessage(), null, false, false);
     this.exceptionCode = exceptionCode;
   }
 
+  /**
+   * Gets the preallocated exception of an exception code
+   *
+   * @param exceptionCode The exception code
+   * @return The exception to be thrown
+   */
+  public static AutomatedParkingException of(AutomatedParkingExceptionCode exceptionCode) {
+    return exceptionsByCode.get(exceptionCode);
+  }
+
 }
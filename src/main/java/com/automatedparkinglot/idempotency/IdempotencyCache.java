@@ -0,0 +1,222 @@
+package com.automatedparkinglot.idempotency;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * The outcomes of the requests sent with an Idempotency-Key header, e.g. by gate hardware retrying
+ * a timed-out park or pull-out, so a retry gets the original outcome without the request being
+ * handled again.
+ * <p>
+ * The first request with a key is handled, and its response or business rejection is kept for the
+ * time to live. A retry with the same key gets it from the map without any lock or database access;
+ * a retry arriving while the first request is still being handled waits for its outcome, for a
+ * limited time. A request failing unexpectedly, e.g. on a database error, is not kept, so its retry
+ * is handled again. A key reused for a different request is rejected. Requests are compared with a
+ * copy of the first one whose amounts are normalized, so 1500.0 and 1500.00 are the same weight.
+ * <p>
+ * All outcomes live equally long, so they expire in the order they were added: the oldest ones are
+ * evicted when a new one is added, as well as beyond the capacity. An outcome whose request is
+ * still being handled is never evicted, since a retry would otherwise be handled a second time.
+ */
+@Component
+public class IdempotencyCache {
+
+  private final ParkingMetrics parkingMetrics;
+  private final int capacity;
+  private final long timeToLiveInNanos;
+  private final long replayTimeoutInMillis;
+  private final Map<String, Outcome> outcomesByKey = new ConcurrentHashMap<>();
+  private final Deque<Outcome> outcomesInInsertionOrder = new ArrayDeque<>();
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param parkingMetrics     A {@link ParkingMetrics} instance
+   * @param capacity           The maximum number of outcomes kept
+   * @param timeToLiveInMillis    How long an outcome is kept for retries
+   * @param replayTimeoutInMillis How long a retry waits for the first request to be handled
+   */
+  @Autowired
+  public IdempotencyCache(ParkingMetrics parkingMetrics,
+      @Value("${automated-parking-lot.idempotency.capacity:100000}") int capacity,
+      @Value("${automated-parking-lot.idempotency.ttl-ms:600000}") long timeToLiveInMillis,
+      @Value("${automated-parking-lot.idempotency.replay-timeout-ms:10000}")
+          long replayTimeoutInMillis) {
+    this.parkingMetrics = parkingMetrics;
+    this.capacity = capacity;
+    this.timeToLiveInNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveInMillis);
+    this.replayTimeoutInMillis = replayTimeoutInMillis;
+  }
+
+  /**
+   * Handles a request once per idempotency key
+   *
+   * @param idempotencyKey The key sent by the client, or null to handle the request anyway
+   * @param operation      The operation of the request
+   * @param request        The parameters of the request, to detect a key reused for another one
+   * @param handler        The handling of the request
+   * @param <T>            The type of the response body
+   * @return The response of the request, or of the first request with the same key
+   */
+  @SuppressWarnings("unchecked")
+  public <T> ResponseEntity<T> execute(String idempotencyKey, ParkingOperation operation,
+      Object request, Supplier<ResponseEntity<T>> handler) {
+    if (Objects.isNull(idempotencyKey)) {
+      return handler.get();
+    }
+    var outcome = new Outcome(idempotencyKey, operation, normalize(request),
+        System.nanoTime() + timeToLiveInNanos);
+    var existingOutcome = outcomesByKey.putIfAbsent(idempotencyKey, outcome);
+    while (Objects.nonNull(existingOutcome) && existingOutcome.hasExpired(System.nanoTime())) {
+      outcomesByKey.remove(idempotencyKey, existingOutcome);
+      existingOutcome = outcomesByKey.putIfAbsent(idempotencyKey, outcome);
+    }
+    if (Objects.nonNull(existingOutcome)) {
+      if (existingOutcome.operation != operation
+          || !Objects.equals(existingOutcome.request, outcome.request)) {
+        throw AutomatedParkingException.of(AutomatedParkingExceptionCode.IDEMPOTENCY_KEY_REUSED);
+      }
+      parkingMetrics.countIdempotentReplay();
+      return (ResponseEntity<T>) existingOutcome.replay(replayTimeoutInMillis);
+    }
+    this.add(outcome);
+    try {
+      var response = handler.get();
+      outcome.result.complete(response);
+      return response;
+    } catch (AutomatedParkingException automatedParkingException) {
+      outcome.result.complete(automatedParkingException);
+      throw automatedParkingException;
+    } catch (RuntimeException | Error failure) {
+      outcomesByKey.remove(idempotencyKey, outcome);
+      outcome.result.completeExceptionally(failure);
+      throw failure;
+    }
+  }
+
+  private void add(Outcome outcome) {
+    synchronized (outcomesInInsertionOrder) {
+      outcomesInInsertionOrder.add(outcome);
+      var now = System.nanoTime();
+      // The oldest outcomes still being handled, set aside and put back in their order
+      var pendingOutcomes = new ArrayDeque<Outcome>();
+      Outcome oldestOutcome;
+      while (Objects.nonNull(oldestOutcome = outcomesInInsertionOrder.peek())
+          && (outcomesInInsertionOrder.size() + pendingOutcomes.size() > capacity
+          || oldestOutcome.hasExpired(now))) {
+        outcomesInInsertionOrder.poll();
+        if (oldestOutcome.result.isDone()) {
+          outcomesByKey.remove(oldestOutcome.idempotencyKey, oldestOutcome);
+        } else {
+          pendingOutcomes.push(oldestOutcome);
+        }
+      }
+      pendingOutcomes.forEach(outcomesInInsertionOrder::addFirst);
+    }
+  }
+
+  /**
+   * Copies the parameters of a request with its amounts stripped of trailing zeros, so requests
+   * differing only in the scale of their amounts are equal
+   *
+   * @param request The parameters of the request
+   * @return The normalized copy
+   */
+  private static Object normalize(Object request) {
+    if (request instanceof BigDecimal) {
+      return ((BigDecimal) request).stripTrailingZeros();
+    }
+    if (request instanceof ParkingRequest) {
+      var parkingRequest = (ParkingRequest) request;
+      var normalizedParkingRequest = new ParkingRequest();
+      normalizedParkingRequest.setCarId(parkingRequest.getCarId());
+      normalizedParkingRequest.setCarWeight(
+          (BigDecimal) normalize(parkingRequest.getCarWeight()));
+      normalizedParkingRequest.setCarHeight(
+          (BigDecimal) normalize(parkingRequest.getCarHeight()));
+      return normalizedParkingRequest;
+    }
+    if (request instanceof List) {
+      return ((List<?>) request).stream()
+          .map(IdempotencyCache::normalize)
+          .collect(Collectors.toList());
+    }
+    return request;
+  }
+
+  /**
+   * The outcome of the first request with a key: a response, or a business rejection to be thrown
+   * again
+   */
+  private static class Outcome {
+
+    private final String idempotencyKey;
+    private final ParkingOperation operation;
+    private final Object request;
+    private final long expiresAtInNanos;
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    private Outcome(String idempotencyKey, ParkingOperation operation, Object request,
+        long expiresAtInNanos) {
+      this.idempotencyKey = idempotencyKey;
+      this.operation = operation;
+      this.request = request;
+      this.expiresAtInNanos = expiresAtInNanos;
+    }
+
+    /**
+     * Checks whether the outcome has expired. An outcome still being handled never expires.
+     */
+    private boolean hasExpired(long nowInNanos) {
+      return result.isDone() && nowInNanos - expiresAtInNanos >= 0;
+    }
+
+    private ResponseEntity<?> replay(long timeoutInMillis) {
+      Object value;
+      try {
+        value = result.get(timeoutInMillis, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException timeoutException) {
+        throw AutomatedParkingException.of(
+            AutomatedParkingExceptionCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        throw AutomatedParkingException.of(
+            AutomatedParkingExceptionCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+      } catch (ExecutionException executionException) {
+        // The first request failed unexpectedly while this one was waiting for it
+        if (executionException.getCause() instanceof Error) {
+          throw (Error) executionException.getCause();
+        }
+        throw executionException.getCause() instanceof RuntimeException
+            ? (RuntimeException) executionException.getCause()
+            : new IllegalStateException(executionException.getCause());
+      }
+      if (value instanceof AutomatedParkingException) {
+        throw (AutomatedParkingException) value;
+      }
+      return (ResponseEntity<?>) value;
+    }
+  }
+
+}
@@ -0,0 +1,463 @@
+package com.automatedparkinglot.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The files of the parking journal in a directory: append-only, memory-mapped segments of journal
+ * entries, and snapshots of all in-progress parkings.
+ * <p>
+ * A segment (journal-&lt;first sequence&gt;.log) is preallocated and filled with entries, each
+ * made of the length and the CRC32 of its payload, followed by the payload: the sequence number,
+ * the type (parked or pulled out), and the data of the parking. A zero length or a wrong checksum
+ * marks the end of the written entries, so an entry torn by a crash is ignored. When a segment is
+ * full, a new one is started.
+ * <p>
+ * Appends only write to the mapped memory. {@link #flush()} forces the written entries to disk, so
+ * one fsync covers all entries appended since the previous one.
+ * <p>
+ * A snapshot (snapshot-&lt;sequence&gt;.snap) holds all in-progress parkings after the entry with
+ * its sequence number, and is written to a temporary file first, so it is either complete or
+ * missing. After a snapshot is written, older snapshots and segments are deleted.
+ * <p>
+ * The store also keeps the in-progress parkings in memory, so snapshots are consistent with the
+ * journal without reading the database.
+ */
+public class JournalStore {
+
+  private static final int SNAPSHOT_MAGIC = 0x50534e50;
+  private static final byte PARKED = 1;
+  private static final byte PULLED_OUT = 2;
+  private static final int ENTRY_HEADER_SIZE = 8; // The length and the CRC32 of the payload
+  private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("journal-(\\d{20})\\.log");
+  private static final Pattern SNAPSHOT_FILE_NAME = Pattern.compile("snapshot-(\\d{20})\\.snap");
+
+  private final Path directory;
+  private final int segmentSize;
+  private final Map<Long, JournaledParking> parkingsByRecordId = new HashMap<>();
+  // Not a monitor, so virtual threads waiting for a flush do not pin their carriers
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition flushed = lock.newCondition();
+  private MappedByteBuffer segment;
+  private long lastSequence;
+  private long flushedSequence;
+  private long snapshotSequence;
+  private long replayedEntries;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param directory   The directory of the journal files, created if it does not exist
+   * @param segmentSize The size of a segment in bytes
+   */
+  public JournalStore(Path directory, int segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Recovers the in-progress parkings by loading the latest snapshot and replaying the journal
+   * entries after it, and starts a new segment for the entries to come
+   *
+   * @return The recovered in-progress parkings
+   * @throws IOException If the journal files cannot be read or the new segment cannot be created
+   */
+  public Collection<JournaledParking> open() throws IOException {
+    lock.lock();
+    try {
+      Files.createDirectories(directory);
+      parkingsByRecordId.clear();
+      snapshotSequence = this.loadLatestSnapshot();
+      lastSequence = snapshotSequence;
+      replayedEntries = 0;
+      for (var segmentPath : this.listFiles(SEGMENT_FILE_NAME).values()) {
+        this.replay(segmentPath);
+      }
+      flushedSequence = lastSequence;
+      this.startSegment();
+      return new ArrayList<>(parkingsByRecordId.values());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends that a car has been parked
+   *
+   * @param parking The new in-progress parking
+   * @return The sequence number of the entry
+   */
+  public long appendParked(JournaledParking parking) {
+    lock.lock();
+    try {
+      var body = encodeParking(parking);
+      var sequence = this.append(PARKED, body);
+      parkingsByRecordId.put(parking.getParkingRecordId(), parking);
+      return sequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends that a car has been pulled out
+   *
+   * @param parkingRecordId The ID of the completed parking record
+   * @return The sequence number of the entry
+   */
+  public long appendPulledOut(Long parkingRecordId) {
+    lock.lock();
+    try {
+      var sequence = this.append(PULLED_OUT,
+          ByteBuffer.allocate(Long.BYTES).putLong(parkingRecordId).array());
+      parkingsByRecordId.remove(parkingRecordId);
+      return sequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets an in-progress parking
+   *
+   * @param parkingRecordId The ID of the parking record
+   * @return The parking, or null if it is not in progress
+   */
+  public JournaledParking getParking(Long parkingRecordId) {
+    lock.lock();
+    try {
+      return parkingsByRecordId.get(parkingRecordId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forces all entries appended so far to disk
+   */
+  public void flush() {
+    MappedByteBuffer segmentToFlush;
+    long sequenceToFlush;
+    lock.lock();
+    try {
+      if (flushedSequence == lastSequence) {
+        return;
+      }
+      segmentToFlush = segment;
+      sequenceToFlush = lastSequence;
+    } finally {
+      lock.unlock();
+    }
+    // Entries of the previous segments have already been forced when the segment was full
+    segmentToFlush.force();
+    lock.lock();
+    try {
+      flushedSequence = Math.max(flushedSequence, sequenceToFlush);
+      flushed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until an entry has been forced to disk by {@link #flush()}
+   *
+   * @param sequence The sequence number of the entry
+   * @throws InterruptedException If the thread is interrupted while waiting
+   */
+  public void awaitFlushed(long sequence) throws InterruptedException {
+    lock.lock();
+    try {
+      while (flushedSequence < sequence) {
+        flushed.await();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes a snapshot of all in-progress parkings, and deletes the snapshots and segments it makes
+   * obsolete
+   *
+   * @throws IOException If the snapshot cannot be written
+   */
+  public void writeSnapshot() throws IOException {
+    List<JournaledParking> parkings;
+    long sequence;
+    lock.lock();
+    try {
+      parkings = new ArrayList<>(parkingsByRecordId.values());
+      sequence = lastSequence;
+    } finally {
+      lock.unlock();
+    }
+    var snapshotPath = directory.resolve(String.format("snapshot-%020d.snap", sequence));
+    var temporaryPath = directory.resolve(snapshotPath.getFileName() + ".tmp");
+    var crc = new CRC32();
+    try (var fileChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      var output = new DataOutputStream(new BufferedOutputStream(
+          new CheckedOutputStream(Channels.newOutputStream(fileChannel), crc),
+          1 << 16));
+      output.writeInt(SNAPSHOT_MAGIC);
+      output.writeLong(sequence);
+      output.writeInt(parkings.size());
+      for (var parking : parkings) {
+        var body = encodeParking(parking);
+        output.writeShort(body.length);
+        output.write(body);
+      }
+      output.flush();
+      // The checksum of everything above
+      fileChannel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, crc.getValue()));
+      fileChannel.force(true);
+    }
+    Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE);
+    this.deleteFilesBefore(sequence);
+  }
+
+  /**
+   * Gets the sequence number of the snapshot loaded by {@link #open()}
+   *
+   * @return The sequence number, or 0 if there was no snapshot
+   */
+  public long getSnapshotSequence() {
+    lock.lock();
+    try {
+      return snapshotSequence;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of journal entries replayed by {@link #open()}
+   *
+   * @return The number of entries after the snapshot
+   */
+  public long getReplayedEntries() {
+    lock.lock();
+    try {
+      return replayedEntries;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private long append(byte type, byte[] body) {
+    var payloadLength = Long.BYTES + 1 + body.length;
+    if (segment.remaining() < ENTRY_HEADER_SIZE + payloadLength) {
+      segment.force();
+      flushedSequence = lastSequence;
+      flushed.signalAll();
+      try {
+        this.startSegment();
+      } catch (IOException ioException) {
+        throw new IllegalStateException("A new journal segment could not be created.",
+            ioException);
+      }
+    }
+    var sequence = lastSequence + 1;
+    var payload = ByteBuffer.allocate(payloadLength).putLong(sequence).put(type).put(body);
+    var crc = new CRC32();
+    crc.update(payload.array());
+    segment.putInt(payloadLength).putInt((int) crc.getValue()).put(payload.array());
+    lastSequence = sequence;
+    return sequence;
+  }
+
+  private void startSegment() throws IOException {
+    var segmentPath = directory.resolve(String.format("journal-%020d.log", lastSequence + 1));
+    // A segment with this name has no valid entries, otherwise the last sequence would be higher
+    try (var fileChannel = FileChannel.open(segmentPath, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      segment = fileChannel.map(MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  private long loadLatestSnapshot() throws IOException {
+    var snapshotPaths = new ArrayList<>(this.listFiles(SNAPSHOT_FILE_NAME).values());
+    for (int i = snapshotPaths.size() - 1; i >= 0; i--) {
+      var sequence = this.loadSnapshot(snapshotPaths.get(i));
+      if (sequence >= 0) {
+        return sequence;
+      }
+      parkingsByRecordId.clear(); // The snapshot is corrupt, so try the previous one
+    }
+    return 0;
+  }
+
+  /**
+   * Loads a snapshot into the in-progress parkings
+   *
+   * @return The sequence number of the snapshot, or -1 if the snapshot is corrupt
+   */
+  private long loadSnapshot(Path snapshotPath) throws IOException {
+    ByteBuffer snapshot;
+    try (var fileChannel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+      snapshot = fileChannel.map(MapMode.READ_ONLY, 0, fileChannel.size());
+    }
+    if (snapshot.remaining() < Integer.BYTES + Long.BYTES * 2) {
+      return -1;
+    }
+    var checksumPosition = snapshot.limit() - Long.BYTES;
+    var crc = new CRC32();
+    crc.update(snapshot.duplicate().limit(checksumPosition));
+    if (crc.getValue() != snapshot.getLong(checksumPosition)
+        || snapshot.getInt() != SNAPSHOT_MAGIC) {
+      return -1;
+    }
+    var sequence = snapshot.getLong();
+    var count = snapshot.getInt();
+    for (int i = 0; i < count; i++) {
+      var bodyLength = Short.toUnsignedInt(snapshot.getShort());
+      var nextPosition = snapshot.position() + bodyLength;
+      var parking = decodeParking(snapshot);
+      parkingsByRecordId.put(parking.getParkingRecordId(), parking);
+      snapshot.position(nextPosition);
+    }
+    return sequence;
+  }
+
+  private void replay(Path segmentPath) throws IOException {
+    ByteBuffer entries;
+    try (var fileChannel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+      entries = fileChannel.map(MapMode.READ_ONLY, 0, fileChannel.size());
+    }
+    var crc = new CRC32();
+    while (entries.remaining() >= ENTRY_HEADER_SIZE) {
+      var payloadLength = entries.getInt();
+      var storedCrc = entries.getInt();
+      if (payloadLength <= Long.BYTES || payloadLength > entries.remaining()) {
+        return; // The end of the written entries
+      }
+      var payload = new byte[payloadLength];
+      entries.get(payload);
+      crc.reset();
+      crc.update(payload);
+      if ((int) crc.getValue() != storedCrc) {
+        return; // An entry torn by a crash
+      }
+      var buffer = ByteBuffer.wrap(payload);
+      var sequence = buffer.getLong();
+      var type = buffer.get();
+      if (sequence <= lastSequence) {
+        continue; // Already in the snapshot
+      }
+      if (type == PARKED) {
+        var parking = decodeParking(buffer);
+        parkingsByRecordId.put(parking.getParkingRecordId(), parking);
+      } else if (type == PULLED_OUT) {
+        parkingsByRecordId.remove(buffer.getLong());
+      }
+      lastSequence = sequence;
+      replayedEntries++;
+    }
+  }
+
+  private void deleteFilesBefore(long sequence) throws IOException {
+    for (var snapshot : this.listFiles(SNAPSHOT_FILE_NAME).headMap(sequence).values()) {
+      Files.deleteIfExists(snapshot);
+    }
+    // A segment is obsolete if the next one starts at or before the entry after the snapshot
+    var segments = new ArrayList<>(this.listFiles(SEGMENT_FILE_NAME).entrySet());
+    for (int i = 0; i + 1 < segments.size(); i++) {
+      if (segments.get(i + 1).getKey() <= sequence + 1) {
+        Files.deleteIfExists(segments.get(i).getValue());
+      }
+    }
+  }
+
+  /**
+   * Lists the journal files of a kind
+   *
+   * @return The files by the sequence number in their names, in ascending order
+   */
+  private TreeMap<Long, Path> listFiles(Pattern fileNamePattern) throws IOException {
+    try (var paths = Files.list(directory)) {
+      return paths.filter(path -> fileNamePattern.matcher(path.getFileName().toString()).matches())
+          .collect(Collectors.toMap(path -> {
+            var matcher = fileNamePattern.matcher(path.getFileName().toString());
+            matcher.matches();
+            return Long.parseLong(matcher.group(1));
+          }, path -> path, (first, second) -> first, TreeMap::new));
+    }
+  }
+
+  private static byte[] encodeParking(JournaledParking parking) {
+    var carId = parking.getCarId().getBytes(StandardCharsets.UTF_8);
+    var carWeight = parking.getCarWeight().unscaledValue().toByteArray();
+    var carHeight = parking.getCarHeight().unscaledValue().toByteArray();
+    var allowedWeight = parking.getAllowedWeightOnFloorBeforeParking().unscaledValue()
+        .toByteArray();
+    var buffer = ByteBuffer.allocate(Long.BYTES * 3 + Integer.BYTES * 5 + 3 + Short.BYTES
+        + carWeight.length + carHeight.length + allowedWeight.length + carId.length);
+    buffer.putLong(parking.getParkingRecordId())
+        .putLong(parking.getParkingSpaceId())
+        .putInt(parking.getFloor());
+    putDecimal(buffer, parking.getCarWeight().scale(), carWeight);
+    putDecimal(buffer, parking.getCarHeight().scale(), carHeight);
+    putDecimal(buffer, parking.getAllowedWeightOnFloorBeforeParking().scale(), allowedWeight);
+    var parkingTimestamp = parking.getParkingTimestamp();
+    buffer.putLong(parkingTimestamp.toEpochSecond(ZoneOffset.UTC))
+        .putInt(parkingTimestamp.getNano())
+        .putShort((short) carId.length)
+        .put(carId);
+    return buffer.array();
+  }
+
+  private static JournaledParking decodeParking(ByteBuffer buffer) {
+    var parkingRecordId = buffer.getLong();
+    var parkingSpaceId = buffer.getLong();
+    var floor = buffer.getInt();
+    var carWeight = getDecimal(buffer);
+    var carHeight = getDecimal(buffer);
+    var allowedWeight = getDecimal(buffer);
+    var parkingTimestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(),
+        ZoneOffset.UTC);
+    var carId = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(carId);
+    return new JournaledParking(parkingRecordId, new String(carId, StandardCharsets.UTF_8),
+        carWeight, carHeight, allowedWeight, parkingTimestamp, floor, parkingSpaceId);
+  }
+
+  private static void putDecimal(ByteBuffer buffer, int scale, byte[] unscaledValue) {
+    buffer.putInt(scale).put((byte) unscaledValue.length).put(unscaledValue);
+  }
+
+  private static BigDecimal getDecimal(ByteBuffer buffer) {
+    var scale = buffer.getInt();
+    var unscaledValue = new byte[buffer.get()];
+    buffer.get(unscaledValue);
+    return new BigDecimal(new BigInteger(unscaledValue), scale);
+  }
+
+}
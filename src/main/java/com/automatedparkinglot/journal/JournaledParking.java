@@ -0,0 +1,39 @@
+package com.automatedparkinglot.journal;
+
+import com.automatedparkinglot.entities.ParkingRecord;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An in-progress parking as kept by the parking journal: everything needed to restore the parking
+ * record and the occupied parking space of a parked car
+ */
+@Getter
+@AllArgsConstructor
+public class JournaledParking {
+
+  private final Long parkingRecordId;
+  private final String carId;
+  private final BigDecimal carWeight;
+  private final BigDecimal carHeight;
+  private final BigDecimal allowedWeightOnFloorBeforeParking;
+  private final LocalDateTime parkingTimestamp;
+  private final Integer floor;
+  private final Long parkingSpaceId;
+
+  /**
+   * Creates the journaled parking of a saved parking record
+   *
+   * @param parkingRecord The in-progress parking record
+   * @return The journaled parking
+   */
+  public static JournaledParking of(ParkingRecord parkingRecord) {
+    return new JournaledParking(parkingRecord.getId(), parkingRecord.getCarId(),
+        parkingRecord.getCarWeight(), parkingRecord.getCarHeight(),
+        parkingRecord.getAllowedWeightOnFloorBeforeParking(), parkingRecord.getParkingTimestamp(),
+        parkingRecord.getFloor(), parkingRecord.getParkingSpaceId());
+  }
+
+}
@@ -0,0 +1,252 @@
+package com.automatedparkinglot.journal;
+
+import com.automatedparkinglot.entities.ParkingRecord;
+import com.automatedparkinglot.enums.ParkingStatus;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A write-ahead journal of parked and pulled-out cars, which makes the parked cars survive a
+ * restart of the application although the database is in memory.
+ * <p>
+ * Parkings and pull-outs are appended to a {@link JournalStore} right before their transaction is
+ * committed, while the parking space is still locked in the database, so the entries of the same
+ * car are in the order of their commits. Once committed, the request waits until a flusher thread
+ * has forced its entry to disk; entries appended meanwhile are forced by the same fsync. If the
+ * commit fails after all, a compensating entry is appended.
+ * <p>
+ * A snapshot of all in-progress parkings is taken periodically. At startup, before the in-memory
+ * lot state is loaded, the latest snapshot is loaded, the journal entries after it are replayed,
+ * and the in-progress parking records and occupied parking spaces are restored in the database by
+ * batched JDBC statements. Weights allowed on floors are recalculated from the parked cars.
+ * <p>
+ * Enabled by automated-parking-lot.journal.enabled=true.
+ */
+@Component
+public class ParkingJournal {
+
+  private final Logger logger = LoggerFactory.getLogger(ParkingJournal.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean enabled;
+  private final JournalStore journalStore;
+  private final long flushIntervalInMillis;
+  private final Thread flusherThread;
+  private volatile boolean running;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param jdbcTemplate          A {@link JdbcTemplate} instance
+   * @param enabled               Whether parkings and pull-outs are journaled
+   * @param directory             The directory of the journal files
+   * @param segmentSize           The size of a journal segment in bytes
+   * @param flushIntervalInMillis The maximum time between two fsyncs of the journal
+   */
+  @Autowired
+  public ParkingJournal(JdbcTemplate jdbcTemplate,
+      @Value("${automated-parking-lot.journal.enabled:false}") boolean enabled,
+      @Value("${automated-parking-lot.journal.directory:journal}") Path directory,
+      @Value("${automated-parking-lot.journal.segment-size:67108864}") int segmentSize,
+      @Value("${automated-parking-lot.journal.flush-interval-ms:2}") long flushIntervalInMillis) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.enabled = enabled;
+    this.journalStore = new JournalStore(directory, segmentSize);
+    this.flushIntervalInMillis = flushIntervalInMillis;
+    this.flusherThread = new Thread(this::flushEntries, "parking-journal-flusher");
+    this.flusherThread.setDaemon(true);
+  }
+
+  /**
+   * Recovers the parked cars from the journal into the database, after {@link
+   * com.automatedparkinglot.topology.LotTopologyLoader} has loaded the lot and before {@link
+   * com.automatedparkinglot.lotstate.LotStateLoader} loads the in-memory lot state from it
+   *
+   * @throws IOException If the journal cannot be read
+   */
+  public void recover() throws IOException {
+    if (!enabled) {
+      return;
+    }
+    var start = System.nanoTime();
+    var parkings = journalStore.open();
+    this.restore(parkings);
+    logger.info("Recovered {} parked cars from the journal in {} ms "
+            + "(snapshot at entry {}, {} entries replayed).", parkings.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+        journalStore.getSnapshotSequence(), journalStore.getReplayedEntries());
+    running = true;
+    flusherThread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (!running) {
+      return;
+    }
+    running = false;
+    flusherThread.join(TimeUnit.SECONDS.toMillis(5));
+    journalStore.flush();
+  }
+
+  /**
+   * Journals a parked car when the current transaction is committed
+   *
+   * @param parkingRecord The saved in-progress parking record of the car
+   */
+  public void journalParking(ParkingRecord parkingRecord) {
+    if (!enabled) {
+      return;
+    }
+    var parking = JournaledParking.of(parkingRecord);
+    this.journal(() -> journalStore.appendParked(parking),
+        () -> journalStore.appendPulledOut(parking.getParkingRecordId()));
+  }
+
+  /**
+   * Journals a pulled-out car when the current transaction is committed
+   *
+   * @param parkingRecordId The ID of the completed parking record of the car
+   */
+  public void journalPullOut(Long parkingRecordId) {
+    if (!enabled) {
+      return;
+    }
+    // The parking is kept to undo the pull-out if the commit fails
+    var completedParking = new AtomicReference<JournaledParking>();
+    this.journal(() -> {
+      completedParking.set(journalStore.getParking(parkingRecordId));
+      return journalStore.appendPulledOut(parkingRecordId);
+    }, () -> Objects.isNull(completedParking.get()) ? 0
+        : journalStore.appendParked(completedParking.get()));
+  }
+
+  /**
+   * Takes a snapshot of the in-progress parkings, so that older journal entries can be deleted
+   */
+  @Scheduled(initialDelayString = "${automated-parking-lot.journal.snapshot-interval-ms:60000}",
+      fixedDelayString = "${automated-parking-lot.journal.snapshot-interval-ms:60000}")
+  public void takeSnapshot() {
+    if (!running) {
+      return;
+    }
+    try {
+      journalStore.writeSnapshot();
+    } catch (IOException ioException) {
+      logger.error("A snapshot of the journal could not be written.", ioException);
+    }
+  }
+
+  private void journal(LongSupplier append, LongSupplier compensate) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      this.awaitFlushed(append.getAsLong());
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      private long sequence;
+
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        sequence = append.getAsLong();
+      }
+
+      @Override
+      public void afterCommit() {
+        ParkingJournal.this.awaitFlushed(sequence);
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_COMMITTED && sequence > 0) {
+          compensate.getAsLong();
+        }
+      }
+    });
+  }
+
+  private void awaitFlushed(long sequence) {
+    try {
+      journalStore.awaitFlushed(sequence);
+    } catch (InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void flushEntries() {
+    while (running) {
+      try {
+        journalStore.flush();
+        TimeUnit.MILLISECONDS.sleep(flushIntervalInMillis);
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (UncheckedIOException | IllegalStateException exception) {
+        logger.error("The journal could not be flushed.", exception);
+      }
+    }
+  }
+
+  /**
+   * Restores the recovered in-progress parkings in the database
+   *
+   * @param parkings The recovered parkings
+   */
+  private void restore(Collection<JournaledParking> parkings) {
+    var ongoingParkingRecords = jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM parking_records WHERE status = ?", Long.class,
+        ParkingStatus.PARKING_IN_PROGRESS.ordinal());
+    if (parkings.isEmpty() || Objects.isNull(ongoingParkingRecords)
+        || ongoingParkingRecords > 0) {
+      if (!parkings.isEmpty()) {
+        logger.warn("The database already has parked cars, so the journal is not restored.");
+      }
+      return;
+    }
+    var parkingRecordArguments = new ArrayList<Object[]>(parkings.size());
+    var parkingSpaceArguments = new ArrayList<Object[]>(parkings.size());
+    for (var parking : parkings) {
+      parkingRecordArguments.add(new Object[]{parking.getParkingRecordId(),
+          parking.getAllowedWeightOnFloorBeforeParking(), parking.getCarHeight(),
+          parking.getCarId(), parking.getCarWeight(), parking.getFloor(),
+          parking.getParkingSpaceId(), Timestamp.valueOf(parking.getParkingTimestamp()),
+          ParkingStatus.PARKING_IN_PROGRESS.ordinal()});
+      parkingSpaceArguments.add(new Object[]{parking.getCarId(), parking.getParkingSpaceId()});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO parking_records (id, "
+        + "allowed_weight_on_floor_before_parking, billed, car_height, car_id, car_weight, floor, "
+        + "parking_space_id, parking_timestamp, status) VALUES (?, ?, FALSE, ?, ?, ?, ?, ?, ?, ?)",
+        parkingRecordArguments);
+    jdbcTemplate.batchUpdate(
+        "UPDATE parking_spaces SET occupying_car_id = ? WHERE id = ? AND occupying_car_id IS NULL",
+        parkingSpaceArguments);
+    jdbcTemplate.update("UPDATE floors f SET allowed_weight = weight_capacity - "
+        + "(SELECT COALESCE(SUM(pr.car_weight), 0) FROM parking_records pr "
+        + "WHERE pr.floor = f.number AND pr.status = ?)",
+        ParkingStatus.PARKING_IN_PROGRESS.ordinal());
+    // New parking records get IDs after the restored and the archived ones
+    var nextParkingRecordId = jdbcTemplate.queryForObject("SELECT GREATEST("
+        + "(SELECT COALESCE(MAX(id), 0) FROM parking_records), "
+        + "(SELECT COALESCE(MAX(id), 0) FROM parking_records_history)) + 1", Long.class);
+    jdbcTemplate.execute(
+        "ALTER TABLE parking_records ALTER COLUMN id RESTART WITH " + nextParkingRecordId);
+  }
+
+}
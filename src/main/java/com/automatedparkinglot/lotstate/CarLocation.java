@@ -0,0 +1,21 @@
+package com.automatedparkinglot.lotstate;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Where a parked car is, as kept by the {@link CarLocationCache}: the ordinal number of the floor,
+ * the ID of the parking space, the ID of the in-progress parking record, and the weight of the car
+ * (to give it back to the floor when the car is pulled out)
+ */
+@Getter
+@AllArgsConstructor
+public class CarLocation {
+
+  private final Integer floor;
+  private final Long parkingSpaceId;
+  private final Long parkingRecordId;
+  private final BigDecimal carWeight;
+
+}
@@ -0,0 +1,127 @@
+package com.automatedparkinglot.lotstate;
+
+import com.automatedparkinglot.repositories.ParkingRecordRepository;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A bounded in-process map from the ID of a parked car to its {@link CarLocation}, so that checking
+ * whether a car is already parked and pulling a car out take a single hash lookup instead of
+ * queries by car ID. It is rebuilt from the in-progress parking records at startup, filled when a
+ * car is parked, and emptied when a car is pulled out.
+ * <p>
+ * Cars are not evicted to make room for others: once the cache is full, newly parked cars are just
+ * not cached, and the cache stops being complete. While it is complete, a car missing from the
+ * cache is not parked; otherwise, a miss has to be checked against the database, and a car being
+ * parked is held until its request completes, since the cache no longer stops the same car from
+ * being parked by two requests at once. Like the rest of the in-memory lot state, the cache does
+ * not see cars parked or pulled out behind the application's back (e.g. via the H2 console) until
+ * it is rebuilt; a cached car which has left its parking space that way is dropped on its next
+ * pull-out attempt.
+ */
+@Component
+public class CarLocationCache {
+
+  private final ParkingRecordRepository parkingRecordRepository;
+  private final int capacity;
+  private final Map<String, CarLocation> locationsByCarId = new ConcurrentHashMap<>();
+  private final Set<String> carsBeingParked = ConcurrentHashMap.newKeySet();
+  private volatile boolean complete = true;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param parkingRecordRepository A {@link ParkingRecordRepository} instance
+   * @param capacity                The maximum number of cached cars
+   */
+  @Autowired
+  public CarLocationCache(ParkingRecordRepository parkingRecordRepository,
+      @Value("${automated-parking-lot.car-location-cache.capacity:100000}") int capacity) {
+    this.parkingRecordRepository = parkingRecordRepository;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Rebuilds the cache from the in-progress parking records
+   */
+  public synchronized void rebuild() {
+    locationsByCarId.clear();
+    complete = true;
+    for (var parkingRecord : parkingRecordRepository.findOngoingParkingRecordSummaries()) {
+      this.putIfAbsent(parkingRecord.getCarId(),
+          new CarLocation(parkingRecord.getFloor(), parkingRecord.getParkingSpaceId(),
+              parkingRecord.getId(), parkingRecord.getCarWeight()));
+    }
+  }
+
+  /**
+   * Gets the location of a parked car
+   *
+   * @param carId The ID of the car
+   * @return The location of the car, or null if the car is not cached
+   */
+  public CarLocation get(String carId) {
+    return locationsByCarId.get(carId);
+  }
+
+  /**
+   * Tells whether every parked car is cached, i.e. whether a car missing from the cache is
+   * certainly not parked
+   *
+   * @return True if the cache holds all parked cars
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Caches the location of a parked car unless the car is already cached
+   *
+   * @param carId       The ID of the car
+   * @param carLocation The location of the car
+   * @return False if the car is already cached, otherwise true (even if the cache is full and the
+   * car has not been cached)
+   */
+  public boolean putIfAbsent(String carId, CarLocation carLocation) {
+    if (locationsByCarId.size() >= capacity) {
+      complete = false;
+      return !locationsByCarId.containsKey(carId);
+    }
+    return Objects.isNull(locationsByCarId.putIfAbsent(carId, carLocation));
+  }
+
+  /**
+   * Holds a car as being parked by a request, while the cache is incomplete
+   *
+   * @param carId The ID of the car
+   * @return False if the car is already held by another request
+   */
+  public boolean holdCarBeingParked(String carId) {
+    return carsBeingParked.add(carId);
+  }
+
+  /**
+   * Releases a car held by {@link #holdCarBeingParked(String)} once its request has completed
+   *
+   * @param carId The ID of the car
+   */
+  public void releaseCarBeingParked(String carId) {
+    carsBeingParked.remove(carId);
+  }
+
+  /**
+   * Removes the location of a car unless the car has been cached at another location meanwhile
+   *
+   * @param carId       The ID of the car
+   * @param carLocation The location of the car to be removed
+   */
+  public void remove(String carId, CarLocation carLocation) {
+    locationsByCarId.remove(carId, carLocation);
+  }
+
+}
@@ -0,0 +1,369 @@
+package com.automatedparkinglot.lotstate;
+
+import com.automatedparkinglot.allocation.FloorCapacity;
+import com.automatedparkinglot.repositories.FloorRepository;
+import com.automatedparkinglot.repositories.ParkingSpaceRepository;
+import com.automatedparkinglot.repositories.ParkingSpaceRepository.FloorParkingSpaceCount;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * An in-memory index of the parking lot floors ordered by ceiling height. It keeps track of the
+ * number of free parking spaces and the remaining allowed weight of each floor, so the best fitting
+ * floor for a car is found in O(log floors) without querying the database.
+ * <p>
+ * Floors are kept in an array sorted by ceiling height. A segment tree over this array stores the
+ * greatest allowed weight among the floors with at least one free parking space, so the best floor
+ * is the leftmost one at or above the car's height whose subtree can still carry the car.
+ * <p>
+ * The index is rebuilt from the database at startup by the {@link LotStateLoader}. It is kept up
+ * to date by the services on every park and pull-out, and publishes every change to the
+ * {@link OccupancyCounters} and as new {@link LotCapacityLimits}. Allowed weights are only ever
+ * changed by deltas, which are reversed if their transaction is rolled back, so overwriting a floor
+ * with its committed database record would lose the deltas of the transactions still in progress.
+ * If the database is modified behind the application's back (e.g. via the H2 console), the
+ * services therefore skip the floors which turn out not to match, until the index is rebuilt.
+ */
+@Component
+public class FloorIndex {
+
+  private final FloorRepository floorRepository;
+  private final ParkingSpaceRepository parkingSpaceRepository;
+  private final OccupancyCounters occupancyCounters;
+  // Not a monitor, since a virtual thread would pin its carrier while holding it during a rebuild
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private FloorState[] floorsByCeilingHeight = new FloorState[0];
+  private Map<Integer, Integer> positionsByFloorNumber = new HashMap<>();
+  // Greatest allowed weight among the floors with free parking spaces in a subtree, null if none
+  private BigDecimal[] tree = new BigDecimal[0];
+  // Read without the lock of the index
+  private volatile LotCapacityLimits capacityLimits = LotCapacityLimits.FULL;
+
+  @Autowired
+  public FloorIndex(FloorRepository floorRepository,
+      ParkingSpaceRepository parkingSpaceRepository, OccupancyCounters occupancyCounters) {
+    this.floorRepository = floorRepository;
+    this.parkingSpaceRepository = parkingSpaceRepository;
+    this.occupancyCounters = occupancyCounters;
+  }
+
+  /**
+   * Rebuilds the whole index from the floors and parking spaces tables
+   */
+  public void rebuild() {
+    lock.lock();
+    try {
+      var freeParkingSpacesByFloorNumber = parkingSpaceRepository
+          .countAvailableParkingSpacesPerFloor().stream()
+          .collect(Collectors.toMap(FloorParkingSpaceCount::getFloorNumber,
+              FloorParkingSpaceCount::getNumberOfParkingSpaces));
+      floorsByCeilingHeight = StreamSupport.stream(floorRepository.findAll().spliterator(), false)
+          .map(floor -> new FloorState(floor.getNumber(), floor.getCeilingHeight(),
+              floor.getWeightCapacity(), floor.getAllowedWeight(),
+              freeParkingSpacesByFloorNumber.getOrDefault(floor.getNumber(), 0L).intValue()))
+          .sorted(Comparator.comparing(FloorState::getCeilingHeight)
+              .thenComparing(FloorState::getNumber))
+          .toArray(FloorState[]::new);
+      positionsByFloorNumber = new HashMap<>();
+      for (int i = 0; i < floorsByCeilingHeight.length; i++) {
+        positionsByFloorNumber.put(floorsByCeilingHeight[i].getNumber(), i);
+      }
+      tree = new BigDecimal[Math.max(1, 4 * floorsByCeilingHeight.length)];
+      if (floorsByCeilingHeight.length > 0) {
+        this.build(1, 0, floorsByCeilingHeight.length - 1);
+      }
+      this.publishCapacityLimits();
+      occupancyCounters.reset(floorsByCeilingHeight,
+          parkingSpaceRepository.countParkingSpacesPerFloor().stream()
+              .collect(Collectors.toMap(FloorParkingSpaceCount::getFloorNumber,
+                  count -> count.getNumberOfParkingSpaces().intValue())));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Finds the best floor for a car: the floor with a free parking space, which is not overweight for
+   * the car, and whose ceiling height is the closest one to the car's height
+   *
+   * @param carHeight The height of the car to be parked
+   * @param carWeight The weight of the car to be parked
+   * @return The ordinal number of the best floor, or empty if no floor fits the car
+   */
+  public Optional<Integer> findBestFloorNumberForCar(BigDecimal carHeight,
+      BigDecimal carWeight) {
+    return this.findBestFloorNumberForCar(carHeight, carWeight, null);
+  }
+
+  /**
+   * Finds the best floor for a car like {@link #findBestFloorNumberForCar(BigDecimal, BigDecimal)},
+   * among the floors whose ceilings come after the ceiling of a floor which has been skipped
+   *
+   * @param carHeight          The height of the car to be parked
+   * @param carWeight          The weight of the car to be parked
+   * @param skippedFloorNumber The ordinal number of the skipped floor, or null to skip none
+   * @return The ordinal number of the best floor, or empty if no other floor fits the car
+   */
+  public Optional<Integer> findBestFloorNumberForCar(BigDecimal carHeight,
+      BigDecimal carWeight, Integer skippedFloorNumber) {
+    lock.lock();
+    try {
+      var lowestFittingPosition = this.findLowestFittingPosition(carHeight);
+      var skippedPosition = Objects.isNull(skippedFloorNumber) ? null
+          : positionsByFloorNumber.get(skippedFloorNumber);
+      if (Objects.nonNull(skippedPosition)) {
+        lowestFittingPosition = Math.max(lowestFittingPosition, skippedPosition + 1);
+      }
+      if (lowestFittingPosition == floorsByCeilingHeight.length) {
+        return Optional.empty();
+      }
+      var position = this.findLeftmostPositionCarrying(1, 0, floorsByCeilingHeight.length - 1,
+          lowestFittingPosition, carWeight);
+      return position < 0 ? Optional.empty()
+          : Optional.of(floorsByCeilingHeight[position].getNumber());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the limits of the cars which may still be parked, without taking the lock of the index
+   *
+   * @return The limits as of the last change of the index
+   */
+  public LotCapacityLimits getCapacityLimits() {
+    return capacityLimits;
+  }
+
+  /**
+   * Checks whether a floor has a free parking space, is not overweight for a car, and has a ceiling
+   * high enough for the car
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @param carHeight   The height of the car to be parked
+   * @param carWeight   The weight of the car to be parked
+   * @return Whether the floor can take the car
+   */
+  public boolean canTakeCar(Integer floorNumber, BigDecimal carHeight,
+      BigDecimal carWeight) {
+    lock.lock();
+    try {
+      var position = positionsByFloorNumber.get(floorNumber);
+      if (Objects.isNull(position)) {
+        return false;
+      }
+      var floorState = floorsByCeilingHeight[position];
+      return floorState.getFreeParkingSpaces() > 0
+          && floorState.getAllowedWeight().compareTo(carWeight) >= 0
+          && floorState.getCeilingHeight().compareTo(carHeight) >= 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Copies the capacities of all floors, e.g. for a strategy to assign several cars at once
+   *
+   * @return The capacities of the floors ordered by ceiling height
+   */
+  public List<FloorCapacity> getFloorCapacities() {
+    lock.lock();
+    try {
+      return Arrays.stream(floorsByCeilingHeight)
+          .map(floorState -> new FloorCapacity(floorState.getNumber(),
+              floorState.getCeilingHeight(), floorState.getAllowedWeight(),
+              floorState.getFreeParkingSpaces()))
+          .collect(Collectors.toList());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the allowed weight of a floor as it is known to the index
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @return The allowed weight of the floor, or null if the floor is unknown
+   */
+  public BigDecimal getAllowedWeight(Integer floorNumber) {
+    lock.lock();
+    try {
+      var position = positionsByFloorNumber.get(floorNumber);
+      return Objects.isNull(position) ? null : floorsByCeilingHeight[position].getAllowedWeight();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Changes the allowed weight of a floor after a car was parked or pulled out
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @param weightDelta The change in the allowed weight of the floor
+   */
+  public void changeAllowedWeight(Integer floorNumber, BigDecimal weightDelta) {
+    lock.lock();
+    try {
+      var position = positionsByFloorNumber.get(floorNumber);
+      if (Objects.isNull(position)) {
+        return;
+      }
+      var floorState = floorsByCeilingHeight[position];
+      floorState.setAllowedWeight(floorState.getAllowedWeight().add(weightDelta));
+      this.floorChanged(position);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Changes the number of free parking spaces on a floor after a car was parked or pulled out
+   *
+   * @param floorNumber            The ordinal number of the floor
+   * @param freeParkingSpacesDelta The change in the number of free parking spaces on the floor
+   */
+  public void changeFreeParkingSpaces(Integer floorNumber,
+      int freeParkingSpacesDelta) {
+    lock.lock();
+    try {
+      var position = positionsByFloorNumber.get(floorNumber);
+      if (Objects.isNull(position)) {
+        return;
+      }
+      var floorState = floorsByCeilingHeight[position];
+      floorState.setFreeParkingSpaces(
+          Math.max(0, floorState.getFreeParkingSpaces() + freeParkingSpacesDelta));
+      this.floorChanged(position);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a floor as having no free parking spaces, e.g. once it turned out that its parking spaces
+   * were occupied without the index knowing it
+   *
+   * @param floorNumber The ordinal number of the floor
+   */
+  public void markFloorFull(Integer floorNumber) {
+    lock.lock();
+    try {
+      var position = positionsByFloorNumber.get(floorNumber);
+      if (Objects.isNull(position)) {
+        return;
+      }
+      floorsByCeilingHeight[position].setFreeParkingSpaces(0);
+      this.floorChanged(position);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void floorChanged(int position) {
+    this.update(1, 0, floorsByCeilingHeight.length - 1, position);
+    this.publishCapacityLimits();
+    occupancyCounters.update(position, floorsByCeilingHeight[position]);
+  }
+
+  private void publishCapacityLimits() {
+    if (floorsByCeilingHeight.length == 0 || Objects.isNull(tree[1])) {
+      capacityLimits = LotCapacityLimits.FULL;
+      return;
+    }
+    // The root carries the greatest weight, and the rightmost floor with free parking spaces has
+    // the highest ceiling among them
+    int node = 1;
+    int nodeFrom = 0;
+    int nodeTo = floorsByCeilingHeight.length - 1;
+    while (nodeFrom < nodeTo) {
+      int middle = (nodeFrom + nodeTo) >>> 1;
+      if (Objects.nonNull(tree[2 * node + 1])) {
+        node = 2 * node + 1;
+        nodeFrom = middle + 1;
+      } else {
+        node = 2 * node;
+        nodeTo = middle;
+      }
+    }
+    capacityLimits = new LotCapacityLimits(floorsByCeilingHeight[nodeFrom].getCeilingHeight(),
+        tree[1]);
+  }
+
+  private int findLowestFittingPosition(BigDecimal carHeight) {
+    // Binary search for the first floor whose ceiling is high enough
+    int low = 0;
+    int high = floorsByCeilingHeight.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (floorsByCeilingHeight[middle].getCeilingHeight().compareTo(carHeight) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private int findLeftmostPositionCarrying(int node, int nodeFrom, int nodeTo, int from,
+      BigDecimal carWeight) {
+    if (nodeTo < from || Objects.isNull(tree[node]) || tree[node].compareTo(carWeight) < 0) {
+      return -1;
+    }
+    if (nodeFrom == nodeTo) {
+      return nodeFrom;
+    }
+    int middle = (nodeFrom + nodeTo) >>> 1;
+    var position = this.findLeftmostPositionCarrying(2 * node, nodeFrom, middle, from, carWeight);
+    return position >= 0 ? position
+        : this.findLeftmostPositionCarrying(2 * node + 1, middle + 1, nodeTo, from, carWeight);
+  }
+
+  private void build(int node, int nodeFrom, int nodeTo) {
+    if (nodeFrom == nodeTo) {
+      tree[node] = this.carriableWeight(floorsByCeilingHeight[nodeFrom]);
+      return;
+    }
+    int middle = (nodeFrom + nodeTo) >>> 1;
+    this.build(2 * node, nodeFrom, middle);
+    this.build(2 * node + 1, middle + 1, nodeTo);
+    tree[node] = this.max(tree[2 * node], tree[2 * node + 1]);
+  }
+
+  private void update(int node, int nodeFrom, int nodeTo, int position) {
+    if (nodeFrom == nodeTo) {
+      tree[node] = this.carriableWeight(floorsByCeilingHeight[position]);
+      return;
+    }
+    int middle = (nodeFrom + nodeTo) >>> 1;
+    if (position <= middle) {
+      this.update(2 * node, nodeFrom, middle, position);
+    } else {
+      this.update(2 * node + 1, middle + 1, nodeTo, position);
+    }
+    tree[node] = this.max(tree[2 * node], tree[2 * node + 1]);
+  }
+
+  private BigDecimal carriableWeight(FloorState floorState) {
+    return floorState.getFreeParkingSpaces() > 0 ? floorState.getAllowedWeight() : null;
+  }
+
+  private BigDecimal max(BigDecimal left, BigDecimal right) {
+    if (Objects.isNull(left)) {
+      return right;
+    }
+    return Objects.isNull(right) || left.compareTo(right) >= 0 ? left : right;
+  }
+
+}
@@ -0,0 +1,23 @@
+package com.automatedparkinglot.lotstate;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The occupancy of a floor as read from the {@link OccupancyCounters}: floor's ordinal number from
+ * ground, floor's ceiling height, the numbers of all and of free parking spaces on the floor,
+ * floor's maximum weight capacity, and floor's remaining weight allowed for new cars to be parked
+ */
+@Getter
+@AllArgsConstructor
+public class FloorOccupancy {
+
+  private final Integer number;
+  private final BigDecimal ceilingHeight;
+  private final int parkingSpaces;
+  private final int freeParkingSpaces;
+  private final BigDecimal weightCapacity;
+  private final BigDecimal allowedWeight;
+
+}
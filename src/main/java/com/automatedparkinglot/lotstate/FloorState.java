@@ -0,0 +1,25 @@
+package com.automatedparkinglot.lotstate;
+
+import java.math.BigDecimal;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The in-memory state of a floor kept by the {@link FloorIndex}: floor's ordinal number from ground,
+ * floor's ceiling height, floor's maximum weight capacity, floor's remaining weight allowed for new
+ * cars to be parked, and the number of free parking spaces on the floor
+ */
+@Getter
+@Setter(AccessLevel.PACKAGE)
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class FloorState {
+
+  private final Integer number;
+  private final BigDecimal ceilingHeight;
+  private BigDecimal weightCapacity;
+  private BigDecimal allowedWeight;
+  private int freeParkingSpaces;
+
+}
@@ -0,0 +1,117 @@
+package com.automatedparkinglot.lotstate;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A compact bitmap of the free parking spaces on a floor. Each bit stands for a parking space, in
+ * the ascending order of parking space IDs, and is set while the parking space is free. A cursor
+ * points at the first word that may still contain a free parking space, so allocation takes O(1)
+ * amortized time.
+ */
+class FreeParkingSpaceBitmap {
+
+  private final long[] parkingSpaceIds;
+  private final long[] freeBits;
+  private final ReentrantLock lock = new ReentrantLock();
+  private int cursor;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param parkingSpaceIds The IDs of all parking spaces on the floor in ascending order
+   */
+  FreeParkingSpaceBitmap(long[] parkingSpaceIds) {
+    this.parkingSpaceIds = parkingSpaceIds;
+    this.freeBits = new long[(parkingSpaceIds.length + 63) >>> 6];
+  }
+
+  /**
+   * Takes the free parking space with the lowest ID
+   *
+   * @return The ID of the taken parking space, or -1 if there is no free parking space
+   */
+  long take() {
+    lock.lock();
+    try {
+      while (cursor < freeBits.length) {
+        var word = freeBits[cursor];
+        if (word != 0) {
+          var bit = Long.numberOfTrailingZeros(word);
+          freeBits[cursor] = word & ~(1L << bit);
+          return parkingSpaceIds[(cursor << 6) + bit];
+        }
+        cursor++;
+      }
+      return -1;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of parking spaces on the floor
+   *
+   * @return The number of parking spaces
+   */
+  int size() {
+    return parkingSpaceIds.length;
+  }
+
+  /**
+   * Counts the free parking spaces
+   *
+   * @return The number of free parking spaces
+   */
+  int countFree() {
+    lock.lock();
+    try {
+      var free = 0;
+      for (var word : freeBits) {
+        free += Long.bitCount(word);
+      }
+      return free;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a parking space as free
+   *
+   * @param parkingSpaceId The ID of the parking space
+   * @return False if the parking space is not on this floor
+   */
+  boolean release(long parkingSpaceId) {
+    lock.lock();
+    try {
+      var index = Arrays.binarySearch(parkingSpaceIds, parkingSpaceId);
+      if (index < 0) {
+        return false;
+      }
+      freeBits[index >>> 6] |= 1L << index;
+      cursor = Math.min(cursor, index >>> 6);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a parking space as occupied
+   *
+   * @param parkingSpaceId The ID of the parking space
+   */
+  void occupy(long parkingSpaceId) {
+    lock.lock();
+    try {
+      var index = Arrays.binarySearch(parkingSpaceIds, parkingSpaceId);
+      if (index >= 0) {
+        freeBits[index >>> 6] &= ~(1L << index);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
@@ -0,0 +1,38 @@
+package com.automatedparkinglot.lotstate;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The limits of the cars which may still be parked, as published by the {@link FloorIndex} on every
+ * change: the highest ceiling among the floors with a free parking space, and the greatest weight
+ * still allowed on one of these floors, both null if the lot is full.
+ * <p>
+ * A car above either limit cannot be parked, so it can be rejected without asking the index. A car
+ * within both limits may still not fit, e.g. if the highest floor has no weight to spare, which the
+ * index finds out.
+ */
+@Getter
+@AllArgsConstructor
+public class LotCapacityLimits {
+
+  static final LotCapacityLimits FULL = new LotCapacityLimits(null, null);
+
+  private final BigDecimal maxCarHeight;
+  private final BigDecimal maxCarWeight;
+
+  /**
+   * Checks whether a car is within the limits
+   *
+   * @param carHeight The height of the car
+   * @param carWeight The weight of the car
+   * @return Whether the car may fit, i.e. it is worth looking for a floor
+   */
+  public boolean mayFit(BigDecimal carHeight, BigDecimal carWeight) {
+    return Objects.nonNull(maxCarHeight) && carHeight.compareTo(maxCarHeight) <= 0
+        && carWeight.compareTo(maxCarWeight) <= 0;
+  }
+
+}
@@ -0,0 +1,52 @@
+package com.automatedparkinglot.lotstate;
+
+import com.automatedparkinglot.journal.ParkingJournal;
+import com.automatedparkinglot.topology.LotTopologyLoader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the parking lot at startup: the lot topology, then the parked cars recovered from the
+ * journal, then the in-memory lot state.
+ * <p>
+ * The lot is loaded once all singletons have been instantiated, which is before the web server is
+ * started, so no request is handled by a lot that is empty or only partly loaded. A lot that cannot
+ * be loaded fails the startup.
+ */
+@Component
+public class LotInitializer implements SmartInitializingSingleton {
+
+  private final LotTopologyLoader lotTopologyLoader;
+  private final ParkingJournal parkingJournal;
+  private final LotStateLoader lotStateLoader;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param lotTopologyLoader A {@link LotTopologyLoader} instance
+   * @param parkingJournal    A {@link ParkingJournal} instance
+   * @param lotStateLoader    A {@link LotStateLoader} instance
+   */
+  @Autowired
+  public LotInitializer(LotTopologyLoader lotTopologyLoader, ParkingJournal parkingJournal,
+      LotStateLoader lotStateLoader) {
+    this.lotTopologyLoader = lotTopologyLoader;
+    this.parkingJournal = parkingJournal;
+    this.lotStateLoader = lotStateLoader;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    try {
+      lotTopologyLoader.loadOnStartup();
+      parkingJournal.recover();
+    } catch (IOException ioException) {
+      throw new UncheckedIOException(ioException);
+    }
+    lotStateLoader.reload();
+  }
+
+}
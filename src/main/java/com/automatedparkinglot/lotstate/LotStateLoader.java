@@ -0,0 +1,44 @@
+package com.automatedparkinglot.lotstate;
+
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the in-memory state of the parking lot from the database, at startup after the lot topology
+ * has been loaded and the parked cars have been recovered (See {@link LotInitializer})
+ */
+@Component
+public class LotStateLoader {
+
+  private final ParkingSpaceAllocator parkingSpaceAllocator;
+  private final FloorIndex floorIndex;
+  private final CarLocationCache carLocationCache;
+  private final ReservationRegistry reservationRegistry;
+  private final ParkingMetrics parkingMetrics;
+
+  @Autowired
+  public LotStateLoader(ParkingSpaceAllocator parkingSpaceAllocator, FloorIndex floorIndex,
+      CarLocationCache carLocationCache, ReservationRegistry reservationRegistry,
+      ParkingMetrics parkingMetrics) {
+    this.parkingSpaceAllocator = parkingSpaceAllocator;
+    this.floorIndex = floorIndex;
+    this.carLocationCache = carLocationCache;
+    this.reservationRegistry = reservationRegistry;
+    this.parkingMetrics = parkingMetrics;
+  }
+
+  /**
+   * Rebuilds the whole in-memory state of the parking lot from the database, and registers the
+   * gauges of new floors. Reservations are only kept in memory, so they are dropped along with the
+   * lot they were made in.
+   */
+  public void reload() {
+    parkingSpaceAllocator.rebuild();
+    floorIndex.rebuild();
+    carLocationCache.rebuild();
+    reservationRegistry.clear();
+    parkingMetrics.registerFloorGauges();
+  }
+
+}
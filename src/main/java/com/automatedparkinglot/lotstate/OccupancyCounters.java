@@ -0,0 +1,194 @@
+package com.automatedparkinglot.lotstate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters of the free parking spaces and the remaining weights of the floors, to be read by
+ * occupancy requests, e.g. polled by display boards, without touching the database and without
+ * taking the lock of the {@link FloorIndex}.
+ * <p>
+ * The counters are written by the {@link FloorIndex} whenever a floor's state changes, so they
+ * follow every park, pull-out, and reservation, including the compensations of rolled-back ones.
+ * The counters of every floor are published together as an immutable {@link FloorOccupancy} in an
+ * atomic array, so reads never block writes and never see a floor half updated. A read of several
+ * floors is not a snapshot of the whole lot at a single instant, but each floor's counters are
+ * exact at the time they are read.
+ * <p>
+ * Changed floors are flagged, so a publisher can take the floors changed since its last turn and
+ * push a single update per floor however many cars have moved meanwhile. When the index is
+ * rebuilt, the counters are replaced as a whole, with all floors flagged as changed.
+ */
+@Component
+public class OccupancyCounters {
+
+  private volatile Counters counters = new Counters(new FloorState[0], Map.of());
+
+  /**
+   * Replaces all counters, after the {@link FloorIndex} has been rebuilt
+   *
+   * @param floorsByCeilingHeight      The states of the floors ordered by ceiling height
+   * @param parkingSpacesByFloorNumber The number of parking spaces on each floor
+   */
+  void reset(FloorState[] floorsByCeilingHeight, Map<Integer, Integer> parkingSpacesByFloorNumber) {
+    counters = new Counters(floorsByCeilingHeight, parkingSpacesByFloorNumber);
+  }
+
+  /**
+   * Updates the counters of a floor after its state has changed in the {@link FloorIndex}
+   *
+   * @param position   The position of the floor in the index
+   * @param floorState The state of the floor
+   */
+  void update(int position, FloorState floorState) {
+    var currentCounters = counters;
+    if (position >= currentCounters.floorNumbers.length) {
+      return;
+    }
+    currentCounters.publish(position, floorState);
+    // Flagged after the counters are published, so a publisher clearing the flag reads them
+    currentCounters.changedFloors.set(position, 1);
+  }
+
+  /**
+   * Reads the occupancy of all floors
+   *
+   * @return The occupancies of the floors ordered by floor number
+   */
+  public List<FloorOccupancy> readFloors() {
+    var currentCounters = counters;
+    var floorOccupancies = new ArrayList<FloorOccupancy>(currentCounters.floorNumbers.length);
+    for (var position : currentCounters.positionsByFloorNumberOrder) {
+      floorOccupancies.add(currentCounters.floorOccupancies.get(position));
+    }
+    return floorOccupancies;
+  }
+
+  /**
+   * Reads the occupancy of a floor
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @return The occupancy of the floor, or null if the floor is unknown
+   */
+  public FloorOccupancy readFloor(Integer floorNumber) {
+    var currentCounters = counters;
+    var position = currentCounters.positionsByFloorNumber.get(floorNumber);
+    return Objects.isNull(position) ? null : currentCounters.floorOccupancies.get(position);
+  }
+
+  /**
+   * Reads the occupancy of the floors which have changed since the last call, and clears their
+   * flags. A floor changing again while it is read is flagged again, so no change is lost. Meant
+   * for a single publisher.
+   *
+   * @return The occupancies of the changed floors ordered by floor number
+   */
+  public List<FloorOccupancy> takeChangedFloors() {
+    var currentCounters = counters;
+    var floorOccupancies = new ArrayList<FloorOccupancy>();
+    for (var position : currentCounters.positionsByFloorNumberOrder) {
+      if (currentCounters.changedFloors.getAndSet(position, 0) == 1) {
+        floorOccupancies.add(currentCounters.floorOccupancies.get(position));
+      }
+    }
+    return floorOccupancies;
+  }
+
+  /**
+   * Counts how many cars of a height class, and optionally of a weight, could be parked right now:
+   * the free parking spaces on the floors whose ceiling is high enough, as far as the remaining
+   * weights of these floors can carry cars of the given weight
+   *
+   * @param carHeight The height of the cars
+   * @param carWeight The weight of the cars, or null to count the free parking spaces only
+   * @return The number of cars which fit the lot
+   */
+  public long countFittingCars(BigDecimal carHeight, BigDecimal carWeight) {
+    var currentCounters = counters;
+    var carWeightInMinorUnits = Objects.isNull(carWeight) ? 0 : toMinorUnits(carWeight);
+    long fittingCars = 0;
+    // The floors are ordered by ceiling height, so the fitting ones are at the end
+    for (int position = currentCounters.findLowestFittingPosition(carHeight);
+        position < currentCounters.floorNumbers.length; position++) {
+      var floorOccupancy = currentCounters.floorOccupancies.get(position);
+      long freeParkingSpaces = floorOccupancy.getFreeParkingSpaces();
+      fittingCars += carWeightInMinorUnits <= 0 ? freeParkingSpaces : Math.min(freeParkingSpaces,
+          Math.max(0, toMinorUnits(floorOccupancy.getAllowedWeight())) / carWeightInMinorUnits);
+    }
+    return fittingCars;
+  }
+
+  // Weights in minor units, i.e. as cents of a kilogram
+  private static long toMinorUnits(BigDecimal weight) {
+    return weight.movePointRight(2).longValue();
+  }
+
+  /**
+   * The counters of a layout of floors, replaced as a whole when the index is rebuilt
+   */
+  private static class Counters {
+
+    private final Integer[] floorNumbers;
+    private final BigDecimal[] ceilingHeights;
+    private final int[] parkingSpaces;
+    private final int[] positionsByFloorNumberOrder;
+    private final Map<Integer, Integer> positionsByFloorNumber = new HashMap<>();
+    private final AtomicReferenceArray<FloorOccupancy> floorOccupancies;
+    private final AtomicIntegerArray changedFloors;
+
+    private Counters(FloorState[] floorsByCeilingHeight,
+        Map<Integer, Integer> parkingSpacesByFloorNumber) {
+      floorNumbers = Arrays.stream(floorsByCeilingHeight).map(FloorState::getNumber)
+          .toArray(Integer[]::new);
+      ceilingHeights = Arrays.stream(floorsByCeilingHeight).map(FloorState::getCeilingHeight)
+          .toArray(BigDecimal[]::new);
+      parkingSpaces = Arrays.stream(floorsByCeilingHeight)
+          .mapToInt(floorState -> parkingSpacesByFloorNumber.getOrDefault(floorState.getNumber(), 0))
+          .toArray();
+      positionsByFloorNumberOrder = IntStream.range(0, floorNumbers.length).boxed()
+          .sorted(Comparator.comparing(position -> floorNumbers[position]))
+          .mapToInt(Integer::intValue)
+          .toArray();
+      floorOccupancies = new AtomicReferenceArray<>(floorNumbers.length);
+      changedFloors = new AtomicIntegerArray(floorNumbers.length);
+      for (int position = 0; position < floorNumbers.length; position++) {
+        positionsByFloorNumber.put(floorNumbers[position], position);
+        this.publish(position, floorsByCeilingHeight[position]);
+        changedFloors.set(position, 1);
+      }
+    }
+
+    // Replaces the floor's occupancy as a whole, so it is read either before or after the change
+    private void publish(int position, FloorState floorState) {
+      floorOccupancies.set(position, new FloorOccupancy(floorNumbers[position],
+          ceilingHeights[position], parkingSpaces[position], floorState.getFreeParkingSpaces(),
+          BigDecimal.valueOf(toMinorUnits(floorState.getWeightCapacity()), 2),
+          BigDecimal.valueOf(toMinorUnits(floorState.getAllowedWeight()), 2)));
+    }
+
+    private int findLowestFittingPosition(BigDecimal carHeight) {
+      int low = 0;
+      int high = ceilingHeights.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (ceilingHeights[middle].compareTo(carHeight) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.automatedparkinglot.lotstate;
+
+import com.automatedparkinglot.repositories.ParkingSpaceRepository;
+import com.automatedparkinglot.repositories.ParkingSpaceRepository.ParkingSpaceSummary;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * An allocator handing out free parking spaces on a floor without loading parking space entities
+ * from the database. It keeps a {@link FreeParkingSpaceBitmap} per floor, which is rebuilt from the
+ * parking spaces table at startup.
+ * <p>
+ * The allocator only proposes a parking space. Occupying it in the database is conditional on the
+ * parking space still being empty there, so a parking space occupied behind the allocator's back
+ * (e.g. via the H2 console) is skipped, never double-booked.
+ */
+@Component
+public class ParkingSpaceAllocator {
+
+  private final ParkingSpaceRepository parkingSpaceRepository;
+
+  private volatile Map<Integer, FreeParkingSpaceBitmap> bitmapsByFloorNumber = Map.of();
+
+  @Autowired
+  public ParkingSpaceAllocator(ParkingSpaceRepository parkingSpaceRepository) {
+    this.parkingSpaceRepository = parkingSpaceRepository;
+  }
+
+  /**
+   * Rebuilds the bitmaps of all floors from the parking spaces table
+   */
+  public synchronized void rebuild() {
+    var parkingSpacesByFloorNumber = new HashMap<Integer, List<ParkingSpaceSummary>>();
+    for (var parkingSpace : parkingSpaceRepository.findAllParkingSpaceSummaries()) {
+      parkingSpacesByFloorNumber.computeIfAbsent(parkingSpace.getFloor(), floor -> new ArrayList<>())
+          .add(parkingSpace);
+    }
+    var bitmaps = new HashMap<Integer, FreeParkingSpaceBitmap>();
+    parkingSpacesByFloorNumber.forEach((floorNumber, parkingSpaces) -> {
+      // Parking space summaries are ordered by ID
+      var bitmap = new FreeParkingSpaceBitmap(
+          parkingSpaces.stream().mapToLong(ParkingSpaceSummary::getId).toArray());
+      parkingSpaces.stream()
+          .filter(parkingSpace -> Objects.isNull(parkingSpace.getOccupyingCarId()))
+          .forEach(parkingSpace -> bitmap.release(parkingSpace.getId()));
+      bitmaps.put(floorNumber, bitmap);
+    });
+    bitmapsByFloorNumber = bitmaps;
+  }
+
+  /**
+   * Gets the floors known to the allocator
+   *
+   * @return The ordinal numbers of the floors
+   */
+  public Set<Integer> getFloorNumbers() {
+    return bitmapsByFloorNumber.keySet();
+  }
+
+  /**
+   * Counts the parking spaces on a floor
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @return The number of parking spaces, or 0 if the floor is unknown
+   */
+  public int countParkingSpaces(Integer floorNumber) {
+    var bitmap = bitmapsByFloorNumber.get(floorNumber);
+    return Objects.isNull(bitmap) ? 0 : bitmap.size();
+  }
+
+  /**
+   * Counts the free parking spaces on a floor
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @return The number of free parking spaces, or 0 if the floor is unknown
+   */
+  public int countFreeParkingSpaces(Integer floorNumber) {
+    var bitmap = bitmapsByFloorNumber.get(floorNumber);
+    return Objects.isNull(bitmap) ? 0 : bitmap.countFree();
+  }
+
+  /**
+   * Takes a free parking space on a floor
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @return The ID of the taken parking space, or null if the floor has no free parking space
+   */
+  public Long allocate(Integer floorNumber) {
+    var bitmap = bitmapsByFloorNumber.get(floorNumber);
+    if (Objects.isNull(bitmap)) {
+      return null;
+    }
+    var parkingSpaceId = bitmap.take();
+    return parkingSpaceId < 0 ? null : parkingSpaceId;
+  }
+
+  /**
+   * Gives a parking space back to the free parking spaces of its floor
+   *
+   * @param floorNumber    The ordinal number of the floor the parking space belongs to
+   * @param parkingSpaceId The ID of the parking space
+   */
+  public void release(Integer floorNumber, Long parkingSpaceId) {
+    var bitmap = bitmapsByFloorNumber.get(floorNumber);
+    if (Objects.nonNull(bitmap)) {
+      bitmap.release(parkingSpaceId);
+    }
+  }
+
+  /**
+   * Takes a specific parking space out of the free parking spaces of its floor
+   *
+   * @param floorNumber    The ordinal number of the floor the parking space belongs to
+   * @param parkingSpaceId The ID of the parking space
+   */
+  public void occupy(Integer floorNumber, Long parkingSpaceId) {
+    var bitmap = bitmapsByFloorNumber.get(floorNumber);
+    if (Objects.nonNull(bitmap)) {
+      bitmap.occupy(parkingSpaceId);
+    }
+  }
+
+}
@@ -0,0 +1,36 @@
+package com.automatedparkinglot.lotstate;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A parking space held for a car which has not arrived yet, as kept by the
+ * {@link ReservationRegistry}: the car as it was announced, the reserved parking space and its
+ * floor, the weight allowed on the floor before the car's weight was reserved on it, and the time
+ * at which the reservation expires
+ */
+@Getter
+@AllArgsConstructor
+public class Reservation {
+
+  private final String carId;
+  private final BigDecimal carHeight;
+  private final BigDecimal carWeight;
+  private final Integer floor;
+  private final Long parkingSpaceId;
+  private final BigDecimal allowedWeightOnFloorBeforeReservation;
+  private final long expiresAtInMillis;
+
+  /**
+   * Checks if an arriving car fits the reservation, i.e. it is not higher or heavier than announced
+   *
+   * @param carHeight The height of the arriving car
+   * @param carWeight The weight of the arriving car
+   * @return Whether the car can be parked in the reserved parking space
+   */
+  public boolean fits(BigDecimal carHeight, BigDecimal carWeight) {
+    return carHeight.compareTo(this.carHeight) <= 0 && carWeight.compareTo(this.carWeight) <= 0;
+  }
+
+}
@@ -0,0 +1,138 @@
+package com.automatedparkinglot.lotstate;
+
+import com.automatedparkinglot.util.HashedTimingWheel;
+import com.automatedparkinglot.util.HashedTimingWheel.Timeout;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The outstanding reservations by car ID, whose expiry is scheduled on a
+ * {@link HashedTimingWheel}, so tens of thousands of them are neither a timer each nor polled.
+ * <p>
+ * A reservation leaves the registry exactly once: claimed by its arriving car, cancelled, or
+ * expired, whichever removes it from the map first.
+ */
+@Component
+public class ReservationRegistry {
+
+  private final Map<String, Timeout<Reservation>> reservationsByCarId = new ConcurrentHashMap<>();
+  private final HashedTimingWheel<Reservation> timingWheel;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param tickDurationInMillis The duration of a tick of the timing wheel, i.e. the precision of
+   *                             the expiry times
+   * @param ticksPerWheel        The number of buckets of the timing wheel
+   */
+  @Autowired
+  public ReservationRegistry(
+      @Value("${automated-parking-lot.reservations.tick-ms:100}") long tickDurationInMillis,
+      @Value("${automated-parking-lot.reservations.wheel-size:1024}") int ticksPerWheel) {
+    this.timingWheel = new HashedTimingWheel<>(tickDurationInMillis, ticksPerWheel,
+        System.currentTimeMillis());
+  }
+
+  /**
+   * Adds a reservation and schedules its expiry
+   *
+   * @param reservation The reservation
+   * @return Whether the reservation has been added, i.e. the car had no reservation yet
+   */
+  public boolean add(Reservation reservation) {
+    var timeout = timingWheel.schedule(reservation, reservation.getExpiresAtInMillis());
+    if (Objects.nonNull(reservationsByCarId.putIfAbsent(reservation.getCarId(), timeout))) {
+      timingWheel.cancel(timeout);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Checks if a car has an outstanding reservation
+   *
+   * @param carId The ID of the car
+   * @return Whether the car has a reservation
+   */
+  public boolean contains(String carId) {
+    return Objects.nonNull(carId) && reservationsByCarId.containsKey(carId);
+  }
+
+  /**
+   * Takes the reservation of a car out of the registry, e.g. because the car has arrived
+   *
+   * @param carId The ID of the car
+   * @return The reservation, or null if the car has no reservation
+   */
+  public Reservation claim(String carId) {
+    var timeout = Objects.isNull(carId) ? null : reservationsByCarId.remove(carId);
+    if (Objects.isNull(timeout)) {
+      return null;
+    }
+    timingWheel.cancel(timeout);
+    return timeout.getItem();
+  }
+
+  /**
+   * Removes a reservation if it is still in the registry
+   *
+   * @param reservation The reservation
+   * @return Whether the reservation has been removed
+   */
+  public boolean remove(Reservation reservation) {
+    var timeout = reservationsByCarId.get(reservation.getCarId());
+    if (Objects.isNull(timeout) || timeout.getItem() != reservation
+        || !reservationsByCarId.remove(reservation.getCarId(), timeout)) {
+      return false;
+    }
+    timingWheel.cancel(timeout);
+    return true;
+  }
+
+  /**
+   * Removes the reservations which have expired by now
+   *
+   * @param nowInMillis The current time
+   * @return The expired reservations, which are not in the registry anymore
+   */
+  public List<Reservation> expire(long nowInMillis) {
+    return timingWheel.advance(nowInMillis).stream()
+        .filter(this::removeExpired)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Counts the outstanding reservations
+   *
+   * @return The number of reservations in the registry
+   */
+  public int size() {
+    return reservationsByCarId.size();
+  }
+
+  /**
+   * Drops all reservations, e.g. when the lot is loaded again
+   */
+  public void clear() {
+    for (var carId : reservationsByCarId.keySet()) {
+      var timeout = reservationsByCarId.remove(carId);
+      if (Objects.nonNull(timeout)) {
+        timingWheel.cancel(timeout);
+      }
+    }
+  }
+
+  // The timeout has already left the wheel, so only the map entry is left to remove
+  private boolean removeExpired(Reservation reservation) {
+    var timeout = reservationsByCarId.get(reservation.getCarId());
+    return Objects.nonNull(timeout) && timeout.getItem() == reservation
+        && reservationsByCarId.remove(reservation.getCarId(), timeout);
+  }
+
+}
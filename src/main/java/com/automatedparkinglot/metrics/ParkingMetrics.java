@@ -0,0 +1,237 @@
+package com.automatedparkinglot.metrics;
+
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.enums.ParkingPhase;
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.lotstate.ParkingSpaceAllocator;
+import com.automatedparkinglot.lotstate.ReservationRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics of the parking lot, exposed through Actuator:
+ * <ul>
+ *   <li>parking.phase.duration: a timer per operation and phase (e.g. floor selection while
+ *   parking a car), so it can be seen where the latency of a request goes</li>
+ *   <li>parking.errors: a counter per {@link AutomatedParkingExceptionCode}</li>
+ *   <li>parking.events.dropped: a counter of events the event log had no room for</li>
+ *   <li>parking.reservations.outstanding: a gauge of the reservations waiting for their cars, and
+ *   parking.reservations.expired: a counter of the reservations whose cars did not arrive in
+ *   time</li>
+ *   <li>parking.occupancy.subscribers.dropped: a counter of occupancy stream subscribers
+ *   disconnected because they fell behind</li>
+ *   <li>parking.idempotency.replays: a counter of retried requests answered with the outcome of
+ *   the first request with the same idempotency key</li>
+ *   <li>parking.transport.duration: a timer per operation of the transports of cars by the lifts
+ *   and shuttles, from their submission to their completion, in the time of the movements, and
+ *   parking.transport.waiting: a gauge of the transports waiting for a lift, a shuttle or their
+ *   car</li>
+ *   <li>parking.records.archived: a counter of the completed parking records moved to the history
+ *   table</li>
+ *   <li>parking.floor.parking.spaces.free, parking.floor.parking.spaces.occupied and
+ *   parking.floor.allowed.weight: gauges per floor, read from the in-memory lot state</li>
+ * </ul>
+ * Timers are cached by operation and phase, so recording a phase does not build meter IDs.
+ */
+@Component
+public class ParkingMetrics {
+
+  private final MeterRegistry meterRegistry;
+  private final FloorIndex floorIndex;
+  private final ParkingSpaceAllocator parkingSpaceAllocator;
+  private final Map<ParkingOperation, Map<ParkingPhase, Timer>> timers = new ConcurrentHashMap<>();
+  private final Map<AutomatedParkingExceptionCode, Counter> errorCounters = new EnumMap<>(
+      AutomatedParkingExceptionCode.class);
+  private final Counter droppedEventCounter;
+  private final Counter expiredReservationCounter;
+  private final Counter droppedSubscriberCounter;
+  private final Counter idempotentReplayCounter;
+  private final Counter archivedParkingRecordCounter;
+  private final Map<ParkingOperation, Timer> transportTimers = new ConcurrentHashMap<>();
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param meterRegistry         A {@link MeterRegistry} instance
+   * @param floorIndex            A {@link FloorIndex} instance
+   * @param parkingSpaceAllocator A {@link ParkingSpaceAllocator} instance
+   * @param reservationRegistry   A {@link ReservationRegistry} instance
+   */
+  @Autowired
+  public ParkingMetrics(MeterRegistry meterRegistry, FloorIndex floorIndex,
+      ParkingSpaceAllocator parkingSpaceAllocator, ReservationRegistry reservationRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.floorIndex = floorIndex;
+    this.parkingSpaceAllocator = parkingSpaceAllocator;
+    for (var exceptionCode : AutomatedParkingExceptionCode.values()) {
+      errorCounters.put(exceptionCode, Counter.builder("parking.errors")
+          .description("Parking and pull-out requests failed with an error code")
+          .tag("code", exceptionCode.name())
+          .register(meterRegistry));
+    }
+    this.droppedEventCounter = Counter.builder("parking.events.dropped")
+        .description("Events dropped because the event log queue was full")
+        .register(meterRegistry);
+    Gauge.builder("parking.reservations.outstanding", reservationRegistry,
+            ReservationRegistry::size)
+        .description("Reservations waiting for their cars")
+        .register(meterRegistry);
+    this.expiredReservationCounter = Counter.builder("parking.reservations.expired")
+        .description("Reservations released because their cars did not arrive in time")
+        .register(meterRegistry);
+    this.droppedSubscriberCounter = Counter.builder("parking.occupancy.subscribers.dropped")
+        .description("Occupancy stream subscribers disconnected because they fell behind")
+        .register(meterRegistry);
+    this.idempotentReplayCounter = Counter.builder("parking.idempotency.replays")
+        .description("Retried requests answered with the outcome of the first one")
+        .register(meterRegistry);
+    this.archivedParkingRecordCounter = Counter.builder("parking.records.archived")
+        .description("Completed parking records moved to the history table")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Times a phase of an operation
+   *
+   * @param operation The operation the phase belongs to
+   * @param phase     The phase
+   * @param step      The work done in the phase
+   * @param <T>       The type of the result of the phase
+   * @return The result of the phase
+   */
+  public <T> T time(ParkingOperation operation, ParkingPhase phase, Supplier<T> step) {
+    return this.getTimer(operation, phase).record(step);
+  }
+
+  /**
+   * Times a phase of an operation which has no result
+   *
+   * @param operation The operation the phase belongs to
+   * @param phase     The phase
+   * @param step      The work done in the phase
+   */
+  public void time(ParkingOperation operation, ParkingPhase phase, Runnable step) {
+    this.getTimer(operation, phase).record(step);
+  }
+
+  /**
+   * Counts a failed request
+   *
+   * @param exceptionCode The code of the error the request failed with
+   */
+  public void countError(AutomatedParkingExceptionCode exceptionCode) {
+    errorCounters.get(exceptionCode).increment();
+  }
+
+  /**
+   * Counts an event dropped by the event log
+   */
+  public void countDroppedEvent() {
+    droppedEventCounter.increment();
+  }
+
+  /**
+   * Counts an expired reservation
+   */
+  public void countExpiredReservation() {
+    expiredReservationCounter.increment();
+  }
+
+  /**
+   * Counts an occupancy stream subscriber disconnected because it fell behind
+   */
+  public void countDroppedSubscriber() {
+    droppedSubscriberCounter.increment();
+  }
+
+  /**
+   * Counts a retried request answered with the outcome of the first one
+   */
+  public void countIdempotentReplay() {
+    idempotentReplayCounter.increment();
+  }
+
+  /**
+   * Counts completed parking records moved to the history table
+   *
+   * @param parkingRecords The number of archived parking records
+   */
+  public void countArchivedParkingRecords(int parkingRecords) {
+    archivedParkingRecordCounter.increment(parkingRecords);
+  }
+
+  /**
+   * Records a completed transport of a car
+   *
+   * @param operation        The operation the car was transported for
+   * @param durationInMillis The time from the submission of the transport to its completion
+   */
+  public void recordTransport(ParkingOperation operation, long durationInMillis) {
+    transportTimers.computeIfAbsent(operation, key -> Timer.builder("parking.transport.duration")
+            .description("Time from the submission of a transport of a car to its completion")
+            .tag("operation", operation.getTag())
+            .register(meterRegistry))
+        .record(durationInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Registers the gauge of the transports waiting for a lift, a shuttle or their car
+   *
+   * @param waitingTransports The number of waiting transports
+   */
+  public void registerWaitingTransportGauge(Supplier<Number> waitingTransports) {
+    Gauge.builder("parking.transport.waiting", waitingTransports)
+        .description("Transports of cars waiting for a lift, a shuttle or their car")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Registers the gauges of the floors currently in the lot state. Gauges of floors which are
+   * already registered are kept, and floors which do not exist anymore report no parking spaces and
+   * a NaN weight.
+   */
+  public void registerFloorGauges() {
+    for (var floorNumber : parkingSpaceAllocator.getFloorNumbers()) {
+      var floorTag = String.valueOf(floorNumber);
+      Gauge.builder("parking.floor.parking.spaces.free", parkingSpaceAllocator,
+              allocator -> allocator.countFreeParkingSpaces(floorNumber))
+          .description("Free parking spaces on a floor")
+          .tag("floor", floorTag)
+          .register(meterRegistry);
+      Gauge.builder("parking.floor.parking.spaces.occupied", parkingSpaceAllocator,
+              allocator -> allocator.countParkingSpaces(floorNumber)
+                  - allocator.countFreeParkingSpaces(floorNumber))
+          .description("Occupied parking spaces on a floor")
+          .tag("floor", floorTag)
+          .register(meterRegistry);
+      Gauge.builder("parking.floor.allowed.weight", floorIndex, index -> {
+            var allowedWeight = index.getAllowedWeight(floorNumber);
+            return Objects.isNull(allowedWeight) ? Double.NaN : allowedWeight.doubleValue();
+          })
+          .description("Remaining weight a floor can carry")
+          .tag("floor", floorTag)
+          .register(meterRegistry);
+    }
+  }
+
+  private Timer getTimer(ParkingOperation operation, ParkingPhase phase) {
+    return timers.computeIfAbsent(operation, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(phase, key -> Timer.builder("parking.phase.duration")
+            .description("Time spent in a phase of parking or pulling out cars")
+            .tag("operation", operation.getTag())
+            .tag("phase", phase.getTag())
+            .register(meterRegistry));
+  }
+
+}
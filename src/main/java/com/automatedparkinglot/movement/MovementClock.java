@@ -0,0 +1,25 @@
+package com.automatedparkinglot.movement;
+
+/**
+ * The time of the {@link TransportSystem}: the movements of lifts and shuttles are timed by it, in
+ * the milliseconds of the physical system. It runs in real time (possibly scaled) in the
+ * application, and in virtual time in a simulation.
+ */
+public interface MovementClock {
+
+  /**
+   * Gets the current time
+   *
+   * @return The current time in milliseconds
+   */
+  long now();
+
+  /**
+   * Runs an action once a movement is over
+   *
+   * @param action        The action, e.g. handing a car over to the next lift or shuttle
+   * @param delayInMillis The duration of the movement in milliseconds
+   */
+  void schedule(Runnable action, long delayInMillis);
+
+}
@@ -0,0 +1,179 @@
+package com.automatedparkinglot.movement;
+
+import com.automatedparkinglot.dtos.TransportTaskResult;
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.automatedparkinglot.services.ParkingEventLog;
+import com.automatedparkinglot.util.TransactionHooks;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedules the transports of the cars parked and pulled out on the lifts and shuttles of the
+ * {@link TransportSystem}, so parking and pull-out requests return as soon as the lot state is
+ * updated, with the ID of the transport task, instead of waiting for the cars to be moved.
+ * <p>
+ * A task is submitted once the transaction of its request is committed, and its progress can be
+ * followed by its ID until a while after it is completed. Completed transports are written to the
+ * event log and timed in the parking.transport.duration metric.
+ * <p>
+ * The movements run in real time, multiplied by the (positive) time scale, on a single timer
+ * thread, e.g. a time scale of 0.01 moves the cars a hundred times faster.
+ */
+@Component
+public class MovementScheduler {
+
+  private final ParkingEventLog parkingEventLog;
+  private final ParkingMetrics parkingMetrics;
+  private final double timeScale;
+  private final long completedTaskRetentionInMillis;
+  private final long startInNanos = System.nanoTime();
+  private final AtomicLong taskIds = new AtomicLong();
+  private final Map<Long, TransportTask> tasksById = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService timer;
+  private final TransportSystem transportSystem;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param parkingEventLog                A {@link ParkingEventLog} instance
+   * @param parkingMetrics                 A {@link ParkingMetrics} instance
+   * @param lifts                          The number of lifts
+   * @param shuttlesPerFloor               The number of shuttles on every floor
+   * @param liftMillisPerFloor             The time a lift takes to travel one floor
+   * @param liftTransferMillis             The time a car takes to be loaded onto or unloaded from
+   *                                       a lift
+   * @param shuttleMillis                  The time a shuttle takes to carry a car between the lift
+   *                                       landing and a parking space
+   * @param timeScale                      The real time of a millisecond of the movements
+   * @param completedTaskRetentionInMillis How long a completed task can still be looked up
+   */
+  @Autowired
+  public MovementScheduler(ParkingEventLog parkingEventLog, ParkingMetrics parkingMetrics,
+      @Value("${automated-parking-lot.movement.lifts:2}") int lifts,
+      @Value("${automated-parking-lot.movement.shuttles-per-floor:1}") int shuttlesPerFloor,
+      @Value("${automated-parking-lot.movement.lift-ms-per-floor:3000}") long liftMillisPerFloor,
+      @Value("${automated-parking-lot.movement.lift-transfer-ms:10000}") long liftTransferMillis,
+      @Value("${automated-parking-lot.movement.shuttle-ms:30000}") long shuttleMillis,
+      @Value("${automated-parking-lot.movement.time-scale:1.0}") double timeScale,
+      @Value("${automated-parking-lot.movement.completed-task-retention-ms:600000}")
+          long completedTaskRetentionInMillis) {
+    this.parkingEventLog = parkingEventLog;
+    this.parkingMetrics = parkingMetrics;
+    this.timeScale = timeScale;
+    this.completedTaskRetentionInMillis = completedTaskRetentionInMillis;
+    this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var timerThread = new Thread(runnable, "movement-scheduler");
+      timerThread.setDaemon(true);
+      return timerThread;
+    });
+    this.transportSystem = new TransportSystem(lifts, shuttlesPerFloor,
+        new TransportTimings(liftMillisPerFloor, liftTransferMillis, shuttleMillis),
+        new MovementClock() {
+          @Override
+          public long now() {
+            return Math.round(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startInNanos)
+                / timeScale);
+          }
+
+          @Override
+          public void schedule(Runnable action, long delayInMillis) {
+            timer.schedule(action, Math.round(delayInMillis * timeScale * 1000),
+                TimeUnit.MICROSECONDS);
+          }
+        }, this::onCompleted);
+    parkingMetrics.registerWaitingTransportGauge(transportSystem::countWaitingTasks);
+  }
+
+  @PreDestroy
+  public void stop() {
+    timer.shutdownNow();
+  }
+
+  /**
+   * Schedules the transport of a car once the current transaction is committed
+   *
+   * @param operation      {@link ParkingOperation#PARK} or {@link ParkingOperation#PULL_OUT}
+   * @param carId          The ID of the car
+   * @param floor          The ordinal number of the floor of the parking space
+   * @param parkingSpaceId The ID of the parking space
+   * @return The transport task, waiting for the commit
+   */
+  public TransportTaskResult scheduleTransport(ParkingOperation operation, String carId,
+      Integer floor, Long parkingSpaceId) {
+    var task = new TransportTask(taskIds.incrementAndGet(), operation, carId, floor,
+        parkingSpaceId);
+    TransactionHooks.runAfterCommit(() -> {
+      tasksById.put(task.getId(), task);
+      transportSystem.submit(task);
+    });
+    return this.toResult(task);
+  }
+
+  /**
+   * Gets the progress of a transport task
+   *
+   * @param taskId The ID of the task
+   * @return The task
+   */
+  public TransportTaskResult getTransportTask(long taskId) {
+    var task = tasksById.get(taskId);
+    if (Objects.isNull(task)) {
+      throw AutomatedParkingException.of(
+          AutomatedParkingExceptionCode.NO_TRANSPORT_TASK_WITH_THIS_ID);
+    }
+    return this.toResult(task);
+  }
+
+  /**
+   * Waits until a transport task is completed
+   *
+   * @param taskId          The ID of the task
+   * @param timeoutInMillis The maximum time to wait
+   * @return Whether the task was completed in time
+   * @throws InterruptedException If the thread is interrupted while waiting
+   */
+  public boolean awaitTransportCompleted(long taskId, long timeoutInMillis)
+      throws InterruptedException {
+    var task = tasksById.get(taskId);
+    if (Objects.isNull(task)) {
+      throw AutomatedParkingException.of(
+          AutomatedParkingExceptionCode.NO_TRANSPORT_TASK_WITH_THIS_ID);
+    }
+    return task.awaitCompleted(timeoutInMillis);
+  }
+
+  private void onCompleted(TransportTask task) {
+    if (task.isPullOut()) {
+      parkingEventLog.carDelivered(task.getCarId());
+    } else {
+      parkingEventLog.carStored(task.getCarId(), task.getParkingSpaceId(), task.getFloor());
+    }
+    parkingMetrics.recordTransport(task.getOperation(), task.getDurationInMillis());
+    timer.schedule(() -> tasksById.remove(task.getId()),
+        completedTaskRetentionInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private TransportTaskResult toResult(TransportTask task) {
+    var transportTaskResult = new TransportTaskResult();
+    transportTaskResult.setTaskId(task.getId());
+    transportTaskResult.setOperation(task.getOperation().getTag());
+    transportTaskResult.setCarId(task.getCarId());
+    transportTaskResult.setFloor(task.getFloor());
+    transportTaskResult.setParkingSpaceId(task.getParkingSpaceId());
+    transportTaskResult.setStage(task.getStage());
+    return transportTaskResult;
+  }
+
+}
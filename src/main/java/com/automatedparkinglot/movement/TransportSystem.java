@@ -0,0 +1,217 @@
+package com.automatedparkinglot.movement;
+
+import com.automatedparkinglot.enums.TransportStage;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * A model of the physical system moving the cars: lifts shared by all floors, carrying cars between
+ * the entrance/exit level and the floors, and shuttles on every floor, carrying cars between the
+ * lift landing and the parking spaces.
+ * <p>
+ * Transports are queued for the lifts and for the shuttles of every floor, and pull-outs always go
+ * before parkings, since a leaving driver is waiting at the exit while an arriving car already
+ * stands in the entrance bay. Tasks of the same priority go in order of submission. The movements
+ * are pipelined: a lift is released as soon as it has left its car on the landing, so it carries
+ * the next car while the shuttle is still storing the previous one, and a free lift is sent to the
+ * next car from the level it stopped at, the closest one being chosen if several lifts are free.
+ * <p>
+ * A car is transported once at a time: a pull-out of a car still being parked waits for the end of
+ * the parking, and so on. All methods take the lock of the system, and the completion listener is
+ * called under the lock, so it must not block.
+ */
+public class TransportSystem {
+
+  private static final int ENTRANCE_LEVEL = 0;
+  private static final Comparator<TransportTask> PRIORITY = Comparator
+      .comparing((TransportTask task) -> !task.isPullOut())
+      .thenComparingLong(TransportTask::getId);
+
+  private final TransportTimings timings;
+  private final MovementClock clock;
+  private final Consumer<TransportTask> completionListener;
+  private final int shuttlesPerFloor;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final int[] liftLevels;
+  private final boolean[] liftsBusy;
+  private final Queue<TransportTask> liftQueue = new PriorityQueue<>(PRIORITY);
+  private final Map<Integer, Queue<TransportTask>> shuttleQueuesByFloor = new HashMap<>();
+  private final Map<Integer, Integer> freeShuttlesByFloor = new HashMap<>();
+  private final Map<String, TransportTask> activeTasksByCarId = new HashMap<>();
+  private final Map<String, Queue<TransportTask>> heldTasksByCarId = new HashMap<>();
+  private int waitingTasks;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param lifts              The number of lifts
+   * @param shuttlesPerFloor   The number of shuttles on every floor
+   * @param timings            The durations of the movements
+   * @param clock              The clock timing the movements
+   * @param completionListener Called with every completed transport
+   */
+  public TransportSystem(int lifts, int shuttlesPerFloor, TransportTimings timings,
+      MovementClock clock, Consumer<TransportTask> completionListener) {
+    this.timings = timings;
+    this.clock = clock;
+    this.completionListener = completionListener;
+    this.shuttlesPerFloor = shuttlesPerFloor;
+    this.liftLevels = new int[lifts];
+    this.liftsBusy = new boolean[lifts];
+  }
+
+  /**
+   * Queues the transport of a car
+   *
+   * @param task The transport task
+   */
+  public void submit(TransportTask task) {
+    lock.lock();
+    try {
+      task.setSubmittedAt(clock.now());
+      waitingTasks++;
+      if (activeTasksByCarId.containsKey(task.getCarId())) {
+        heldTasksByCarId.computeIfAbsent(task.getCarId(), carId -> new ArrayDeque<>()).add(task);
+        return;
+      }
+      this.start(task);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Counts the transports waiting for a lift, a shuttle or their car
+   *
+   * @return The number of waiting transports
+   */
+  public int countWaitingTasks() {
+    lock.lock();
+    try {
+      return waitingTasks;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void start(TransportTask task) {
+    activeTasksByCarId.put(task.getCarId(), task);
+    if (task.isPullOut()) {
+      this.queueForShuttle(task);
+    } else {
+      this.queueForLift(task);
+    }
+  }
+
+  private void queueForLift(TransportTask task) {
+    task.setStage(TransportStage.WAITING_FOR_LIFT);
+    liftQueue.add(task);
+    this.dispatchLifts();
+  }
+
+  private void dispatchLifts() {
+    while (!liftQueue.isEmpty()) {
+      var task = liftQueue.peek();
+      var fromLevel = task.isPullOut() ? task.getFloor() : ENTRANCE_LEVEL;
+      var lift = this.findClosestFreeLift(fromLevel);
+      if (lift < 0) {
+        return;
+      }
+      liftQueue.poll();
+      waitingTasks--;
+      var toLevel = task.isPullOut() ? ENTRANCE_LEVEL : task.getFloor();
+      var duration = Math.abs(liftLevels[lift] - fromLevel) * timings.getLiftMillisPerFloor()
+          + Math.abs(toLevel - fromLevel) * timings.getLiftMillisPerFloor()
+          + 2 * timings.getLiftTransferMillis();
+      liftsBusy[lift] = true;
+      task.setStage(TransportStage.ON_LIFT);
+      clock.schedule(() -> this.leaveLift(lift, toLevel, task), duration);
+    }
+  }
+
+  private int findClosestFreeLift(int level) {
+    var closestLift = -1;
+    for (int lift = 0; lift < liftLevels.length; lift++) {
+      if (!liftsBusy[lift] && (closestLift < 0
+          || Math.abs(liftLevels[lift] - level) < Math.abs(liftLevels[closestLift] - level))) {
+        closestLift = lift;
+      }
+    }
+    return closestLift;
+  }
+
+  private void leaveLift(int lift, int level, TransportTask task) {
+    lock.lock();
+    try {
+      liftLevels[lift] = level;
+      liftsBusy[lift] = false;
+      if (task.isPullOut()) {
+        this.complete(task);
+      } else {
+        waitingTasks++;
+        this.queueForShuttle(task);
+      }
+      this.dispatchLifts();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void queueForShuttle(TransportTask task) {
+    task.setStage(TransportStage.WAITING_FOR_SHUTTLE);
+    shuttleQueuesByFloor.computeIfAbsent(task.getFloor(), floor -> new PriorityQueue<>(PRIORITY))
+        .add(task);
+    this.dispatchShuttles(task.getFloor());
+  }
+
+  private void dispatchShuttles(Integer floor) {
+    var shuttleQueue = shuttleQueuesByFloor.get(floor);
+    var freeShuttles = freeShuttlesByFloor.getOrDefault(floor, shuttlesPerFloor);
+    while (freeShuttles > 0 && Objects.nonNull(shuttleQueue) && !shuttleQueue.isEmpty()) {
+      var task = shuttleQueue.poll();
+      waitingTasks--;
+      freeShuttles--;
+      task.setStage(TransportStage.ON_SHUTTLE);
+      clock.schedule(() -> this.leaveShuttle(task), timings.getShuttleMillis());
+    }
+    freeShuttlesByFloor.put(floor, freeShuttles);
+  }
+
+  private void leaveShuttle(TransportTask task) {
+    lock.lock();
+    try {
+      freeShuttlesByFloor.merge(task.getFloor(), 1, Integer::sum);
+      if (task.isPullOut()) {
+        waitingTasks++;
+        this.queueForLift(task);
+      } else {
+        this.complete(task);
+      }
+      this.dispatchShuttles(task.getFloor());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void complete(TransportTask task) {
+    task.setCompletedAt(clock.now());
+    task.setStage(TransportStage.COMPLETED);
+    activeTasksByCarId.remove(task.getCarId());
+    completionListener.accept(task);
+    var heldTasks = heldTasksByCarId.get(task.getCarId());
+    if (Objects.nonNull(heldTasks)) {
+      this.start(heldTasks.poll());
+      if (heldTasks.isEmpty()) {
+        heldTasksByCarId.remove(task.getCarId());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.automatedparkinglot.movement;
+
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.enums.TransportStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * The transport of a car into its parking space ({@link ParkingOperation#PARK}) or out of the lot
+ * ({@link ParkingOperation#PULL_OUT}), moved through its stages by the {@link TransportSystem}
+ * (The entrance and the exit of the lot are on level 0, and the floors on the levels of their
+ * numbers.)
+ */
+@Getter
+public class TransportTask {
+
+  private final long id;
+  private final ParkingOperation operation;
+  private final String carId;
+  private final Integer floor;
+  private final Long parkingSpaceId;
+  private volatile TransportStage stage = TransportStage.QUEUED;
+  private volatile long submittedAt;
+  private volatile long completedAt;
+  @Getter(AccessLevel.NONE)
+  private final CountDownLatch completion = new CountDownLatch(1);
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param id             The ID of the task, which also orders the tasks of the same priority
+   * @param operation      {@link ParkingOperation#PARK} or {@link ParkingOperation#PULL_OUT}
+   * @param carId          The ID of the car
+   * @param floor          The ordinal number of the floor of the parking space
+   * @param parkingSpaceId The ID of the parking space
+   */
+  public TransportTask(long id, ParkingOperation operation, String carId, Integer floor,
+      Long parkingSpaceId) {
+    this.id = id;
+    this.operation = operation;
+    this.carId = carId;
+    this.floor = floor;
+    this.parkingSpaceId = parkingSpaceId;
+  }
+
+  /**
+   * Checks whether the car is being pulled out, which goes before cars being parked
+   *
+   * @return Whether the car is being pulled out
+   */
+  public boolean isPullOut() {
+    return operation == ParkingOperation.PULL_OUT;
+  }
+
+  /**
+   * Gets the duration of the transport, including the time waiting for lifts and shuttles
+   *
+   * @return The duration in milliseconds, or -1 if the transport is not completed yet
+   */
+  public long getDurationInMillis() {
+    return stage == TransportStage.COMPLETED ? completedAt - submittedAt : -1;
+  }
+
+  /**
+   * Waits until the transport is completed
+   *
+   * @param timeoutInMillis The maximum time to wait
+   * @return Whether the transport was completed in time
+   * @throws InterruptedException If the thread is interrupted while waiting
+   */
+  public boolean awaitCompleted(long timeoutInMillis) throws InterruptedException {
+    return completion.await(timeoutInMillis, TimeUnit.MILLISECONDS);
+  }
+
+  void setStage(TransportStage stage) {
+    this.stage = stage;
+    if (stage == TransportStage.COMPLETED) {
+      completion.countDown();
+    }
+  }
+
+  void setSubmittedAt(long submittedAt) {
+    this.submittedAt = submittedAt;
+  }
+
+  void setCompletedAt(long completedAt) {
+    this.completedAt = completedAt;
+  }
+
+}
@@ -0,0 +1,19 @@
+package com.automatedparkinglot.movement;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The durations of the movements of lifts and shuttles, in milliseconds: a lift travelling one
+ * floor, a car being loaded onto or unloaded from a lift, and a shuttle carrying a car between the
+ * lift landing of its floor and a parking space (including loading and unloading it)
+ */
+@Getter
+@AllArgsConstructor
+public class TransportTimings {
+
+  private final long liftMillisPerFloor;
+  private final long liftTransferMillis;
+  private final long shuttleMillis;
+
+}
@@ -2,7 +2,7 @@ package com.automatedparkinglot.repositories;
 
 import com.automatedparkinglot.entities.Floor;
 import java.math.BigDecimal;
-import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -22,13 +22,26 @@ public interface FloorRepository extends CrudRepository<Floor, Long> {
   Floor findFloorByFloorNumber(Integer floorNumber);
 
   /**
-   * A query to find all parking lot floors that fit the specs of a car to be parked and contains available parking spaces
-   * @param carHeight The height of the car to be parked and for which a suitable floor is being searched
-   * @param carWeight The weight of the car to be parked and for which a suitable floor is being searched
-   * @return All parking lot floors meeting the requirements
+   * A query to subtract the weight of a car to be parked from the allowed weight of a floor only if
+   * the floor can still carry the car
+   * @param floorNumber The ordinal number of the floor from the ground
+   * @param carWeight The weight of the car to be parked
+   * @return The number of updated floors: 1 if the weight has been subtracted, otherwise 0
    */
-  @Query("SELECT f FROM Floor f "
-      + "WHERE f.number IN (SELECT ps.floor FROM ParkingSpace ps WHERE ps.occupyingCarId IS NULL) "
-      + "AND f.ceilingHeight >= :carHeight AND :carWeight <= f.allowedWeight")
-  List<Floor> findAllFittingAndAvailableFloors(BigDecimal carHeight, BigDecimal carWeight);
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Floor f SET f.allowedWeight = f.allowedWeight - :carWeight "
+      + "WHERE f.number = :floorNumber AND f.allowedWeight >= :carWeight")
+  int decreaseAllowedWeightIfSufficient(Integer floorNumber, BigDecimal carWeight);
+
+  /**
+   * A query to add the weight of a car that has left the lot to the allowed weight of a floor
+   * @param floorNumber The ordinal number of the floor from the ground
+   * @param carWeight The weight of the car that has left the lot
+   * @return The number of updated floors
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Floor f SET f.allowedWeight = f.allowedWeight + :carWeight "
+      + "WHERE f.number = :floorNumber")
+  int increaseAllowedWeight(Integer floorNumber, BigDecimal carWeight);
+
 }
@@ -1,6 +1,11 @@
 package com.automatedparkinglot.repositories;
 
 import com.automatedparkinglot.entities.ParkingRecord;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -17,7 +22,90 @@ public interface ParkingRecordRepository extends CrudRepository<ParkingRecord, L
    * @param carId The ID of the car which is still parking
    * @return The expected parking record
    */
-  @Query("SELECT pr FROM ParkingRecord pr WHERE pr.carId = :carId AND pr.status = 'PARKING_IN_PROGRESS'")
+  @Query("SELECT pr FROM ParkingRecord pr WHERE pr.carId = :carId "
+      + "AND pr.status = com.automatedparkinglot.enums.ParkingStatus.PARKING_IN_PROGRESS")
   ParkingRecord findOngoingParkingRecordByCarId(String carId);
 
+  /**
+   * A query to count the in-progress parking records of a car, e.g. to find out whether a car which
+   * has just been parked was parked by another request as well
+   *
+   * @param carId The ID of the car
+   * @return The number of in-progress parking records of the car
+   */
+  @Query("SELECT COUNT(pr) FROM ParkingRecord pr WHERE pr.carId = :carId "
+      + "AND pr.status = com.automatedparkinglot.enums.ParkingStatus.PARKING_IN_PROGRESS")
+  long countOngoingParkingRecordsByCarId(String carId);
+
+  /**
+   * A query to list where all parked cars are without loading the parking records as entities
+   *
+   * @return Summaries of the in-progress parking records
+   */
+  @Query("SELECT pr.id AS id, pr.carId AS carId, pr.carWeight AS carWeight, pr.floor AS floor, "
+      + "pr.parkingSpaceId AS parkingSpaceId FROM ParkingRecord pr "
+      + "WHERE pr.status = com.automatedparkinglot.enums.ParkingStatus.PARKING_IN_PROGRESS")
+  List<OngoingParkingRecordSummary> findOngoingParkingRecordSummaries();
+
+  /**
+   * A query to complete an in-progress parking record by its ID
+   *
+   * @param id                The ID of the parking record
+   * @param emptyingTimestamp When the car was pulled out
+   * @return The number of updated parking records: 1 if the parking record has been completed,
+   * otherwise 0
+   */
+  @Modifying
+  @Query("UPDATE ParkingRecord pr "
+      + "SET pr.status = com.automatedparkinglot.enums.ParkingStatus.PARKING_OVER, "
+      + "pr.emptyingTimestamp = :emptyingTimestamp WHERE pr.id = :id "
+      + "AND pr.status = com.automatedparkinglot.enums.ParkingStatus.PARKING_IN_PROGRESS")
+  int completeParkingRecord(Long id, LocalDateTime emptyingTimestamp);
+
+  /**
+   * A query to find the IDs of completed parking records whose bills have not been saved yet
+   *
+   * @return The IDs of the parking records waiting for a bill
+   */
+  @Query("SELECT pr.id FROM ParkingRecord pr "
+      + "WHERE pr.status = com.automatedparkinglot.enums.ParkingStatus.PARKING_OVER "
+      + "AND pr.billed = false")
+  List<Long> findUnbilledParkingRecordIds();
+
+  /**
+   * A query to load the given completed parking records whose bills have not been saved yet
+   *
+   * @param ids The IDs of the parking records
+   * @return The parking records among the given ones still waiting for a bill
+   */
+  @Query("SELECT pr FROM ParkingRecord pr "
+      + "WHERE pr.id IN :ids "
+      + "AND pr.status = com.automatedparkinglot.enums.ParkingStatus.PARKING_OVER "
+      + "AND pr.billed = false")
+  List<ParkingRecord> findUnbilledParkingRecordsByIds(Collection<Long> ids);
+
+  /**
+   * A query to mark parking records as billed
+   *
+   * @param ids The IDs of the parking records whose bills have been saved
+   */
+  @Modifying
+  @Query("UPDATE ParkingRecord pr SET pr.billed = true WHERE pr.id IN :ids")
+  void markParkingRecordsAsBilled(Collection<Long> ids);
+
+  /**
+   * A projection of an in-progress parking record without its entity state
+   */
+  interface OngoingParkingRecordSummary {
+
+    Long getId();
+
+    String getCarId();
+
+    BigDecimal getCarWeight();
+
+    Integer getFloor();
+
+    Long getParkingSpaceId();
+  }
 }
@@ -1,7 +1,11 @@
 package com.automatedparkinglot.repositories;
 
 import com.automatedparkinglot.entities.ParkingSpace;
+import java.util.Collection;
 import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -28,4 +32,91 @@ public interface ParkingSpaceRepository extends CrudRepository<ParkingSpace, Lon
   @Query("SELECT ps FROM ParkingSpace ps WHERE ps.occupyingCarId = :occupyingCarId")
   ParkingSpace findParkingSpaceByOccupyingCarId(String occupyingCarId);
 
+  /**
+   * A query to find which of the given cars are already parked in the lot
+   *
+   * @param carIds The IDs of the cars to be checked
+   * @return The IDs of the cars occupying a parking space
+   */
+  @Query("SELECT ps.occupyingCarId FROM ParkingSpace ps WHERE ps.occupyingCarId IN :carIds")
+  List<String> findOccupyingCarIdsAmong(Collection<String> carIds);
+
+  /**
+   * A query to count available (not occupied) parking spaces on each floor
+   *
+   * @return The number of available parking spaces per floor (floors without any available parking
+   * space are left out)
+   */
+  @Query("SELECT ps.floor AS floorNumber, COUNT(ps.id) AS numberOfParkingSpaces FROM ParkingSpace ps "
+      + "WHERE ps.occupyingCarId IS NULL GROUP BY ps.floor")
+  List<FloorParkingSpaceCount> countAvailableParkingSpacesPerFloor();
+
+  /**
+   * A query to count all parking spaces on each floor
+   *
+   * @return The number of parking spaces per floor (floors without any parking space are left out)
+   */
+  @Query("SELECT ps.floor AS floorNumber, COUNT(ps.id) AS numberOfParkingSpaces FROM ParkingSpace ps "
+      + "GROUP BY ps.floor")
+  List<FloorParkingSpaceCount> countParkingSpacesPerFloor();
+
+  /**
+   * A query to list the ID, the floor, and the occupying car of all parking spaces without loading
+   * them as entities
+   *
+   * @return Summaries of all parking spaces ordered by floor and ID
+   */
+  @Query("SELECT NEW "
+      + "com.automatedparkinglot.repositories.ParkingSpaceRepository$ParkingSpaceSummary("
+      + "ps.id, ps.floor, ps.occupyingCarId) FROM ParkingSpace ps ORDER BY ps.floor, ps.id")
+  List<ParkingSpaceSummary> findAllParkingSpaceSummaries();
+
+  /**
+   * A query to assign a car to a parking space only if the parking space is still empty
+   *
+   * @param parkingSpaceId The ID of the parking space to be occupied
+   * @param carId          The ID of the car to be parked
+   * @return The number of updated parking spaces: 1 if the car has been assigned, otherwise 0
+   */
+  @Modifying
+  @Query("UPDATE ParkingSpace ps SET ps.occupyingCarId = :carId "
+      + "WHERE ps.id = :parkingSpaceId AND ps.occupyingCarId IS NULL")
+  int occupyParkingSpaceIfEmpty(Long parkingSpaceId, String carId);
+
+  /**
+   * A query to empty a parking space only if it is still occupied by the given car
+   *
+   * @param parkingSpaceId The ID of the parking space to be emptied
+   * @param carId          The ID of the car leaving the parking space
+   * @return The number of updated parking spaces: 1 if the parking space has been emptied,
+   * otherwise 0
+   */
+  @Modifying
+  @Query("UPDATE ParkingSpace ps SET ps.occupyingCarId = NULL "
+      + "WHERE ps.id = :parkingSpaceId AND ps.occupyingCarId = :carId")
+  int vacateParkingSpaceIfOccupiedBy(Long parkingSpaceId, String carId);
+
+  /**
+   * A projection of the number of parking spaces on a floor
+   */
+  interface FloorParkingSpaceCount {
+
+    Integer getFloorNumber();
+
+    Long getNumberOfParkingSpaces();
+  }
+
+
+  /**
+   * A projection of a parking space without its entity state. Unlike an interface projection, it
+   * is constructed directly by the query, without a proxy per row, as lots have 100k+ of them.
+   */
+  @Getter
+  @AllArgsConstructor
+  class ParkingSpaceSummary {
+
+    private final Long id;
+    private final Integer floor;
+    private final String occupyingCarId;
+  }
 }
@@ -1,16 +1,39 @@
 package com.automatedparkinglot.services;
 
 import com.automatedparkinglot.dtos.ParkingRequest;
+import com.automatedparkinglot.dtos.ParkingResult;
+import com.automatedparkinglot.dtos.ReservationResult;
+import com.automatedparkinglot.dtos.TransportTaskResult;
+import com.automatedparkinglot.entities.Floor;
 import com.automatedparkinglot.entities.ParkingRecord;
+import com.automatedparkinglot.entities.ParkingSpace;
 import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.enums.ParkingPhase;
 import com.automatedparkinglot.enums.ParkingStatus;
 import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.journal.ParkingJournal;
+import com.automatedparkinglot.lotstate.CarLocation;
+import com.automatedparkinglot.lotstate.CarLocationCache;
+import com.automatedparkinglot.lotstate.Reservation;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.automatedparkinglot.movement.MovementScheduler;
 import com.automatedparkinglot.repositories.ParkingRecordRepository;
-import com.automatedparkinglot.util.PlaceholderPrinter;
+import com.automatedparkinglot.util.TransactionHooks;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import javax.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -22,7 +45,14 @@ public class AutomatedParkingService {
   private final ParkingRecordRepository parkingRecordRepository;
   private final FloorService floorService;
   private final ParkingSpaceService parkingSpaceService;
-  private final BillService billService;
+  private final BillWriter billWriter;
+  private final ParkingMetrics parkingMetrics;
+  private final ParkingEventLog parkingEventLog;
+  private final CarLocationCache carLocationCache;
+  private final ParkingJournal parkingJournal;
+  private final ReservationService reservationService;
+  private final MovementScheduler movementScheduler;
+  private final int maxBatchSize;
 
   /**
    * An overloaded constructor of the class
@@ -30,91 +60,500 @@ public class AutomatedParkingService {
    * @param parkingRecordRepository A {@link ParkingRecordRepository} instance
    * @param floorService            A {@link FloorService} instance
    * @param parkingSpaceService     A {@link ParkingSpaceService} instance
-   * @param billService             A {@link BillService} instance
+   * @param billWriter              A {@link BillWriter} instance
+   * @param parkingMetrics          A {@link ParkingMetrics} instance
+   * @param parkingEventLog         A {@link ParkingEventLog} instance
+   * @param carLocationCache        A {@link CarLocationCache} instance
+   * @param parkingJournal          A {@link ParkingJournal} instance
+   * @param reservationService      A {@link ReservationService} instance
+   * @param movementScheduler       A {@link MovementScheduler} instance
+   * @param maxBatchSize            The maximum number of parking requests in a batch
    */
   @Autowired
   public AutomatedParkingService(ParkingRecordRepository parkingRecordRepository,
       FloorService floorService,
-      ParkingSpaceService parkingSpaceService, BillService billService) {
+      ParkingSpaceService parkingSpaceService, BillWriter billWriter,
+      ParkingMetrics parkingMetrics, ParkingEventLog parkingEventLog,
+      CarLocationCache carLocationCache, ParkingJournal parkingJournal,
+      ReservationService reservationService, MovementScheduler movementScheduler,
+      @Value("${automated-parking-lot.batch.max-size:100}") int maxBatchSize) {
     this.parkingRecordRepository = parkingRecordRepository;
     this.floorService = floorService;
     this.parkingSpaceService = parkingSpaceService;
-    this.billService = billService;
+    this.billWriter = billWriter;
+    this.parkingMetrics = parkingMetrics;
+    this.parkingEventLog = parkingEventLog;
+    this.carLocationCache = carLocationCache;
+    this.parkingJournal = parkingJournal;
+    this.reservationService = reservationService;
+    this.movementScheduler = movementScheduler;
+    this.maxBatchSize = maxBatchSize;
   }
 
   /**
-   * Processes parking requests to try to park a car entering the lot
+   * Processes parking requests to try to park a car entering the lot. A car with a reservation is
+   * parked in its reserved parking space. The car is transported there by the lifts and shuttles
+   * after the request is committed.
    *
    * @param parkingRequest Parking request to transfer information of a car to be parked
+   * @return The task transporting the car into its parking space
    */
   @Transactional
-  public void parkCarInAParkingSpace(ParkingRequest parkingRequest) {
-    this.validateParkingRequest(parkingRequest);
+  public TransportTaskResult parkCarInAParkingSpace(ParkingRequest parkingRequest) {
+    var reservation = parkingMetrics.time(ParkingOperation.PARK, ParkingPhase.VALIDATION, () -> {
+      this.validateParkingRequest(parkingRequest);
+      return reservationService.claimReservation(parkingRequest);
+    });
+    var parkingRecord = Objects.nonNull(reservation)
+        ? this.parkReservedCar(parkingRequest, reservation, ParkingOperation.PARK)
+        : this.parkValidatedCar(parkingRequest, ParkingOperation.PARK);
+    return movementScheduler.scheduleTransport(ParkingOperation.PARK, parkingRecord.getCarId(),
+        parkingRecord.getFloor(), parkingRecord.getParkingSpaceId());
+  }
 
-    PlaceholderPrinter.printMovementInformation(
-        String.format("The car %s is being transported to the parking lot.",
-            parkingRequest.getCarId()));
+  /**
+   * Reserves a parking space for a car which has not arrived yet. The best floor and a parking space
+   * on it are chosen and taken as if the car were parked, and held until the car arrives or the
+   * reservation expires.
+   *
+   * @param parkingRequest Parking request to transfer information of the car to be expected
+   * @return The reservation
+   */
+  @Transactional
+  public ReservationResult reserveParkingSpace(ParkingRequest parkingRequest) {
+    parkingMetrics.time(ParkingOperation.RESERVE, ParkingPhase.VALIDATION, () -> {
+      if (reservationService.isReserved(parkingRequest.getCarId())) {
+        throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_RESERVED);
+      }
+      this.validateParkingRequest(parkingRequest);
+    });
+    var assignment = this.assignParkingSpace(parkingRequest, ParkingOperation.RESERVE);
+    var reservation = new Reservation(parkingRequest.getCarId(), parkingRequest.getCarHeight(),
+        parkingRequest.getCarWeight(), assignment.getFloor(), assignment.getParkingSpaceId(),
+        assignment.getAllowedWeightOnFloorBeforeParking(),
+        reservationService.calculateExpiryTime());
+    reservationService.register(reservation);
 
-    // First, find the best floor for the car
-    var floor = floorService.findBestFloorForCar(parkingRequest.getCarHeight(),
-        parkingRequest.getCarWeight());
+    var reservationResult = new ReservationResult();
+    reservationResult.setCarId(reservation.getCarId());
+    reservationResult.setFloor(reservation.getFloor());
+    reservationResult.setParkingSpaceId(reservation.getParkingSpaceId());
+    reservationResult.setExpiresAt(Instant.ofEpochMilli(reservation.getExpiresAtInMillis()));
+    return reservationResult;
+  }
 
-    // Second, find a parking space on the floor and assign the car to it
-    var parkingSpace = parkingSpaceService.parkCarInAFreeParkingSpace(floor.getNumber(),
-        parkingRequest.getCarId());
+  /**
+   * Processes a batch of parking requests, e.g. cars queued at a gate, in a single transaction.
+   * Floors and parking spaces are assigned to all cars in one pass, the weight of each floor is
+   * updated once, and parking records are saved together. A car which cannot be parked does not
+   * prevent the others from being parked, but a batch with a missing parking request or with more
+   * parking requests than the maximum batch size is rejected as a whole.
+   *
+   * @param parkingRequests Parking requests of the cars to be parked, in order of arrival
+   * @return The outcome of every parking request in the same order
+   */
+  @Transactional
+  public List<ParkingResult> parkCarsInParkingSpaces(List<ParkingRequest> parkingRequests) {
+    if (parkingRequests.size() > maxBatchSize) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.BATCH_TOO_LARGE);
+    }
+    if (parkingRequests.stream().anyMatch(Objects::isNull)) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.PARKING_REQUEST_MISSING);
+    }
+    var parkingResults = new ArrayList<ParkingResult>(parkingRequests.size());
+    var parkingRecords = new ParkingRecord[parkingRequests.size()];
+    var parkingSpaces = new ParkingSpace[parkingRequests.size()];
+    // The floors of the cars assigned together are updated in ascending order of their numbers, so
+    // concurrent batches lock these floor rows in the same order. Reserved cars, and cars parked
+    // one by one after their floor could not carry them all, may lock a floor out of this order, in
+    // which case a deadlock is broken by the database by rolling back one of the batches.
+    var parkingsByFloorNumber = new TreeMap<Integer, List<Integer>>();
+    var parkingIndexesToRetry = new ArrayList<Integer>();
 
-    PlaceholderPrinter.printMovementInformation(
-        String.format(
-            "The automated parking lot system assigned the car %s to the parking space %s on the floor %s.",
-            parkingRequest.getCarId(), parkingSpace.getId(), floor.getNumber()));
+    // Check all cars against the parked ones at once
+    var carIdsInBatch = new HashSet<String>();
+    var parkedCarIds = parkingMetrics.time(ParkingOperation.BATCH_PARK, ParkingPhase.VALIDATION,
+        () -> this.findParkedCars(parkingRequests.stream()
+            .map(ParkingRequest::getCarId).filter(Objects::nonNull).collect(Collectors.toSet())));
 
-    // Create a new parking record
-    var parkingRecord = new ParkingRecord();
-    parkingRecord.setCarId(parkingRequest.getCarId());
-    parkingRecord.setCarWeight(parkingRequest.getCarWeight());
-    parkingRecord.setCarHeight(parkingRequest.getCarHeight());
-    parkingRecord.setAllowedWeightOnFloorBeforeParking(floor.getAllowedWeight());
-    parkingRecord.setParkingTimestamp(LocalDateTime.now());
-    parkingRecord.setFloor(floor.getNumber());
-    parkingRecord.setParkingSpaceId(parkingSpace.getId());
-    parkingRecord.setStatus(ParkingStatus.PARKING_IN_PROGRESS.name());
-    parkingRecordRepository.save(parkingRecord);
+    // Plan the floors of the cars to be parked by the allocation strategy, all at once
+    var plannedFloorNumbers = parkingMetrics.time(ParkingOperation.BATCH_PARK,
+        ParkingPhase.FLOOR_SELECTION,
+        () -> floorService.planFloorsForCars(this.findCarsToPlan(parkingRequests, parkedCarIds)));
 
-    // Update floor weight
-    floorService.updateFloor(floor, parkingRequest.getCarWeight(), true);
+    // First, assign a floor and a parking space to every car, reserving floor weights in memory
+    for (int i = 0; i < parkingRequests.size(); i++) {
+      var parkingRequest = parkingRequests.get(i);
+      var parkingResult = new ParkingResult();
+      parkingResult.setCarId(parkingRequest.getCarId());
+      parkingResults.add(parkingResult);
+      try {
+        if (parkedCarIds.contains(parkingRequest.getCarId())) {
+          throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED);
+        }
+        this.validateMandatoryFields(parkingRequest);
+        if (!carIdsInBatch.add(parkingRequest.getCarId())) {
+          throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED);
+        }
+        var reservation = reservationService.claimReservation(parkingRequest);
+        if (Objects.nonNull(reservation)) {
+          // A pre-booked car goes straight to its reserved parking space
+          var parkingRecord = this.parkReservedCar(parkingRequest, reservation,
+              ParkingOperation.BATCH_PARK);
+          parkingResult.setFloor(parkingRecord.getFloor());
+          parkingResult.setParkingSpaceId(parkingRecord.getParkingSpaceId());
+          continue;
+        }
+        Integer floorNumber = null;
+        do {
+          // The planned floor is only tried first
+          var plannedFloorNumber = Objects.isNull(floorNumber) ? plannedFloorNumbers[i] : null;
+          floorNumber = parkingMetrics.time(ParkingOperation.BATCH_PARK,
+              ParkingPhase.FLOOR_SELECTION,
+              () -> floorService.reservePlannedFloorForCar(plannedFloorNumber,
+                  parkingRequest.getCarHeight(), parkingRequest.getCarWeight()));
+          var reservedFloorNumber = floorNumber;
+          parkingSpaces[i] = parkingMetrics.time(ParkingOperation.BATCH_PARK,
+              ParkingPhase.SPACE_ALLOCATION,
+              () -> parkingSpaceService.parkCarInAFreeParkingSpace(reservedFloorNumber,
+                  parkingRequest.getCarId()));
+          if (Objects.isNull(parkingSpaces[i])) {
+            // The floor turned out to be full, so try the next one
+            floorService.cancelFloorReservation(floorNumber, parkingRequest.getCarWeight());
+          }
+        } while (Objects.isNull(parkingSpaces[i]));
+        parkingRecords[i] = this.createParkingRecord(parkingRequest, floorNumber,
+            parkingSpaces[i].getId());
+        parkingsByFloorNumber.computeIfAbsent(floorNumber, number -> new ArrayList<>()).add(i);
+      } catch (AutomatedParkingException automatedParkingException) {
+        this.setError(parkingResult, automatedParkingException);
+      }
+    }
+
+    // Second, update the weight of each floor by a single statement
+    parkingsByFloorNumber.forEach((floorNumber, parkingIndexes) -> {
+      var totalCarWeight = parkingIndexes.stream()
+          .map(i -> parkingRecords[i].getCarWeight())
+          .reduce(BigDecimal.ZERO, BigDecimal::add);
+      var updatedFloor = parkingMetrics.time(ParkingOperation.BATCH_PARK,
+          ParkingPhase.FLOOR_UPDATE,
+          () -> floorService.updateFloorForReservedCars(floorNumber, totalCarWeight));
+      if (Objects.nonNull(updatedFloor)) {
+        var allowedWeight = updatedFloor.getAllowedWeight().add(totalCarWeight);
+        for (var i : parkingIndexes) {
+          parkingRecords[i].setAllowedWeightOnFloorBeforeParking(allowedWeight);
+          allowedWeight = allowedWeight.subtract(parkingRecords[i].getCarWeight());
+        }
+        return;
+      }
+      // The floor cannot carry all the cars (it was modified behind the index or by a concurrent
+      // request), so these cars are parked one by one once the other floors have been updated
+      for (var i : parkingIndexes) {
+        floorService.cancelFloorReservation(floorNumber, parkingRecords[i].getCarWeight());
+        parkingSpaceService.emptyParkingSpace(parkingSpaces[i]);
+        parkingRecords[i] = null;
+        parkingIndexesToRetry.add(i);
+      }
+    });
+    for (var i : parkingIndexesToRetry) {
+      try {
+        var parkingRecord = this.parkValidatedCar(parkingRequests.get(i),
+            ParkingOperation.BATCH_PARK);
+        parkingResults.get(i).setFloor(parkingRecord.getFloor());
+        parkingResults.get(i).setParkingSpaceId(parkingRecord.getParkingSpaceId());
+      } catch (AutomatedParkingException automatedParkingException) {
+        this.setError(parkingResults.get(i), automatedParkingException);
+      }
+    }
+
+    // Finally, save the parking records of the cars parked in the batch together
+    parkingMetrics.time(ParkingOperation.BATCH_PARK, ParkingPhase.RECORD_SAVE,
+        () -> parkingRecordRepository.saveAll(Arrays.stream(parkingRecords)
+            .filter(Objects::nonNull).collect(Collectors.toList())));
+    for (int i = 0; i < parkingRequests.size(); i++) {
+      if (Objects.nonNull(parkingRecords[i])) {
+        this.cacheCarLocation(parkingRecords[i]);
+        parkingJournal.journalParking(parkingRecords[i]);
+        parkingResults.get(i).setFloor(parkingRecords[i].getFloor());
+        parkingResults.get(i).setParkingSpaceId(parkingRecords[i].getParkingSpaceId());
+        parkingEventLog.carAssigned(parkingRecords[i].getCarId(),
+            parkingRecords[i].getParkingSpaceId(), parkingRecords[i].getFloor());
+      }
+    }
+    for (var parkingResult : parkingResults) {
+      if (Objects.nonNull(parkingResult.getParkingSpaceId())) {
+        parkingResult.setTransportTaskId(movementScheduler.scheduleTransport(
+            ParkingOperation.PARK, parkingResult.getCarId(), parkingResult.getFloor(),
+            parkingResult.getParkingSpaceId()).getTaskId());
+      }
+    }
+    return parkingResults;
   }
 
   /**
-   * Pulls a parking car out of the parking lot
+   * Pulls a parking car out of the parking lot. The car is transported to the exit by the shuttles
+   * and lifts after the request is committed.
    *
    * @param carId The ID of the car to be pulled out of the parking lot
+   * @return The task transporting the car to the exit
    */
   @Transactional
-  public void pullCarOutOfLotAndGenerateBill(String carId) {
-    if (Objects.isNull(parkingSpaceService.findParkingSpaceOccupiedByCar(carId))) {
-      throw new AutomatedParkingException(AutomatedParkingExceptionCode.NO_PARKED_CAR_WITH_THIS_ID);
+  public TransportTaskResult pullCarOutOfLotAndGenerateBill(String carId) {
+    var carLocation = parkingMetrics.time(ParkingOperation.PULL_OUT, ParkingPhase.VALIDATION,
+        () -> this.findCarLocation(carId));
+    if (Objects.isNull(carLocation)) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_PARKED_CAR_WITH_THIS_ID);
     }
 
-    PlaceholderPrinter.printMovementInformation(
-        "The car " + carId + " is being transported out of the parking lot.");
+    parkingEventLog.carLeaving(carId);
 
-    // Find corresponding parking record
-    var parkingRecord = parkingRecordRepository.findOngoingParkingRecordByCarId(carId);
+    // Update parking space (first, so that a car being pulled out concurrently is only released once)
+    parkingMetrics.time(ParkingOperation.PULL_OUT, ParkingPhase.SPACE_RELEASE, () -> {
+      try {
+        parkingSpaceService.emptyParkingSpace(carLocation.getFloor(),
+            carLocation.getParkingSpaceId(), carId);
+      } catch (AutomatedParkingException automatedParkingException) {
+        // The car has already left, e.g. it was removed behind the cache's back
+        carLocationCache.remove(carId, carLocation);
+        throw automatedParkingException;
+      }
+    });
+    carLocationCache.remove(carId, carLocation);
+    TransactionHooks.runOnRollback(() -> carLocationCache.putIfAbsent(carId, carLocation));
+
+    // Complete the parking record by its ID
+    var completedParkingRecords = parkingMetrics.time(ParkingOperation.PULL_OUT,
+        ParkingPhase.RECORD_SAVE, () -> parkingRecordRepository.completeParkingRecord(
+            carLocation.getParkingRecordId(), LocalDateTime.now()));
+    if (completedParkingRecords == 0) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_PARKED_CAR_WITH_THIS_ID);
+    }
 
     // Update floor weight
-    var floor = floorService.updateFloor(parkingRecord.getFloor(), parkingRecord.getCarWeight(),
-        false);
+    parkingMetrics.time(ParkingOperation.PULL_OUT, ParkingPhase.FLOOR_UPDATE,
+        () -> floorService.updateFloor(carLocation.getFloor(), carLocation.getCarWeight(),
+            false));
+
+    // Generate bill asynchronously (the parking record stays unbilled until the bill is saved)
+    parkingEventLog.parkingOver(carId, carLocation.getParkingSpaceId(), carLocation.getFloor());
+    parkingJournal.journalPullOut(carLocation.getParkingRecordId());
+    billWriter.submit(carLocation.getParkingRecordId());
+    return movementScheduler.scheduleTransport(ParkingOperation.PULL_OUT, carId,
+        carLocation.getFloor(), carLocation.getParkingSpaceId());
+  }
+
+  /**
+   * Finds where a parked car is, in the {@link CarLocationCache} or, if the cache does not hold
+   * all parked cars, in the database
+   *
+   * @param carId The ID of the car
+   * @return The location of the car, or null if the car is not parked
+   */
+  private CarLocation findCarLocation(String carId) {
+    var carLocation = carLocationCache.get(carId);
+    if (Objects.nonNull(carLocation) || carLocationCache.isComplete()) {
+      return carLocation;
+    }
+    var occupiedParkingSpace = parkingSpaceService.findParkingSpaceOccupiedByCar(carId);
+    if (Objects.isNull(occupiedParkingSpace)) {
+      return null;
+    }
+    var parkingRecord = parkingRecordRepository.findOngoingParkingRecordByCarId(carId);
+    if (Objects.isNull(parkingRecord)) {
+      return null;
+    }
+    return new CarLocation(occupiedParkingSpace.getFloor(), occupiedParkingSpace.getId(),
+        parkingRecord.getId(), parkingRecord.getCarWeight());
+  }
+
+  /**
+   * Finds which of the given cars are already parked, in the {@link CarLocationCache} or, if the
+   * cache does not hold all parked cars, also by a single query (Cars with a reservation are not
+   * parked.)
+   *
+   * @param carIds The IDs of the cars to be checked
+   * @return The IDs of the parked cars
+   */
+  private Set<String> findParkedCars(Set<String> carIds) {
+    if (!carLocationCache.isComplete()) {
+      // Reserved parking spaces are occupied by cars which are not parked yet
+      var parkedCarIds = new HashSet<>(parkingSpaceService.findParkedCars(carIds));
+      parkedCarIds.removeIf(reservationService::isReserved);
+      return parkedCarIds;
+    }
+    return carIds.stream().filter(carId -> Objects.nonNull(carLocationCache.get(carId)))
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Caches the location of a car which has just been parked, and drops it again if the parking is
+   * rolled back. While the cache is incomplete, the car is also held until the parking completes,
+   * and checked against the parking records committed by other requests.
+   *
+   * @param parkingRecord The saved parking record of the car
+   */
+  private void cacheCarLocation(ParkingRecord parkingRecord) {
+    var carId = parkingRecord.getCarId();
+    var carLocation = new CarLocation(parkingRecord.getFloor(), parkingRecord.getParkingSpaceId(),
+        parkingRecord.getId(), parkingRecord.getCarWeight());
+    if (!carLocationCache.putIfAbsent(carId, carLocation)) {
+      // The same car has been parked by a concurrent request
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED);
+    }
+    TransactionHooks.runOnRollback(() -> carLocationCache.remove(carId, carLocation));
+    if (carLocationCache.isComplete()) {
+      return;
+    }
+    // The car may be parked without being cached, by a concurrent request still holding it, or by
+    // one which has committed its parking record since the car was validated
+    if (!carLocationCache.holdCarBeingParked(carId)) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED);
+    }
+    TransactionHooks.runAfterCompletion(() -> carLocationCache.releaseCarBeingParked(carId));
+    if (parkingRecordRepository.countOngoingParkingRecordsByCarId(carId) > 1) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED);
+    }
+  }
 
-    // Update parking record
-    parkingRecord.setEmptyingTimestamp(LocalDateTime.now());
-    parkingRecord.setStatus(ParkingStatus.PARKING_OVER.name());
-    parkingRecordRepository.save(parkingRecord);
+  /**
+   * Parks a car whose parking request has already been validated: finds the best floor and a
+   * parking space on it, updates the floor's weight, and creates a parking record
+   *
+   * @param parkingRequest Parking request of the car to be parked
+   * @param operation      The operation the car is parked by, to time its phases
+   * @return The saved parking record
+   */
+  private ParkingRecord parkValidatedCar(ParkingRequest parkingRequest,
+      ParkingOperation operation) {
+    parkingEventLog.carArriving(parkingRequest.getCarId());
+    var parkingRecord = this.assignParkingSpace(parkingRequest, operation);
+    parkingEventLog.carAssigned(parkingRequest.getCarId(), parkingRecord.getParkingSpaceId(),
+        parkingRecord.getFloor());
+    return this.saveParkingRecord(parkingRecord, operation);
+  }
+
+  /**
+   * Parks a car in the parking space reserved for it, without selecting a floor. The floor gets
+   * back the reserved weight the car does not need.
+   *
+   * @param parkingRequest Parking request of the arriving car
+   * @param reservation    The claimed reservation of the car
+   * @param operation      The operation the car is parked by, to time its phases
+   * @return The saved parking record
+   */
+  private ParkingRecord parkReservedCar(ParkingRequest parkingRequest, Reservation reservation,
+      ParkingOperation operation) {
+    parkingEventLog.carArriving(parkingRequest.getCarId());
+    var unusedWeight = reservation.getCarWeight().subtract(parkingRequest.getCarWeight());
+    if (unusedWeight.signum() > 0) {
+      parkingMetrics.time(operation, ParkingPhase.FLOOR_UPDATE,
+          () -> floorService.updateFloor(reservation.getFloor(), unusedWeight, false));
+    }
+    parkingEventLog.carAssigned(parkingRequest.getCarId(), reservation.getParkingSpaceId(),
+        reservation.getFloor());
+    var parkingRecord = this.createParkingRecord(parkingRequest, reservation.getFloor(),
+        reservation.getParkingSpaceId());
+    parkingRecord.setAllowedWeightOnFloorBeforeParking(
+        reservation.getAllowedWeightOnFloorBeforeReservation());
+    return this.saveParkingRecord(parkingRecord, operation);
+  }
+
+  /**
+   * Finds the best floor for a car and a parking space on it, assigns the car to the parking space,
+   * and takes the car's weight from the floor
+   *
+   * @param parkingRequest Parking request of the car to be parked
+   * @param operation      The operation the car is parked by, to time its phases
+   * @return A new parking record of the assignment, which is not saved yet
+   */
+  private ParkingRecord assignParkingSpace(ParkingRequest parkingRequest,
+      ParkingOperation operation) {
+    Floor floor;
+    ParkingSpace parkingSpace;
+    Floor updatedFloor;
+    do {
+      // First, find the best floor for the car
+      floor = parkingMetrics.time(operation, ParkingPhase.FLOOR_SELECTION,
+          () -> floorService.findBestFloorForCar(parkingRequest.getCarHeight(),
+              parkingRequest.getCarWeight()));
+
+      // Second, find a parking space on the floor and assign the car to it
+      var floorNumber = floor.getNumber();
+      parkingSpace = parkingMetrics.time(operation, ParkingPhase.SPACE_ALLOCATION,
+          () -> parkingSpaceService.parkCarInAFreeParkingSpace(floorNumber,
+              parkingRequest.getCarId()));
+      if (Objects.isNull(parkingSpace)) {
+        updatedFloor = null; // The floor turned out to be full, so try the next one
+        continue;
+      }
+
+      // Update floor weight
+      updatedFloor = parkingMetrics.time(operation, ParkingPhase.FLOOR_UPDATE,
+          () -> floorService.updateFloor(floorNumber, parkingRequest.getCarWeight(), true));
+      if (Objects.isNull(updatedFloor)) {
+        // A concurrently parked car took the remaining weight, so try the next floor
+        parkingSpaceService.emptyParkingSpace(parkingSpace);
+      }
+    } while (Objects.isNull(updatedFloor));
+
+    var parkingRecord = this.createParkingRecord(parkingRequest, floor.getNumber(),
+        parkingSpace.getId());
+    parkingRecord.setAllowedWeightOnFloorBeforeParking(
+        updatedFloor.getAllowedWeight().add(parkingRequest.getCarWeight()));
+    return parkingRecord;
+  }
+
+  /**
+   * Saves the parking record of a car which has just been parked, caches the car's location, and
+   * journals the parking
+   *
+   * @param parkingRecord The new parking record
+   * @param operation     The operation the car is parked by, to time its phases
+   * @return The saved parking record
+   */
+  private ParkingRecord saveParkingRecord(ParkingRecord parkingRecord,
+      ParkingOperation operation) {
+    var savedParkingRecord = parkingMetrics.time(operation, ParkingPhase.RECORD_SAVE,
+        () -> parkingRecordRepository.save(parkingRecord));
+    this.cacheCarLocation(savedParkingRecord);
+    parkingJournal.journalParking(savedParkingRecord);
+    return savedParkingRecord;
+  }
 
-    // Update parking space
-    parkingSpaceService.emptyParkingSpace(carId);
+  /**
+   * Creates a new in-progress parking record (The allowed weight on the floor before parking is
+   * left to the caller.)
+   *
+   * @param parkingRequest Parking request of the parked car
+   * @param floorNumber    The ordinal number of the floor the car is parked on
+   * @param parkingSpaceId The ID of the parking space the car is parked in
+   * @return The created parking record, which is not saved yet
+   */
+  private ParkingRecord createParkingRecord(ParkingRequest parkingRequest, Integer floorNumber,
+      Long parkingSpaceId) {
+    var parkingRecord = new ParkingRecord();
+    parkingRecord.setCarId(parkingRequest.getCarId());
+    parkingRecord.setCarWeight(parkingRequest.getCarWeight());
+    parkingRecord.setCarHeight(parkingRequest.getCarHeight());
+    parkingRecord.setParkingTimestamp(LocalDateTime.now());
+    parkingRecord.setFloor(floorNumber);
+    parkingRecord.setParkingSpaceId(parkingSpaceId);
+    parkingRecord.setStatus(ParkingStatus.PARKING_IN_PROGRESS);
+    return parkingRecord;
+  }
 
-    // Generate bill
-    billService.generateBill(parkingRecord, floor);
+  /**
+   * Reports a failed parking request in a batch
+   *
+   * @param parkingResult             The outcome of the parking request
+   * @param automatedParkingException The exception thrown while processing the parking request
+   */
+  private void setError(ParkingResult parkingResult,
+      AutomatedParkingException automatedParkingException) {
+    parkingMetrics.countError(automatedParkingException.getExceptionCode());
+    parkingResult.setErrorCode(automatedParkingException.getExceptionCode().name());
+    parkingResult.setErrorMessage(
+        automatedParkingException.getExceptionCode().getExplanatoryMessage());
   }
 
   /**
@@ -124,18 +563,54 @@ public class AutomatedParkingService {
    * @param parkingRequest Parking request being verified
    */
   private void validateParkingRequest(ParkingRequest parkingRequest) {
-    if (Objects.nonNull(
-        parkingSpaceService.findParkingSpaceOccupiedByCar(parkingRequest.getCarId()))) {
-      throw new AutomatedParkingException(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED);
+    var carId = parkingRequest.getCarId();
+    // A car with a reservation occupies its reserved parking space, but is not parked yet
+    if (Objects.nonNull(carId) && (Objects.nonNull(carLocationCache.get(carId))
+        || (!carLocationCache.isComplete() && !reservationService.isReserved(carId)
+        && Objects.nonNull(parkingSpaceService.findParkingSpaceOccupiedByCar(carId))))) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED);
     }
+    this.validateMandatoryFields(parkingRequest);
+  }
+
+  /**
+   * Finds the cars of a batch for which floors are to be planned: those with all mandatory fields,
+   * which are neither parked nor reserved, and which are not repeated in the batch
+   *
+   * @param parkingRequests The parking requests of the batch
+   * @param parkedCarIds    The IDs of the cars of the batch which are parked already
+   * @return The parking requests of the cars to plan, and null in place of the other ones
+   */
+  private List<ParkingRequest> findCarsToPlan(List<ParkingRequest> parkingRequests,
+      Set<String> parkedCarIds) {
+    var carIdsToPlan = new HashSet<String>();
+    var carsToPlan = new ArrayList<ParkingRequest>(parkingRequests.size());
+    for (var parkingRequest : parkingRequests) {
+      var isToPlan = Objects.nonNull(parkingRequest.getCarId())
+          && Objects.nonNull(parkingRequest.getCarHeight())
+          && Objects.nonNull(parkingRequest.getCarWeight())
+          && !parkedCarIds.contains(parkingRequest.getCarId())
+          && !reservationService.isReserved(parkingRequest.getCarId())
+          && carIdsToPlan.add(parkingRequest.getCarId());
+      carsToPlan.add(isToPlan ? parkingRequest : null);
+    }
+    return carsToPlan;
+  }
+
+  /**
+   * Checks if a parking request carries all information of the car to be parked
+   *
+   * @param parkingRequest Parking request being verified
+   */
+  private void validateMandatoryFields(ParkingRequest parkingRequest) {
     if (Objects.isNull(parkingRequest.getCarWeight())) {
-      throw new AutomatedParkingException(AutomatedParkingExceptionCode.CAR_WEIGHT_MISSING);
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_WEIGHT_MISSING);
     }
     if (Objects.isNull(parkingRequest.getCarHeight())) {
-      throw new AutomatedParkingException(AutomatedParkingExceptionCode.CAR_HEIGHT_MISSING);
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_HEIGHT_MISSING);
     }
     if (Objects.isNull(parkingRequest.getCarId())) {
-      throw new AutomatedParkingException(AutomatedParkingExceptionCode.CAR_ID_MISSING);
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ID_MISSING);
     }
   }
 }
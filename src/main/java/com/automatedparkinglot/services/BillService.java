@@ -4,68 +4,114 @@ import com.automatedparkinglot.entities.Bill;
 import com.automatedparkinglot.entities.Floor;
 import com.automatedparkinglot.entities.ParkingRecord;
 import com.automatedparkinglot.repositories.BillRepository;
-import com.automatedparkinglot.util.PlaceholderPrinter;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
+import com.automatedparkinglot.repositories.FloorRepository;
+import com.automatedparkinglot.repositories.ParkingRecordRepository;
+import com.automatedparkinglot.util.BillCalculator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
 import javax.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
- * A service to handle pricing and bill generation
+ * A service to handle pricing and bill generation. Prices are calculated in fixed-point arithmetic
+ * by {@link BillCalculator}.
  */
 @Service
 public class BillService {
 
   private final BillRepository billRepository;
+  private final ParkingRecordRepository parkingRecordRepository;
+  private final FloorRepository floorRepository;
 
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param billRepository          A {@link BillRepository} instance
+   * @param parkingRecordRepository A {@link ParkingRecordRepository} instance
+   * @param floorRepository         A {@link FloorRepository} instance
+   */
   @Autowired
-  public BillService(BillRepository billRepository) {
+  public BillService(BillRepository billRepository,
+      ParkingRecordRepository parkingRecordRepository, FloorRepository floorRepository) {
     this.billRepository = billRepository;
+    this.parkingRecordRepository = parkingRecordRepository;
+    this.floorRepository = floorRepository;
+  }
+
+  /**
+   * Generates and saves the bills of completed parkings and marks their parking records as billed in
+   * a single transaction. Parking records which have already been billed are skipped, so a parking
+   * record delivered more than once is billed only once.
+   *
+   * @param parkingRecordIds The IDs of the completed parking records to be billed
+   * @return The saved bills
+   */
+  @Transactional
+  public List<Bill> generateBills(Collection<Long> parkingRecordIds) {
+    var parkingRecords = parkingRecordRepository.findUnbilledParkingRecordsByIds(
+        parkingRecordIds);
+    if (parkingRecords.isEmpty()) {
+      return List.of();
+    }
+    // Weight capacities are converted to minor units once per batch, not once per bill
+    var weightCapacitiesByFloorNumber = new HashMap<Integer, Long>();
+    for (var floor : floorRepository.findAll()) {
+      weightCapacitiesByFloorNumber.put(floor.getNumber(),
+          BillCalculator.toMinorUnits(floor.getWeightCapacity()));
+    }
+    var bills = new ArrayList<Bill>(parkingRecords.size());
+    for (var parkingRecord : parkingRecords) {
+      bills.add(this.generateBill(parkingRecord,
+          weightCapacitiesByFloorNumber.get(parkingRecord.getFloor())));
+    }
+    billRepository.saveAll(bills);
+    parkingRecordRepository.markParkingRecordsAsBilled(
+        parkingRecords.stream().map(ParkingRecord::getId).collect(Collectors.toList()));
+    return bills;
   }
 
   /**
-   * Generates a parking bill after parking is completed
+   * Generates a parking bill after parking is completed (The bill is not saved.)
    *
    * @param parkingRecord Parking for which a bill is to be generated
    * @param floor         The floor where the car was parking, which is used to calculate price
+   * @return The generated bill
    */
-  @Transactional
-  public void generateBill(ParkingRecord parkingRecord, Floor floor) {
-    PlaceholderPrinter.printMovementInformation(
-        String.format(
-            "The parking of the car %s in the parking space %s on the floor %s is over and the parking data are being transferred to the billing system.",
-            parkingRecord.getCarId(), parkingRecord.getParkingSpaceId(), parkingRecord.getFloor()));
-    var pricePerMinute = this.calculatePricePerMinute(parkingRecord, floor);
-    var occupationDurationInMinutes = new BigDecimal(
-        ChronoUnit.SECONDS.between(parkingRecord.getParkingTimestamp(),
-            parkingRecord.getEmptyingTimestamp()) / 60).setScale(0, RoundingMode.DOWN);
-    var totalAmountToBePaid = occupationDurationInMinutes.multiply(pricePerMinute)
-        .setScale(2, RoundingMode.DOWN);
-    var bill = new Bill();
-    bill.setCarId(parkingRecord.getCarId());
-    bill.setBillingFrom(parkingRecord.getParkingTimestamp()
-        .format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")));
-    bill.setBillingTo(parkingRecord.getEmptyingTimestamp()
-        .format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")));
-    bill.setPricePerMinute(pricePerMinute);
-    bill.setTotalAmountToBePaid(totalAmountToBePaid);
-    billRepository.save(bill);
-    PlaceholderPrinter.printBill(bill);
+  public Bill generateBill(ParkingRecord parkingRecord, Floor floor) {
+    return this.generateBill(parkingRecord,
+        BillCalculator.toMinorUnits(floor.getWeightCapacity()));
   }
 
   /**
-   * Calculates a price-per-minute rate based on demand on the floor
+   * Generates a parking bill after parking is completed (The bill is not saved.)
    *
-   * @param parkingRecord Parking for which a price-per-minute rate is to be calculated
-   * @param floor         The floor where the car was parking
-   * @return Calculated price-per-minute
+   * @param parkingRecord  Parking for which a bill is to be generated
+   * @param weightCapacity The weight capacity of the floor where the car was parking, in minor
+   *                       units
+   * @return The generated bill
    */
-  private BigDecimal calculatePricePerMinute(ParkingRecord parkingRecord, Floor floor) {
-    return BigDecimal.valueOf(parkingRecord.getAllowedWeightOnFloorBeforeParking().doubleValue()
-        / floor.getWeightCapacity().doubleValue()).setScale(2, RoundingMode.DOWN);
+  private Bill generateBill(ParkingRecord parkingRecord, long weightCapacity) {
+    var pricePerMinuteInCents = BillCalculator.calculatePricePerMinuteInCents(
+        BillCalculator.toMinorUnits(parkingRecord.getAllowedWeightOnFloorBeforeParking()),
+        weightCapacity);
+    var parkingDurationInMinutes = BillCalculator.calculateParkingDurationInMinutes(
+        parkingRecord.getParkingTimestamp(), parkingRecord.getEmptyingTimestamp());
+    var bill = new Bill();
+    bill.setCarId(parkingRecord.getCarId());
+    bill.setBillingFrom(
+        parkingRecord.getParkingTimestamp().format(BillCalculator.BILLING_TIMESTAMP_FORMATTER));
+    bill.setBillingTo(
+        parkingRecord.getEmptyingTimestamp().format(BillCalculator.BILLING_TIMESTAMP_FORMATTER));
+    bill.setEmptyingTimestamp(parkingRecord.getEmptyingTimestamp());
+    bill.setPricePerMinute(BillCalculator.fromMinorUnits(pricePerMinuteInCents));
+    bill.setTotalAmountToBePaid(BillCalculator.fromMinorUnits(
+        BillCalculator.calculateTotalAmountInCents(parkingDurationInMinutes,
+            pricePerMinuteInCents)));
+    return bill;
   }
 
 }
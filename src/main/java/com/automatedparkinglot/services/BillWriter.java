@@ -0,0 +1,179 @@
+package com.automatedparkinglot.services;
+
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.enums.ParkingPhase;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.automatedparkinglot.repositories.ParkingRecordRepository;
+import com.automatedparkinglot.util.TransactionHooks;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * A background writer generating the bills of completed parkings, decoupled from pulling cars out.
+ * <p>
+ * Completed parking records are put into a bounded queue once the pull-out is committed. A single
+ * writer thread takes them in batches, which are flushed when they are full or when the flush
+ * interval is over, and saves their bills in one transaction per batch.
+ * <p>
+ * Delivery is at-least-once: a parking record is marked as billed in the same transaction as its
+ * bill is saved. Completed parking records which are not billed yet (e.g. the queue was full, the
+ * writer failed, or the application stopped) are put into the queue again by a periodic sweep.
+ */
+@Component
+public class BillWriter {
+
+  private final Logger logger = LoggerFactory.getLogger(BillWriter.class);
+
+  private final BillService billService;
+  private final ParkingRecordRepository parkingRecordRepository;
+  private final ParkingMetrics parkingMetrics;
+  private final ParkingEventLog parkingEventLog;
+  private final BlockingQueue<Long> parkingRecordIds;
+  private final int batchSize;
+  private final long flushIntervalInMillis;
+  private final Thread writerThread;
+  private volatile boolean running;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param billService             A {@link BillService} instance
+   * @param parkingRecordRepository A {@link ParkingRecordRepository} instance
+   * @param parkingMetrics          A {@link ParkingMetrics} instance
+   * @param parkingEventLog         A {@link ParkingEventLog} instance
+   * @param queueCapacity           The maximum number of parking records waiting in the queue
+   * @param batchSize               The maximum number of bills saved in one transaction
+   * @param flushIntervalInMillis   The maximum time a parking record waits for its batch to fill
+   */
+  @Autowired
+  public BillWriter(BillService billService, ParkingRecordRepository parkingRecordRepository,
+      ParkingMetrics parkingMetrics, ParkingEventLog parkingEventLog,
+      @Value("${automated-parking-lot.billing.queue-capacity:10000}") int queueCapacity,
+      @Value("${automated-parking-lot.billing.batch-size:100}") int batchSize,
+      @Value("${automated-parking-lot.billing.flush-interval-ms:200}") long flushIntervalInMillis) {
+    this.billService = billService;
+    this.parkingRecordRepository = parkingRecordRepository;
+    this.parkingMetrics = parkingMetrics;
+    this.parkingEventLog = parkingEventLog;
+    this.parkingRecordIds = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.flushIntervalInMillis = flushIntervalInMillis;
+    this.writerThread = new Thread(this::writeBills, "bill-writer");
+    this.writerThread.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    writerThread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    writerThread.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  /**
+   * Submits a completed parking record for billing once the current transaction is committed. This
+   * never blocks: if the queue is full, the parking record is billed after the next sweep.
+   *
+   * @param parkingRecordId The ID of the completed parking record
+   */
+  public void submit(Long parkingRecordId) {
+    TransactionHooks.runAfterCommit(() -> {
+      if (!parkingRecordIds.offer(parkingRecordId)) {
+        logger.warn("Billing queue is full. The parking record {} will be billed after the next sweep.",
+            parkingRecordId);
+      }
+    });
+  }
+
+  /**
+   * Puts completed parking records which have not been billed yet into the queue again
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(initialDelayString = "${automated-parking-lot.billing.sweep-interval-ms:60000}",
+      fixedDelayString = "${automated-parking-lot.billing.sweep-interval-ms:60000}")
+  public void sweep() {
+    for (var parkingRecordId : parkingRecordRepository.findUnbilledParkingRecordIds()) {
+      if (!parkingRecordIds.offer(parkingRecordId)) {
+        return; // The rest is picked up by the next sweep
+      }
+    }
+  }
+
+  /**
+   * Generates the bills of all completed parkings waiting for a bill right away, in the calling
+   * thread
+   */
+  public void flush() {
+    var waitingParkingRecordIds = new LinkedHashSet<Long>();
+    parkingRecordIds.drainTo(waitingParkingRecordIds);
+    waitingParkingRecordIds.addAll(parkingRecordRepository.findUnbilledParkingRecordIds());
+    var batch = new ArrayList<Long>(batchSize);
+    for (var parkingRecordId : waitingParkingRecordIds) {
+      batch.add(parkingRecordId);
+      if (batch.size() == batchSize) {
+        this.generateBills(batch);
+        batch.clear();
+      }
+    }
+    this.generateBills(batch);
+  }
+
+  private void writeBills() {
+    List<Long> batch = new ArrayList<>(batchSize);
+    while (running || !parkingRecordIds.isEmpty()) {
+      try {
+        var parkingRecordId = parkingRecordIds.poll(flushIntervalInMillis, TimeUnit.MILLISECONDS);
+        if (parkingRecordId == null) {
+          continue;
+        }
+        batch.add(parkingRecordId);
+        var flushDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalInMillis);
+        while (batch.size() < batchSize) {
+          parkingRecordId = parkingRecordIds.poll(flushDeadline - System.nanoTime(),
+              TimeUnit.NANOSECONDS);
+          if (parkingRecordId == null) {
+            break;
+          }
+          batch.add(parkingRecordId);
+        }
+        this.generateBills(batch);
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException runtimeException) {
+        logger.error("Bills could not be generated. They will be retried after the next sweep.",
+            runtimeException);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  // Batches are generated one at a time, so a parking record in two batches is billed once
+  private synchronized void generateBills(Collection<Long> batch) {
+    if (!batch.isEmpty()) {
+      parkingMetrics.time(ParkingOperation.BILLING, ParkingPhase.BILL_GENERATION,
+          () -> billService.generateBills(batch)).forEach(parkingEventLog::billGenerated);
+    }
+  }
+
+}
@@ -0,0 +1,225 @@
+package com.automatedparkinglot.services;
+
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.enums.ExportFormat;
+import com.automatedparkinglot.enums.ParkingStatus;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.util.ExportWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A service to export parking records and bills over a time range, e.g. for finance, as a stream
+ * of rows.
+ * <p>
+ * The rows are read through a JDBC cursor with a bounded fetch size and written to the output
+ * stream one by one, in a read-only transaction, so exporting millions of rows neither loads them
+ * into entities nor holds them in memory. H2 executes the query lazily, i.e. it does not
+ * materialize the whole result either. The time range is scanned in the order of an index.
+ * <p>
+ * Parking records are read from the history table of the archived parking records and from the
+ * table of the current ones at the same time, each in the order of its index, and the two cursors
+ * are merged. The cursors read committed rows as they go, so the {@link ParkingRecordArchiver}
+ * holds off archiving while parking records are exported, and every parking record is exported
+ * once, from the table it was in when the export started.
+ */
+@Service
+public class ExportService {
+
+  private static final List<String> PARKING_RECORD_FIELDS = List.of("id", "carId", "carWeight",
+      "carHeight", "floor", "parkingSpaceId", "parkingTimestamp", "emptyingTimestamp", "status",
+      "allowedWeightOnFloorBeforeParking", "billed");
+  private static final String PARKING_RECORDS_QUERY = "SELECT id, car_id, car_weight, car_height, "
+      + "floor, parking_space_id, parking_timestamp, emptying_timestamp, status, "
+      + "allowed_weight_on_floor_before_parking, billed FROM %s "
+      + "WHERE parking_timestamp >= ? AND parking_timestamp < ? ORDER BY parking_timestamp";
+  private static final List<String> PARKING_RECORDS_QUERIES = List.of(
+      String.format(PARKING_RECORDS_QUERY, "parking_records_history"),
+      String.format(PARKING_RECORDS_QUERY, "parking_records"));
+  private static final int PARKING_TIMESTAMP_COLUMN = 7;
+  private static final int STATUS_COLUMN = 9;
+  private static final List<String> BILL_FIELDS = List.of("id", "carId", "billingFrom",
+      "billingTo", "emptyingTimestamp", "pricePerMinute", "totalAmountToBePaid");
+  private static final String BILLS_QUERY = "SELECT id, car_id, billing_from, billing_to, "
+      + "emptying_timestamp, price_per_minute, total_amount_to_be_paid FROM bills "
+      + "WHERE emptying_timestamp >= ? AND emptying_timestamp < ? ORDER BY emptying_timestamp";
+  private static final int EMPTYING_TIMESTAMP_COLUMN = 5;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final ParkingRecordArchiver parkingRecordArchiver;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param dataSource         A {@link DataSource} instance
+   * @param transactionManager A {@link PlatformTransactionManager} instance
+   * @param objectMapper          An {@link ObjectMapper} instance
+   * @param parkingRecordArchiver A {@link ParkingRecordArchiver} instance
+   * @param fetchSize             The number of rows fetched from the database at once
+   */
+  @Autowired
+  public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper, ParkingRecordArchiver parkingRecordArchiver,
+      @Value("${automated-parking-lot.export.fetch-size:1000}") int fetchSize) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(fetchSize);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.objectMapper = objectMapper;
+    this.parkingRecordArchiver = parkingRecordArchiver;
+  }
+
+  /**
+   * Validates the time range of an export before the export is streamed
+   *
+   * @param from The start of the time range, inclusive
+   * @param to   The end of the time range, exclusive
+   */
+  public void validateTimeRange(LocalDateTime from, LocalDateTime to) {
+    if (!from.isBefore(to)) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.INVALID_TIME_RANGE);
+    }
+  }
+
+  /**
+   * Exports the parking records of the parkings started in a time range, in order of their
+   * parking timestamps
+   *
+   * @param from         The start of the time range, inclusive
+   * @param to           The end of the time range, exclusive
+   * @param exportFormat The format of the exported rows
+   * @param outputStream The stream to which the rows are written
+   * @return The number of exported parking records
+   */
+  public long exportParkingRecords(LocalDateTime from, LocalDateTime to,
+      ExportFormat exportFormat, OutputStream outputStream) {
+    // The status is stored as the ordinal of ParkingStatus, and exported by its name
+    return parkingRecordArchiver.runWithoutArchiving(() -> this.export(PARKING_RECORDS_QUERIES,
+        PARKING_TIMESTAMP_COLUMN, PARKING_RECORD_FIELDS,
+        values -> values[STATUS_COLUMN - 1] = ParkingStatus.values()[
+            ((Number) values[STATUS_COLUMN - 1]).intValue()].name(),
+        from, to, exportFormat, outputStream));
+  }
+
+  /**
+   * Exports the bills of the parkings ended in a time range, in order of their ends
+   *
+   * @param from         The start of the time range, inclusive
+   * @param to           The end of the time range, exclusive
+   * @param exportFormat The format of the exported rows
+   * @param outputStream The stream to which the rows are written
+   * @return The number of exported bills
+   */
+  public long exportBills(LocalDateTime from, LocalDateTime to, ExportFormat exportFormat,
+      OutputStream outputStream) {
+    return this.export(List.of(BILLS_QUERY), EMPTYING_TIMESTAMP_COLUMN, BILL_FIELDS,
+        values -> {}, from, to, exportFormat, outputStream);
+  }
+
+  private long export(List<String> queries, int orderColumn, List<String> fieldNames,
+      Consumer<Object[]> rowConverter, LocalDateTime from, LocalDateTime to,
+      ExportFormat exportFormat, OutputStream outputStream) {
+    var exportedRows = transactionTemplate.execute(status -> {
+      var exportWriter = this.createExportWriter(exportFormat, fieldNames, outputStream);
+      Long rows;
+      jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION TRUE");
+      try {
+        rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> this.writeRows(
+            connection, queries, orderColumn, fieldNames.size(), rowConverter, from, to,
+            exportWriter));
+      } finally {
+        // The setting belongs to the pooled connection, which other requests use afterwards
+        jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION FALSE");
+      }
+      try {
+        exportWriter.flush();
+      } catch (IOException ioException) {
+        throw new UncheckedIOException(ioException);
+      }
+      return rows;
+    });
+    return Objects.isNull(exportedRows) ? 0 : exportedRows;
+  }
+
+  private long writeRows(Connection connection, List<String> queries, int orderColumn,
+      int columns, Consumer<Object[]> rowConverter, LocalDateTime from, LocalDateTime to,
+      ExportWriter exportWriter) throws SQLException {
+    var statements = new ArrayList<PreparedStatement>(queries.size());
+    try {
+      var openResultSets = new ArrayList<ResultSet>(queries.size());
+      for (var query : queries) {
+        var statement = connection.prepareStatement(query);
+        statements.add(statement);
+        statement.setFetchSize(jdbcTemplate.getFetchSize());
+        statement.setTimestamp(1, Timestamp.valueOf(from));
+        statement.setTimestamp(2, Timestamp.valueOf(to));
+        var resultSet = statement.executeQuery();
+        if (resultSet.next()) {
+          openResultSets.add(resultSet);
+        }
+      }
+      var values = new Object[columns];
+      long rows = 0;
+      while (!openResultSets.isEmpty()) {
+        // The order column is never null, and on a tie the earlier query goes first
+        var resultSet = openResultSets.get(0);
+        for (var otherResultSet : openResultSets) {
+          if (otherResultSet.getTimestamp(orderColumn)
+              .before(resultSet.getTimestamp(orderColumn))) {
+            resultSet = otherResultSet;
+          }
+        }
+        for (int i = 0; i < values.length; i++) {
+          var value = resultSet.getObject(i + 1);
+          values[i] = value instanceof Timestamp ? ((Timestamp) value).toLocalDateTime() : value;
+        }
+        rowConverter.accept(values);
+        try {
+          exportWriter.writeRow(values);
+        } catch (IOException ioException) {
+          throw new UncheckedIOException(ioException); // E.g. the client went away
+        }
+        rows++;
+        if (!resultSet.next()) {
+          openResultSets.remove(resultSet);
+        }
+      }
+      return rows;
+    } finally {
+      statements.forEach(JdbcUtils::closeStatement);
+    }
+  }
+
+  private ExportWriter createExportWriter(ExportFormat exportFormat, List<String> fieldNames,
+      OutputStream outputStream) {
+    try {
+      return new ExportWriter(exportFormat, fieldNames, outputStream, objectMapper.getFactory());
+    } catch (IOException ioException) {
+      throw new UncheckedIOException(ioException);
+    }
+  }
+
+}
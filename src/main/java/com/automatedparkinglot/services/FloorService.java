@@ -1,11 +1,15 @@
 package com.automatedparkinglot.services;
 
+import com.automatedparkinglot.allocation.FloorAllocationStrategy;
+import com.automatedparkinglot.dtos.ParkingRequest;
 import com.automatedparkinglot.entities.Floor;
 import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
 import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.lotstate.FloorIndex;
 import com.automatedparkinglot.repositories.FloorRepository;
+import com.automatedparkinglot.util.TransactionHooks;
 import java.math.BigDecimal;
-import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -17,31 +21,123 @@ import org.springframework.stereotype.Service;
 public class FloorService {
 
   private final FloorRepository floorRepository;
+  private final FloorIndex floorIndex;
+  private final FloorAllocationStrategy floorAllocationStrategy;
 
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param floorRepository         A {@link FloorRepository} instance
+   * @param floorIndex              A {@link FloorIndex} instance
+   * @param floorAllocationStrategy The configured {@link FloorAllocationStrategy}
+   */
   @Autowired
-  public FloorService(FloorRepository floorRepository) {
+  public FloorService(FloorRepository floorRepository, FloorIndex floorIndex,
+      FloorAllocationStrategy floorAllocationStrategy) {
     this.floorRepository = floorRepository;
+    this.floorIndex = floorIndex;
+    this.floorAllocationStrategy = floorAllocationStrategy;
   }
 
   /**
-   * Updates the weight of a floor after a car left or parked
+   * Updates the weight of a floor after a car left or parked. The weight is changed by a single
+   * conditional statement, so concurrent updates are never lost and a floor never carries more than
+   * its allowed weight.
    *
-   * @param floorToBeUpdated The floor to be updated
-   * @param carWeight        The weight of the car that is being parked or has left the lot
-   * @param isCarToBeParked  Whether a car is being parked or has left the lot
-   * @return The updated floor
+   * @param numberOfFloorToBeUpdated The ordinal number of the floor to be updated
+   * @param carWeight                The weight of the car that is being parked or has left the lot
+   * @param isCarToBeParked          Whether a car is being parked or has left the lot
+   * @return The updated floor, or null if the floor cannot carry the car to be parked anymore
    */
-  public Floor updateFloor(Floor floorToBeUpdated, BigDecimal carWeight, boolean isCarToBeParked) {
-    floorToBeUpdated.setAllowedWeight(
-        !isCarToBeParked ? floorToBeUpdated.getAllowedWeight().add(carWeight)
-            : floorToBeUpdated.getAllowedWeight().subtract(carWeight));
-    return floorRepository.save(floorToBeUpdated);
-  }
-
   public Floor updateFloor(Integer numberOfFloorToBeUpdated, BigDecimal carWeight,
       boolean isCarToBeParked) {
-    var floorToBeUpdated = floorRepository.findFloorByFloorNumber(numberOfFloorToBeUpdated);
-    return this.updateFloor(floorToBeUpdated, carWeight, isCarToBeParked);
+    var updatedFloors = isCarToBeParked
+        ? floorRepository.decreaseAllowedWeightIfSufficient(numberOfFloorToBeUpdated, carWeight)
+        : floorRepository.increaseAllowedWeight(numberOfFloorToBeUpdated, carWeight);
+    if (updatedFloors == 0) {
+      // Another car took the remaining weight in the meantime. Its transaction has changed the
+      // index by its own delta already, so the index is left as it is.
+      return null;
+    }
+    this.changeAllowedWeightInIndex(numberOfFloorToBeUpdated,
+        isCarToBeParked ? carWeight.negate() : carWeight);
+    return floorRepository.findFloorByFloorNumber(numberOfFloorToBeUpdated);
+  }
+
+  /**
+   * Updates the weight of a floor after several cars reserved on it by
+   * {@link #reserveBestFloorForCar(BigDecimal, BigDecimal)} have been parked, by a single statement
+   *
+   * @param numberOfFloorToBeUpdated The ordinal number of the floor to be updated
+   * @param totalCarWeight           The total weight of the cars parked on the floor
+   * @return The updated floor, or null if the floor cannot carry all the cars
+   */
+  public Floor updateFloorForReservedCars(Integer numberOfFloorToBeUpdated,
+      BigDecimal totalCarWeight) {
+    if (floorRepository.decreaseAllowedWeightIfSufficient(numberOfFloorToBeUpdated,
+        totalCarWeight) == 0) {
+      return null;
+    }
+    return floorRepository.findFloorByFloorNumber(numberOfFloorToBeUpdated);
+  }
+
+  /**
+   * Reserves the weight of a car on the best floor for it in the index only, i.e. without any
+   * database access. The reservation must be either followed by
+   * {@link #updateFloorForReservedCars(Integer, BigDecimal)} or cancelled.
+   *
+   * @param carHeight The height of the car to be parked
+   * @param carWeight The weight of the car to be parked
+   * @return The ordinal number of the best floor
+   */
+  public Integer reserveBestFloorForCar(BigDecimal carHeight, BigDecimal carWeight) {
+    var bestFloorNumber = floorIndex.findBestFloorNumberForCar(carHeight, carWeight)
+        .orElseThrow(
+            () -> AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR));
+    this.changeAllowedWeightInIndex(bestFloorNumber, carWeight.negate());
+    return bestFloorNumber;
+  }
+
+  /**
+   * Plans the floors of a window of cars to be parked together by the configured allocation
+   * strategy, on a copy of the index. The planned floors are reserved by
+   * {@link #reservePlannedFloorForCar(Integer, BigDecimal, BigDecimal)}.
+   *
+   * @param cars The cars to be parked in order of arrival, null for the cars not to be parked
+   * @return The ordinal numbers of the planned floors, null for the cars without a planned floor
+   */
+  public Integer[] planFloorsForCars(List<ParkingRequest> cars) {
+    return floorAllocationStrategy.assignFloors(cars, floorIndex.getFloorCapacities());
+  }
+
+  /**
+   * Reserves the weight of a car on its planned floor in the index only, like
+   * {@link #reserveBestFloorForCar(BigDecimal, BigDecimal)}. If the planned floor cannot take the
+   * car anymore, or no floor was planned, the best floor for the car is reserved instead.
+   *
+   * @param plannedFloorNumber The ordinal number of the planned floor, or null
+   * @param carHeight          The height of the car to be parked
+   * @param carWeight          The weight of the car to be parked
+   * @return The ordinal number of the reserved floor
+   */
+  public Integer reservePlannedFloorForCar(Integer plannedFloorNumber, BigDecimal carHeight,
+      BigDecimal carWeight) {
+    if (Objects.isNull(plannedFloorNumber)
+        || !floorIndex.canTakeCar(plannedFloorNumber, carHeight, carWeight)) {
+      return this.reserveBestFloorForCar(carHeight, carWeight);
+    }
+    this.changeAllowedWeightInIndex(plannedFloorNumber, carWeight.negate());
+    return plannedFloorNumber;
+  }
+
+  /**
+   * Cancels the reservation of a car's weight on a floor
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @param carWeight   The weight of the car
+   */
+  public void cancelFloorReservation(Integer floorNumber, BigDecimal carWeight) {
+    this.changeAllowedWeightInIndex(floorNumber, carWeight);
   }
 
   /**
@@ -52,17 +148,29 @@ public class FloorService {
    * @return The found best floor
    */
   public Floor findBestFloorForCar(BigDecimal carHeight, BigDecimal carWeight) {
-    var allFittingAndAvailableFloors = floorRepository.findAllFittingAndAvailableFloors(carHeight,
-        carWeight);
-    if (Objects.nonNull(allFittingAndAvailableFloors) && !allFittingAndAvailableFloors.isEmpty()) {
-      // Space must be saved principally.
-      // Reference: https://en.wikipedia.org/wiki/Automated_parking_system#Space_saving
-      // Find the floor whose ceiling height is closest to the car's height
-      var floorClosestToCarHeight = allFittingAndAvailableFloors.stream()
-          .min(Comparator.comparing(floor -> carHeight.subtract(floor.getCeilingHeight()).abs()));
-      return floorClosestToCarHeight.orElse(null);
-    } else {
-      throw new AutomatedParkingException(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR);
+    // Space must be saved principally.
+    // Reference: https://en.wikipedia.org/wiki/Automated_parking_system#Space_saving
+    // Find the floor whose ceiling height is closest to the car's height
+    var bestFloorNumber = floorIndex.findBestFloorNumberForCar(carHeight, carWeight);
+    while (bestFloorNumber.isPresent()) {
+      var floor = floorRepository.findFloorByFloorNumber(bestFloorNumber.get());
+      if (Objects.nonNull(floor) && carWeight.compareTo(floor.getAllowedWeight()) <= 0) {
+        return floor;
+      }
+      // The floor can't take the car as far as the database knows, e.g. it was modified behind the
+      // index, so skip it without overwriting the deltas other transactions applied to it
+      if (Objects.isNull(floor)) {
+        floorIndex.markFloorFull(bestFloorNumber.get());
+      }
+      bestFloorNumber = floorIndex.findBestFloorNumberForCar(carHeight, carWeight,
+          bestFloorNumber.get());
     }
+    throw AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR);
+  }
+
+  private void changeAllowedWeightInIndex(Integer floorNumber, BigDecimal weightDelta) {
+    floorIndex.changeAllowedWeight(floorNumber, weightDelta);
+    TransactionHooks.runOnRollback(
+        () -> floorIndex.changeAllowedWeight(floorNumber, weightDelta.negate()));
   }
 }
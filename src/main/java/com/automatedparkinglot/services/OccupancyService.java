@@ -0,0 +1,116 @@
+package com.automatedparkinglot.services;
+
+import com.automatedparkinglot.dtos.FittingCarsResult;
+import com.automatedparkinglot.dtos.FloorOccupancyResult;
+import com.automatedparkinglot.dtos.OccupancyResult;
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.lotstate.FloorOccupancy;
+import com.automatedparkinglot.lotstate.OccupancyCounters;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * A service to report the occupancy of the lot from the in-memory {@link OccupancyCounters}, i.e.
+ * without any database access and without contending with parks and pull-outs
+ */
+@Service
+public class OccupancyService {
+
+  private final OccupancyCounters occupancyCounters;
+
+  @Autowired
+  public OccupancyService(OccupancyCounters occupancyCounters) {
+    this.occupancyCounters = occupancyCounters;
+  }
+
+  /**
+   * Reports the occupancy of the whole lot
+   *
+   * @return The totals of all floors
+   */
+  public OccupancyResult getLotOccupancy() {
+    var occupancyResult = new OccupancyResult();
+    occupancyResult.setWeightCapacity(BigDecimal.ZERO);
+    occupancyResult.setAllowedWeight(BigDecimal.ZERO);
+    for (var floorOccupancy : occupancyCounters.readFloors()) {
+      occupancyResult.setParkingSpaces(
+          occupancyResult.getParkingSpaces() + floorOccupancy.getParkingSpaces());
+      occupancyResult.setFreeParkingSpaces(
+          occupancyResult.getFreeParkingSpaces() + floorOccupancy.getFreeParkingSpaces());
+      occupancyResult.setWeightCapacity(
+          occupancyResult.getWeightCapacity().add(floorOccupancy.getWeightCapacity()));
+      occupancyResult.setAllowedWeight(
+          occupancyResult.getAllowedWeight().add(floorOccupancy.getAllowedWeight()));
+    }
+    return occupancyResult;
+  }
+
+  /**
+   * Reports the occupancy of every floor
+   *
+   * @return The occupancies of the floors ordered by floor number
+   */
+  public List<FloorOccupancyResult> getFloorOccupancies() {
+    return occupancyCounters.readFloors().stream()
+        .map(this::toFloorOccupancyResult)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Reports the occupancy of the floors which have changed since the last call, for the
+   * {@link OccupancyStream} only
+   *
+   * @return The occupancies of the changed floors ordered by floor number
+   */
+  public List<FloorOccupancyResult> takeChangedFloorOccupancies() {
+    return occupancyCounters.takeChangedFloors().stream()
+        .map(this::toFloorOccupancyResult)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Reports the occupancy of a floor
+   *
+   * @param floorNumber The ordinal number of the floor
+   * @return The occupancy of the floor
+   */
+  public FloorOccupancyResult getFloorOccupancy(Integer floorNumber) {
+    var floorOccupancy = occupancyCounters.readFloor(floorNumber);
+    if (Objects.isNull(floorOccupancy)) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_FLOOR_WITH_THIS_NUMBER);
+    }
+    return this.toFloorOccupancyResult(floorOccupancy);
+  }
+
+  /**
+   * Reports how many cars of a height class, and optionally of a weight, could be parked right now
+   *
+   * @param carHeight The height of the cars
+   * @param carWeight The weight of the cars, or null to count the free parking spaces only
+   * @return The number of fitting cars
+   */
+  public FittingCarsResult countFittingCars(BigDecimal carHeight, BigDecimal carWeight) {
+    var fittingCarsResult = new FittingCarsResult();
+    fittingCarsResult.setCarHeight(carHeight);
+    fittingCarsResult.setCarWeight(carWeight);
+    fittingCarsResult.setFittingCars(occupancyCounters.countFittingCars(carHeight, carWeight));
+    return fittingCarsResult;
+  }
+
+  private FloorOccupancyResult toFloorOccupancyResult(FloorOccupancy floorOccupancy) {
+    var floorOccupancyResult = new FloorOccupancyResult();
+    floorOccupancyResult.setFloor(floorOccupancy.getNumber());
+    floorOccupancyResult.setCeilingHeight(floorOccupancy.getCeilingHeight());
+    floorOccupancyResult.setParkingSpaces(floorOccupancy.getParkingSpaces());
+    floorOccupancyResult.setFreeParkingSpaces(floorOccupancy.getFreeParkingSpaces());
+    floorOccupancyResult.setWeightCapacity(floorOccupancy.getWeightCapacity());
+    floorOccupancyResult.setAllowedWeight(floorOccupancy.getAllowedWeight());
+    return floorOccupancyResult;
+  }
+
+}
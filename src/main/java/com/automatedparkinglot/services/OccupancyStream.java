@@ -0,0 +1,362 @@
+package com.automatedparkinglot.services;
+
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * A push stream of occupancy changes as server-sent events, e.g. for display boards and the
+ * operator dashboard.
+ * <p>
+ * A subscriber first receives an "occupancy" event with all floors, then one with the floors which
+ * have changed, at most once per publish interval: a publisher thread takes the changed floors from
+ * the {@link OccupancyService}, so a burst of parkings on a floor becomes a single update of that
+ * floor. Every update is serialized once and shared by all subscribers. A comment is sent when
+ * nothing has changed for a heartbeat interval, so dead connections are noticed.
+ * <p>
+ * The publisher never writes to a connection itself: every subscriber has a bounded buffer of
+ * updates, drained by a small pool of sender threads. The connections are written without blocking:
+ * a sender leaves a connection which can't take more for now, and the container resumes it once the
+ * connection can be written again, so a subscriber which stopped reading holds no thread. A
+ * subscriber whose buffer is full has fallen behind and is disconnected; it is expected to
+ * reconnect, as browsers do, and to start again from the full state.
+ */
+@Component
+public class OccupancyStream {
+
+  private static final String OCCUPANCY_EVENT = "occupancy";
+
+  private final Logger logger = LoggerFactory.getLogger(OccupancyStream.class);
+
+  private final OccupancyService occupancyService;
+  private final ParkingMetrics parkingMetrics;
+  private final ObjectMapper objectMapper;
+  private final int bufferSize;
+  private final long subscriptionTimeoutInMillis;
+  private final long publishIntervalInMillis;
+  private final long heartbeatIntervalInMillis;
+  private final Map<Subscriber, Boolean> subscribers = new ConcurrentHashMap<>();
+  private final Object publishLock = new Object();
+  private final ExecutorService senderPool;
+  private final Thread publisherThread;
+  private volatile boolean running;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param occupancyService            An {@link OccupancyService} instance
+   * @param parkingMetrics              A {@link ParkingMetrics} instance
+   * @param objectMapper                An {@link ObjectMapper} instance
+   * @param bufferSize                  The maximum number of updates waiting to be sent to a
+   *                                    subscriber before it is disconnected
+   * @param senderThreads               The number of threads writing the updates to the
+   *                                    subscribers
+   * @param subscriptionTimeoutInMillis The time after which a subscription is closed, or 0 to keep
+   *                                    it open until the subscriber disconnects
+   * @param publishIntervalInMillis     The time between two updates
+   * @param heartbeatIntervalInMillis   The time without updates after which a comment is sent
+   */
+  @Autowired
+  public OccupancyStream(OccupancyService occupancyService, ParkingMetrics parkingMetrics,
+      ObjectMapper objectMapper,
+      @Value("${automated-parking-lot.occupancy-stream.buffer-size:16}") int bufferSize,
+      @Value("${automated-parking-lot.occupancy-stream.sender-threads:4}") int senderThreads,
+      @Value("${automated-parking-lot.occupancy-stream.timeout-ms:0}")
+          long subscriptionTimeoutInMillis,
+      @Value("${automated-parking-lot.occupancy-stream.publish-interval-ms:500}")
+          long publishIntervalInMillis,
+      @Value("${automated-parking-lot.occupancy-stream.heartbeat-interval-ms:15000}")
+          long heartbeatIntervalInMillis) {
+    this.occupancyService = occupancyService;
+    this.parkingMetrics = parkingMetrics;
+    this.objectMapper = objectMapper;
+    this.bufferSize = bufferSize;
+    this.subscriptionTimeoutInMillis = subscriptionTimeoutInMillis;
+    this.publishIntervalInMillis = publishIntervalInMillis;
+    this.heartbeatIntervalInMillis = heartbeatIntervalInMillis;
+    var senderThreadNumber = new AtomicInteger();
+    this.senderPool = Executors.newFixedThreadPool(senderThreads, runnable -> {
+      var senderThread = new Thread(runnable,
+          "occupancy-stream-sender-" + senderThreadNumber.incrementAndGet());
+      senderThread.setDaemon(true);
+      return senderThread;
+    });
+    this.publisherThread = new Thread(this::publishUpdates, "occupancy-stream-publisher");
+    this.publisherThread.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    publisherThread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    publisherThread.interrupt();
+    publisherThread.join(TimeUnit.SECONDS.toMillis(5));
+    subscribers.keySet().forEach(this::disconnect);
+    senderPool.shutdown();
+  }
+
+  /**
+   * Subscribes to the occupancy changes, by streaming the events to the response asynchronously
+   *
+   * @param request  The request of the new subscriber
+   * @param response The response the events are streamed to, starting with all floors
+   * @throws IOException If the response can't be written
+   */
+  public void subscribe(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    response.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    var asyncContext = request.startAsync(request, response);
+    asyncContext.setTimeout(subscriptionTimeoutInMillis);
+    var subscriber = new Subscriber(asyncContext, response.getOutputStream(), bufferSize);
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent asyncEvent) {
+        subscribers.remove(subscriber);
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent asyncEvent) {
+        disconnect(subscriber);
+      }
+
+      @Override
+      public void onError(AsyncEvent asyncEvent) {
+        disconnect(subscriber);
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent asyncEvent) {
+        // Started once only
+      }
+    });
+    // Not while changes are being published, so the full state is followed by the changes after it
+    synchronized (publishLock) {
+      this.offer(subscriber, new Update(OCCUPANCY_EVENT,
+          this.serialize(occupancyService.getFloorOccupancies())));
+      subscribers.put(subscriber, Boolean.TRUE);
+    }
+    // Switches the response to non-blocking writes. The container calls the listener once the
+    // connection can be written, and again whenever a write could not be completed at once.
+    subscriber.outputStream.setWriteListener(new WriteListener() {
+      @Override
+      public void onWritePossible() {
+        subscriber.awaitingWritePossible = false;
+        if (subscriber.sending.compareAndSet(false, true)) {
+          send(subscriber);
+        }
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        disconnect(subscriber);
+      }
+    });
+  }
+
+  /**
+   * Counts the current subscribers
+   *
+   * @return The number of subscribers
+   */
+  public int countSubscribers() {
+    return subscribers.size();
+  }
+
+  private void publishUpdates() {
+    var lastPublishInMillis = System.currentTimeMillis();
+    while (running) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(publishIntervalInMillis);
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        synchronized (publishLock) {
+          // Taken even without subscribers, so a later one does not get them after the full state
+          var changedFloorOccupancies = occupancyService.takeChangedFloorOccupancies();
+          Update update;
+          if (!changedFloorOccupancies.isEmpty()) {
+            update = new Update(OCCUPANCY_EVENT, this.serialize(changedFloorOccupancies));
+          } else if (System.currentTimeMillis() - lastPublishInMillis
+              >= heartbeatIntervalInMillis) {
+            update = new Update(null, null);
+          } else {
+            continue;
+          }
+          lastPublishInMillis = System.currentTimeMillis();
+          for (var subscriber : subscribers.keySet()) {
+            this.offer(subscriber, update);
+          }
+        }
+      } catch (RuntimeException runtimeException) {
+        logger.error("The occupancy changes could not be published.", runtimeException);
+      }
+    }
+  }
+
+  private void offer(Subscriber subscriber, Update update) {
+    if (!subscriber.updates.offer(update)) {
+      parkingMetrics.countDroppedSubscriber();
+      this.disconnect(subscriber);
+      return;
+    }
+    // A connection which can't take more is resumed by the container instead
+    if (!subscriber.awaitingWritePossible && subscriber.sending.compareAndSet(false, true)) {
+      senderPool.execute(() -> this.send(subscriber));
+    }
+  }
+
+  /**
+   * Disconnects a subscriber and completes its response, at once unless a sender is working for
+   * it, which then completes the response itself. No write is ever blocked on the connection, so
+   * the response of a subscriber which stopped reading is completed right away as well.
+   *
+   * @param subscriber The subscriber
+   */
+  private void disconnect(Subscriber subscriber) {
+    subscribers.remove(subscriber);
+    subscriber.disconnected = true;
+    subscriber.updates.clear();
+    if (subscriber.sending.compareAndSet(false, true)) {
+      this.complete(subscriber);
+    }
+  }
+
+  private void complete(Subscriber subscriber) {
+    try {
+      subscriber.asyncContext.complete();
+    } catch (IllegalStateException illegalStateException) {
+      // Already completed by the container, e.g. after the subscriber has gone
+    }
+  }
+
+  /**
+   * Writes the buffered updates of a subscriber as long as its connection can take them. Only one
+   * sender at a time works for a subscriber, so its updates are written in order. The response of
+   * a disconnected subscriber is completed by the sender, which never leaves it afterwards, so the
+   * response is completed once.
+   *
+   * @param subscriber The subscriber
+   */
+  private void send(Subscriber subscriber) {
+    do {
+      if (!subscriber.disconnected) {
+        try {
+          this.writeUpdates(subscriber);
+        } catch (IOException | IllegalStateException exception) {
+          // The subscriber has gone
+          this.disconnect(subscriber);
+        }
+      }
+      if (subscriber.disconnected) {
+        this.complete(subscriber);
+        return;
+      }
+      subscriber.sending.set(false);
+      // An update offered or a disconnection after the sender finished would otherwise be missed
+    } while ((subscriber.disconnected
+        || (!subscriber.awaitingWritePossible && !subscriber.updates.isEmpty()))
+        && subscriber.sending.compareAndSet(false, true));
+  }
+
+  private void writeUpdates(Subscriber subscriber) throws IOException {
+    Update update;
+    while (this.isWritable(subscriber)) {
+      if (Objects.isNull(update = subscriber.updates.poll())) {
+        subscriber.outputStream.flush();
+        // A flush which could not be completed at once is finished by the container
+        this.isWritable(subscriber);
+        return;
+      }
+      subscriber.outputStream.write(update.event);
+    }
+  }
+
+  private boolean isWritable(Subscriber subscriber) {
+    // Set beforehand, so the call of the write listener after a false isReady() is never missed
+    subscriber.awaitingWritePossible = true;
+    if (!subscriber.outputStream.isReady()) {
+      return false;
+    }
+    subscriber.awaitingWritePossible = false;
+    return true;
+  }
+
+  private String serialize(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException jsonProcessingException) {
+      throw new IllegalStateException(jsonProcessingException);
+    }
+  }
+
+  /**
+   * An update shared by all subscribers, serialized once as a server-sent event, or as a heartbeat
+   * comment without an event name
+   */
+  private static class Update {
+
+    private final byte[] event;
+
+    private Update(String eventName, String data) {
+      this.event = (Objects.isNull(eventName) ? ":heartbeat\n\n"
+          : "event:" + eventName + "\ndata:" + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * A subscriber with its buffer of updates waiting to be sent. Its connection can't be written
+   * until the container has called the write listener for the first time.
+   */
+  private static class Subscriber {
+
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream outputStream;
+    private final Queue<Update> updates;
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile boolean awaitingWritePossible = true;
+    private volatile boolean disconnected;
+
+    private Subscriber(AsyncContext asyncContext, ServletOutputStream outputStream,
+        int bufferSize) {
+      this.asyncContext = asyncContext;
+      this.outputStream = outputStream;
+      this.updates = new ArrayBlockingQueue<>(bufferSize);
+    }
+  }
+
+}
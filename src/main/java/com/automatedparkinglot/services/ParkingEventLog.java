@@ -0,0 +1,238 @@
+package com.automatedparkinglot.services;
+
+import com.automatedparkinglot.entities.Bill;
+import com.automatedparkinglot.enums.ParkingEventType;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.automatedparkinglot.util.PlaceholderPrinter;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * An asynchronous log of the movements of cars and of generated bills.
+ * <p>
+ * Request threads only put the raw event data into a bounded queue, which never blocks: if the
+ * queue is full, the event is dropped and counted. A single writer thread formats the events and
+ * writes them to the "parking-events" logger in a compact key=value format, e.g.
+ * <pre>
+ * event=car-assigned at=2022-05-14T10:15:30.123Z carId=11-AA parkingSpaceId=21 floor=3
+ * </pre>
+ * The human-readable banners of {@link PlaceholderPrinter} can be printed in addition, also by the
+ * writer thread.
+ */
+@Component
+public class ParkingEventLog {
+
+  private final Logger eventLogger = LoggerFactory.getLogger("parking-events");
+  private final Logger logger = LoggerFactory.getLogger(ParkingEventLog.class);
+
+  private final ParkingMetrics parkingMetrics;
+  private final BlockingQueue<ParkingEvent> events;
+  private final boolean bannersEnabled;
+  private final Thread writerThread;
+  private volatile boolean running;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param parkingMetrics A {@link ParkingMetrics} instance
+   * @param queueCapacity  The maximum number of events waiting to be written
+   * @param bannersEnabled Whether the human-readable banners are printed as well
+   */
+  @Autowired
+  public ParkingEventLog(ParkingMetrics parkingMetrics,
+      @Value("${automated-parking-lot.event-log.queue-capacity:10000}") int queueCapacity,
+      @Value("${automated-parking-lot.event-log.banners:false}") boolean bannersEnabled) {
+    this.parkingMetrics = parkingMetrics;
+    this.events = new ArrayBlockingQueue<>(queueCapacity);
+    this.bannersEnabled = bannersEnabled;
+    this.writerThread = new Thread(this::writeEvents, "parking-event-log");
+    this.writerThread.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    writerThread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    writerThread.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  /**
+   * Logs that a car is being transported to the parking lot
+   *
+   * @param carId The ID of the car
+   */
+  public void carArriving(String carId) {
+    this.log(new ParkingEvent(ParkingEventType.CAR_ARRIVING, System.currentTimeMillis(), carId,
+        null, null, null));
+  }
+
+  /**
+   * Logs that a car has been assigned to a parking space
+   *
+   * @param carId          The ID of the car
+   * @param parkingSpaceId The ID of the parking space
+   * @param floor          The ordinal number of the floor
+   */
+  public void carAssigned(String carId, Long parkingSpaceId, Integer floor) {
+    this.log(new ParkingEvent(ParkingEventType.CAR_ASSIGNED, System.currentTimeMillis(), carId,
+        parkingSpaceId, floor, null));
+  }
+
+  /**
+   * Logs that a car is being transported out of the parking lot
+   *
+   * @param carId The ID of the car
+   */
+  public void carLeaving(String carId) {
+    this.log(new ParkingEvent(ParkingEventType.CAR_LEAVING, System.currentTimeMillis(), carId,
+        null, null, null));
+  }
+
+  /**
+   * Logs that the parking of a car is over and that it is to be billed
+   *
+   * @param carId          The ID of the car
+   * @param parkingSpaceId The ID of the parking space the car was parked in
+   * @param floor          The ordinal number of the floor the car was parked on
+   */
+  public void parkingOver(String carId, Long parkingSpaceId, Integer floor) {
+    this.log(new ParkingEvent(ParkingEventType.PARKING_OVER, System.currentTimeMillis(), carId,
+        parkingSpaceId, floor, null));
+  }
+
+  /**
+   * Logs that a parking space has been reserved for a car which has not arrived yet
+   *
+   * @param carId          The ID of the car
+   * @param parkingSpaceId The ID of the reserved parking space
+   * @param floor          The ordinal number of the floor
+   */
+  public void spaceReserved(String carId, Long parkingSpaceId, Integer floor) {
+    this.log(new ParkingEvent(ParkingEventType.SPACE_RESERVED, System.currentTimeMillis(), carId,
+        parkingSpaceId, floor, null));
+  }
+
+  /**
+   * Logs that a reservation has been cancelled or has expired, or that the arriving car did not fit
+   * it, so the parking space has been released without the car
+   *
+   * @param carId          The ID of the car
+   * @param parkingSpaceId The ID of the released parking space
+   * @param floor          The ordinal number of the floor
+   */
+  public void reservationReleased(String carId, Long parkingSpaceId, Integer floor) {
+    this.log(new ParkingEvent(ParkingEventType.RESERVATION_RELEASED, System.currentTimeMillis(),
+        carId, parkingSpaceId, floor, null));
+  }
+
+  /**
+   * Logs that the transport of a parked car into its parking space is completed
+   *
+   * @param carId          The ID of the car
+   * @param parkingSpaceId The ID of the parking space
+   * @param floor          The ordinal number of the floor
+   */
+  public void carStored(String carId, Long parkingSpaceId, Integer floor) {
+    this.log(new ParkingEvent(ParkingEventType.CAR_STORED, System.currentTimeMillis(), carId,
+        parkingSpaceId, floor, null));
+  }
+
+  /**
+   * Logs that the transport of a pulled out car to the exit is completed
+   *
+   * @param carId The ID of the car
+   */
+  public void carDelivered(String carId) {
+    this.log(new ParkingEvent(ParkingEventType.CAR_DELIVERED, System.currentTimeMillis(), carId,
+        null, null, null));
+  }
+
+  /**
+   * Logs a generated bill
+   *
+   * @param bill The bill
+   */
+  public void billGenerated(Bill bill) {
+    this.log(new ParkingEvent(ParkingEventType.BILL_GENERATED, System.currentTimeMillis(),
+        bill.getCarId(), null, null, bill));
+  }
+
+  private void log(ParkingEvent event) {
+    if (!events.offer(event)) {
+      parkingMetrics.countDroppedEvent();
+    }
+  }
+
+  private void writeEvents() {
+    while (running || !events.isEmpty()) {
+      try {
+        var event = events.poll(100, TimeUnit.MILLISECONDS);
+        if (Objects.nonNull(event)) {
+          this.write(event);
+        }
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException runtimeException) {
+        logger.error("An event could not be written to the event log.", runtimeException);
+      }
+    }
+  }
+
+  private void write(ParkingEvent event) {
+    var at = Instant.ofEpochMilli(event.timestamp);
+    var type = event.type;
+    if (type == ParkingEventType.BILL_GENERATED) {
+      var bill = event.bill;
+      eventLogger.info(
+          "event={} at={} carId={} billingFrom=\"{}\" billingTo=\"{}\" pricePerMinute={} totalAmount={}",
+          type.getEventName(), at, bill.getCarId(), bill.getBillingFrom(), bill.getBillingTo(),
+          bill.getPricePerMinute(), bill.getTotalAmountToBePaid());
+      if (bannersEnabled) {
+        PlaceholderPrinter.printBill(bill);
+      }
+      return;
+    }
+    if (Objects.isNull(event.parkingSpaceId)) {
+      eventLogger.info("event={} at={} carId={}", type.getEventName(), at, event.carId);
+    } else {
+      eventLogger.info("event={} at={} carId={} parkingSpaceId={} floor={}", type.getEventName(),
+          at, event.carId, event.parkingSpaceId, event.floor);
+    }
+    if (bannersEnabled) {
+      PlaceholderPrinter.printMovementInformation(String.format(type.getBannerFormat(),
+          event.carId, event.parkingSpaceId, event.floor));
+    }
+  }
+
+  /**
+   * The raw data of an event, formatted by the writer thread only
+   */
+  @AllArgsConstructor
+  private static class ParkingEvent {
+
+    private final ParkingEventType type;
+    private final long timestamp;
+    private final String carId;
+    private final Long parkingSpaceId;
+    private final Integer floor;
+    private final Bill bill;
+  }
+
+}
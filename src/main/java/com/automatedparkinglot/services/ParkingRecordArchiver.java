@@ -0,0 +1,141 @@
+package com.automatedparkinglot.services;
+
+import com.automatedparkinglot.enums.ParkingStatus;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A background archiver moving completed parking records from parking_records to
+ * parking_records_history, so the table searched by every parking and pull-out keeps roughly one
+ * row per parked car however long the lot has been operated.
+ * <p>
+ * Only billed parking records are archived, since the bill writer still needs the unbilled ones.
+ * They are copied and deleted in batches, one transaction per batch, so archiving a large backlog
+ * neither holds long locks nor builds a large transaction. Archived parking records are never
+ * updated again, and they keep their IDs.
+ * <p>
+ * An export reads both tables through cursors while other requests go on, so a parking record
+ * moved during an export could be read from both tables or from neither. Exports therefore run
+ * while no batch is being archived, and archiving stops until the next run while an export is in
+ * progress.
+ */
+@Component
+public class ParkingRecordArchiver {
+
+  private static final String COLUMNS = "id, allowed_weight_on_floor_before_parking, billed, "
+      + "car_height, car_id, car_weight, emptying_timestamp, floor, parking_space_id, "
+      + "parking_timestamp, status";
+
+  private final Logger logger = LoggerFactory.getLogger(ParkingRecordArchiver.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ParkingMetrics parkingMetrics;
+  private final int batchSize;
+  // Shared by the exports, and taken exclusively by a batch
+  private final ReentrantReadWriteLock exportLock = new ReentrantReadWriteLock();
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param jdbcTemplate       A {@link JdbcTemplate} instance
+   * @param transactionManager A {@link PlatformTransactionManager} instance
+   * @param parkingMetrics     A {@link ParkingMetrics} instance
+   * @param batchSize          The maximum number of parking records archived in one transaction
+   */
+  @Autowired
+  public ParkingRecordArchiver(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager, ParkingMetrics parkingMetrics,
+      @Value("${automated-parking-lot.archival.batch-size:1000}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.parkingMetrics = parkingMetrics;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Archives all billed parking records, batch by batch
+   *
+   * @return The number of archived parking records
+   */
+  @Scheduled(initialDelayString = "${automated-parking-lot.archival.interval-ms:600000}",
+      fixedDelayString = "${automated-parking-lot.archival.interval-ms:600000}")
+  public long archive() {
+    long archivedParkingRecords = 0;
+    int batch;
+    do {
+      batch = this.archiveBatch();
+      archivedParkingRecords += batch;
+    } while (batch == batchSize);
+    if (archivedParkingRecords > 0) {
+      logger.info("{} completed parking records have been archived.", archivedParkingRecords);
+    }
+    return archivedParkingRecords;
+  }
+
+  /**
+   * Runs an export of parking records while no parking record is being archived, and holds off
+   * archiving until it ends
+   *
+   * @param export The export
+   * @param <T>    The type of the result of the export
+   * @return The result of the export
+   */
+  public <T> T runWithoutArchiving(Supplier<T> export) {
+    exportLock.readLock().lock();
+    try {
+      return export.get();
+    } finally {
+      exportLock.readLock().unlock();
+    }
+  }
+
+  private int archiveBatch() {
+    if (!exportLock.writeLock().tryLock()) {
+      logger.debug("Archiving is held off by an export in progress.");
+      return 0;
+    }
+    Integer archivedParkingRecords;
+    try {
+      archivedParkingRecords = this.archiveBatchInTransaction();
+    } finally {
+      exportLock.writeLock().unlock();
+    }
+    if (Objects.isNull(archivedParkingRecords)) {
+      return 0;
+    }
+    parkingMetrics.countArchivedParkingRecords(archivedParkingRecords);
+    return archivedParkingRecords;
+  }
+
+  private Integer archiveBatchInTransaction() {
+    return transactionTemplate.execute(status -> {
+      var ids = jdbcTemplate.queryForList(
+          "SELECT id FROM parking_records WHERE billed = TRUE AND status = ? LIMIT ?", Long.class,
+          ParkingStatus.PARKING_OVER.ordinal(), batchSize);
+      if (ids.isEmpty()) {
+        return 0;
+      }
+      var idList = String.join(", ", Collections.nCopies(ids.size(), "?"));
+      var idArguments = ids.toArray();
+      jdbcTemplate.update("INSERT INTO parking_records_history (" + COLUMNS + ") SELECT "
+          + COLUMNS + " FROM parking_records WHERE id IN (" + idList + ")", idArguments);
+      jdbcTemplate.update("DELETE FROM parking_records WHERE id IN (" + idList + ")",
+          idArguments);
+      return ids.size();
+    });
+  }
+
+}
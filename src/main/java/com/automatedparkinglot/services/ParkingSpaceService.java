@@ -1,7 +1,16 @@
 package com.automatedparkinglot.services;
 
 import com.automatedparkinglot.entities.ParkingSpace;
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.lotstate.ParkingSpaceAllocator;
 import com.automatedparkinglot.repositories.ParkingSpaceRepository;
+import com.automatedparkinglot.util.TransactionHooks;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -12,10 +21,15 @@ import org.springframework.stereotype.Service;
 public class ParkingSpaceService {
 
   private final ParkingSpaceRepository parkingSpaceRepository;
+  private final ParkingSpaceAllocator parkingSpaceAllocator;
+  private final FloorIndex floorIndex;
 
   @Autowired
-  public ParkingSpaceService(ParkingSpaceRepository parkingSpaceRepository) {
+  public ParkingSpaceService(ParkingSpaceRepository parkingSpaceRepository,
+      ParkingSpaceAllocator parkingSpaceAllocator, FloorIndex floorIndex) {
     this.parkingSpaceRepository = parkingSpaceRepository;
+    this.parkingSpaceAllocator = parkingSpaceAllocator;
+    this.floorIndex = floorIndex;
   }
 
   /**
@@ -24,26 +38,61 @@ public class ParkingSpaceService {
    *
    * @param floorNumber The ordinal number of the floor on which the car is to be parked
    * @param carId       The ID of the car to be parked
-   * @return The parking space in/to which the car has been parked/assigned
+   * @return The parking space in/to which the car has been parked/assigned, or null if the floor
+   * turned out to have no available parking space
    */
   public ParkingSpace parkCarInAFreeParkingSpace(Integer floorNumber, String carId) {
-    var availableParkingSpacesOnFloor = parkingSpaceRepository.findAvailableParkingSpacesOnFloor(
-        floorNumber);
-    var parkingSpace = availableParkingSpacesOnFloor.get(
-        0); // Assign car to the first available space on the floor
-    parkingSpace.setOccupyingCarId(carId);
-    return parkingSpaceRepository.save(parkingSpace);
+    // Assign car to the first available space on the floor
+    var parkingSpaceId = parkingSpaceAllocator.allocate(floorNumber);
+    while (Objects.nonNull(parkingSpaceId)) {
+      if (parkingSpaceRepository.occupyParkingSpaceIfEmpty(parkingSpaceId, carId) == 1) {
+        floorIndex.changeFreeParkingSpaces(floorNumber, -1);
+        var occupiedParkingSpaceId = parkingSpaceId;
+        TransactionHooks.runOnRollback(() -> {
+          parkingSpaceAllocator.release(floorNumber, occupiedParkingSpaceId);
+          floorIndex.changeFreeParkingSpaces(floorNumber, 1);
+        });
+        var parkingSpace = new ParkingSpace();
+        parkingSpace.setId(parkingSpaceId);
+        parkingSpace.setFloor(floorNumber);
+        parkingSpace.setOccupyingCarId(carId);
+        return parkingSpace;
+      }
+      // The parking space was occupied behind the allocator, so leave it allocated and try another
+      parkingSpaceId = parkingSpaceAllocator.allocate(floorNumber);
+    }
+    floorIndex.markFloorFull(floorNumber);
+    return null;
   }
 
   /**
    * Empties a parking space from which the parking car is to be pulled out of the parking lot
    *
-   * @param carId The ID of the car to be pulled out to empty the assigned parking space
+   * @param occupiedParkingSpace The parking space occupied by the car to be pulled out
    */
-  public void emptyParkingSpace(String carId) {
-    var occupiedParkingSpace = parkingSpaceRepository.findParkingSpaceByOccupyingCarId(carId);
-    occupiedParkingSpace.setOccupyingCarId(null);
-    parkingSpaceRepository.save(occupiedParkingSpace);
+  public void emptyParkingSpace(ParkingSpace occupiedParkingSpace) {
+    this.emptyParkingSpace(occupiedParkingSpace.getFloor(), occupiedParkingSpace.getId(),
+        occupiedParkingSpace.getOccupyingCarId());
+  }
+
+  /**
+   * Empties a parking space by its ID, without loading it
+   *
+   * @param floorNumber    The ordinal number of the floor the parking space is on
+   * @param parkingSpaceId The ID of the parking space occupied by the car to be pulled out
+   * @param carId          The ID of the car to be pulled out
+   */
+  public void emptyParkingSpace(Integer floorNumber, Long parkingSpaceId, String carId) {
+    // The parking space is only emptied if the car is still there, so a car can't leave twice
+    if (parkingSpaceRepository.vacateParkingSpaceIfOccupiedBy(parkingSpaceId, carId) == 0) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_PARKED_CAR_WITH_THIS_ID);
+    }
+    parkingSpaceAllocator.release(floorNumber, parkingSpaceId);
+    floorIndex.changeFreeParkingSpaces(floorNumber, 1);
+    TransactionHooks.runOnRollback(() -> {
+      parkingSpaceAllocator.occupy(floorNumber, parkingSpaceId);
+      floorIndex.changeFreeParkingSpaces(floorNumber, -1);
+    });
   }
 
   /**
@@ -56,4 +105,17 @@ public class ParkingSpaceService {
     return parkingSpaceRepository.findParkingSpaceByOccupyingCarId(carId);
   }
 
+  /**
+   * Finds which of the given cars are already parked in the lot by a single query
+   *
+   * @param carIds The IDs of the cars to be checked
+   * @return The IDs of the cars occupying a parking space
+   */
+  public Set<String> findParkedCars(Collection<String> carIds) {
+    if (carIds.isEmpty()) {
+      return Set.of();
+    }
+    return new HashSet<>(parkingSpaceRepository.findOccupyingCarIdsAmong(carIds));
+  }
+
 }
@@ -0,0 +1,197 @@
+package com.automatedparkinglot.services;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.lotstate.Reservation;
+import com.automatedparkinglot.lotstate.ReservationRegistry;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.automatedparkinglot.util.TransactionHooks;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A service to hold reserved parking spaces until their cars arrive, and to release them when the
+ * reservations are cancelled or expire.
+ * <p>
+ * A reserved parking space is occupied by the car's ID and the car's weight is taken from the
+ * floor, exactly as if the car were parked, so other cars cannot take either. When the car arrives,
+ * its reservation is claimed and converted to a parking record without selecting a floor again.
+ * <p>
+ * Reservations expire after automated-parking-lot.reservations.ttl-ms. A single ticker thread
+ * advances the timing wheel of the {@link ReservationRegistry} every tick and releases the expired
+ * reservations, each in its own transaction.
+ */
+@Service
+public class ReservationService {
+
+  private final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+  private final ReservationRegistry reservationRegistry;
+  private final ParkingSpaceService parkingSpaceService;
+  private final FloorService floorService;
+  private final ParkingMetrics parkingMetrics;
+  private final ParkingEventLog parkingEventLog;
+  private final TransactionTemplate transactionTemplate;
+  private final long timeToLiveInMillis;
+  private final long tickDurationInMillis;
+  private final Thread tickerThread;
+  private volatile boolean running;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param reservationRegistry  A {@link ReservationRegistry} instance
+   * @param parkingSpaceService  A {@link ParkingSpaceService} instance
+   * @param floorService         A {@link FloorService} instance
+   * @param parkingMetrics       A {@link ParkingMetrics} instance
+   * @param parkingEventLog      A {@link ParkingEventLog} instance
+   * @param transactionTemplate  A {@link TransactionTemplate} instance
+   * @param timeToLiveInMillis   The time a reservation is held for its car
+   * @param tickDurationInMillis The time between two expiry checks
+   */
+  @Autowired
+  public ReservationService(ReservationRegistry reservationRegistry,
+      ParkingSpaceService parkingSpaceService, FloorService floorService,
+      ParkingMetrics parkingMetrics, ParkingEventLog parkingEventLog,
+      TransactionTemplate transactionTemplate,
+      @Value("${automated-parking-lot.reservations.ttl-ms:900000}") long timeToLiveInMillis,
+      @Value("${automated-parking-lot.reservations.tick-ms:100}") long tickDurationInMillis) {
+    this.reservationRegistry = reservationRegistry;
+    this.parkingSpaceService = parkingSpaceService;
+    this.floorService = floorService;
+    this.parkingMetrics = parkingMetrics;
+    this.parkingEventLog = parkingEventLog;
+    this.transactionTemplate = transactionTemplate;
+    this.timeToLiveInMillis = timeToLiveInMillis;
+    this.tickDurationInMillis = tickDurationInMillis;
+    this.tickerThread = new Thread(this::expireReservations, "parking-reservation-expiry");
+    this.tickerThread.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    tickerThread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    tickerThread.interrupt();
+    tickerThread.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  /**
+   * Calculates when a reservation made now expires
+   *
+   * @return The expiry time in milliseconds since the epoch
+   */
+  public long calculateExpiryTime() {
+    return System.currentTimeMillis() + timeToLiveInMillis;
+  }
+
+  /**
+   * Registers a reservation whose parking space and floor weight have just been taken, and drops it
+   * again if the reservation is rolled back
+   *
+   * @param reservation The reservation
+   */
+  public void register(Reservation reservation) {
+    if (!reservationRegistry.add(reservation)) {
+      // The same car has been reserved a parking space by a concurrent request
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.CAR_ALREADY_RESERVED);
+    }
+    TransactionHooks.runOnRollback(() -> reservationRegistry.remove(reservation));
+    parkingEventLog.spaceReserved(reservation.getCarId(), reservation.getParkingSpaceId(),
+        reservation.getFloor());
+  }
+
+  /**
+   * Checks if a car has a reservation
+   *
+   * @param carId The ID of the car
+   * @return Whether the car has a reservation
+   */
+  public boolean isReserved(String carId) {
+    return reservationRegistry.contains(carId);
+  }
+
+  /**
+   * Claims the reservation of an arriving car. If the car is higher or heavier than announced, the
+   * reservation is released instead, so the car is parked like a car without a reservation.
+   *
+   * @param parkingRequest Parking request of the arriving car, whose fields are validated
+   * @return The reservation to convert to a parking record, or null if there is none to use
+   */
+  public Reservation claimReservation(ParkingRequest parkingRequest) {
+    var reservation = reservationRegistry.claim(parkingRequest.getCarId());
+    if (Objects.isNull(reservation)) {
+      return null;
+    }
+    TransactionHooks.runOnRollback(() -> reservationRegistry.add(reservation));
+    if (reservation.fits(parkingRequest.getCarHeight(), parkingRequest.getCarWeight())) {
+      return reservation;
+    }
+    this.release(reservation);
+    return null;
+  }
+
+  /**
+   * Cancels the reservation of a car and releases its parking space
+   *
+   * @param carId The ID of the car
+   */
+  @Transactional
+  public void cancelReservation(String carId) {
+    var reservation = reservationRegistry.claim(carId);
+    if (Objects.isNull(reservation)) {
+      throw AutomatedParkingException.of(AutomatedParkingExceptionCode.NO_RESERVATION_WITH_THIS_ID);
+    }
+    TransactionHooks.runOnRollback(() -> reservationRegistry.add(reservation));
+    this.release(reservation);
+  }
+
+  /**
+   * Empties the reserved parking space and gives the reserved weight back to the floor
+   *
+   * @param reservation The reservation, which has been taken out of the registry
+   */
+  private void release(Reservation reservation) {
+    parkingSpaceService.emptyParkingSpace(reservation.getFloor(), reservation.getParkingSpaceId(),
+        reservation.getCarId());
+    floorService.updateFloor(reservation.getFloor(), reservation.getCarWeight(), false);
+    parkingEventLog.reservationReleased(reservation.getCarId(), reservation.getParkingSpaceId(),
+        reservation.getFloor());
+  }
+
+  private void expireReservations() {
+    while (running) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(tickDurationInMillis);
+      } catch (InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      for (var reservation : reservationRegistry.expire(System.currentTimeMillis())) {
+        try {
+          transactionTemplate.executeWithoutResult(status -> this.release(reservation));
+          parkingMetrics.countExpiredReservation();
+        } catch (RuntimeException runtimeException) {
+          logger.error("The expired reservation of the car {} could not be released.",
+              reservation.getCarId(), runtimeException);
+        }
+      }
+    }
+  }
+
+}
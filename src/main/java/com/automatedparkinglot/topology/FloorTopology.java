@@ -0,0 +1,20 @@
+package com.automatedparkinglot.topology;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The layout of a floor in a {@link LotTopology}: floor's ordinal number from ground, floor's
+ * ceiling height, floor's maximum weight capacity, and the number of parking spaces on the floor
+ */
+@Getter
+@AllArgsConstructor
+public class FloorTopology {
+
+  private final Integer number;
+  private final BigDecimal ceilingHeight;
+  private final BigDecimal weightCapacity;
+  private final int parkingSpaces;
+
+}
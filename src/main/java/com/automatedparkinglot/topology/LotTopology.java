@@ -0,0 +1,133 @@
+package com.automatedparkinglot.topology;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The layout of a parking lot: its floors and the number of parking spaces on each of them.
+ * <p>
+ * A topology is described in CSV, one floor per line after the header, e.g.
+ * <pre>
+ * floor,ceiling_height,weight_capacity,parking_spaces
+ * 1,195,25000,10
+ * </pre>
+ * Empty lines and lines starting with # are ignored.
+ */
+@Getter
+@AllArgsConstructor
+public class LotTopology {
+
+  private static final String HEADER = "floor,ceiling_height,weight_capacity,parking_spaces";
+
+  private final List<FloorTopology> floors;
+
+  /**
+   * Reads a topology from its CSV description
+   *
+   * @param reader The reader of the CSV description
+   * @return The topology
+   * @throws IOException If the description cannot be read
+   */
+  public static LotTopology read(Reader reader) throws IOException {
+    var floors = new ArrayList<FloorTopology>();
+    var floorNumbers = new HashSet<Integer>();
+    var lines = new BufferedReader(reader);
+    var lineNumber = 0;
+    var headerRead = false;
+    for (var line = lines.readLine(); line != null; line = lines.readLine()) {
+      lineNumber++;
+      line = line.strip();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      if (!headerRead) {
+        if (!HEADER.equals(line.replace(" ", ""))) {
+          throw new IllegalArgumentException(
+              "The lot topology must start with the header " + HEADER + ".");
+        }
+        headerRead = true;
+        continue;
+      }
+      var fields = line.split(",");
+      try {
+        if (fields.length != 4) {
+          throw new IllegalArgumentException("4 fields are expected");
+        }
+        var floor = new FloorTopology(Integer.valueOf(fields[0].strip()),
+            new BigDecimal(fields[1].strip()), new BigDecimal(fields[2].strip()),
+            Integer.parseInt(fields[3].strip()));
+        if (floor.getParkingSpaces() < 0 || floor.getWeightCapacity().signum() < 0) {
+          throw new IllegalArgumentException("negative capacity");
+        }
+        if (!floorNumbers.add(floor.getNumber())) {
+          throw new IllegalArgumentException("duplicate floor " + floor.getNumber());
+        }
+        floors.add(floor);
+      } catch (IllegalArgumentException illegalArgumentException) {
+        throw new IllegalArgumentException("Invalid floor on line " + lineNumber
+            + " of the lot topology: " + illegalArgumentException.getMessage(),
+            illegalArgumentException);
+      }
+    }
+    return new LotTopology(floors);
+  }
+
+  /**
+   * Generates a synthetic topology, e.g. of hundreds of floors and 100k+ parking spaces for tests
+   * and benchmarks. Ceiling heights are between 130 and 250 cm, the top floor fitting every car,
+   * and the weight capacity is 2500 kg per parking space.
+   *
+   * @param floors                The number of floors
+   * @param parkingSpacesPerFloor The number of parking spaces on each floor
+   * @param seed                  The seed of the ceiling heights, so the same lot can be generated
+   *                              again
+   * @return The topology
+   */
+  public static LotTopology generate(int floors, int parkingSpacesPerFloor, long seed) {
+    var random = new SplittableRandom(seed);
+    var weightCapacity = BigDecimal.valueOf(2500L * parkingSpacesPerFloor);
+    var floorTopologies = new ArrayList<FloorTopology>(floors);
+    for (int floor = 1; floor <= floors; floor++) {
+      var ceilingHeight = floor == floors ? 250 : random.nextInt(130, 251);
+      floorTopologies.add(new FloorTopology(floor, BigDecimal.valueOf(ceilingHeight),
+          weightCapacity, parkingSpacesPerFloor));
+    }
+    return new LotTopology(floorTopologies);
+  }
+
+  /**
+   * Writes the CSV description of the topology
+   *
+   * @param writer The writer of the CSV description
+   * @throws IOException If the description cannot be written
+   */
+  public void write(Writer writer) throws IOException {
+    writer.write(HEADER);
+    writer.write(System.lineSeparator());
+    for (var floor : floors) {
+      writer.write(floor.getNumber() + "," + floor.getCeilingHeight().toPlainString() + ","
+          + floor.getWeightCapacity().toPlainString() + "," + floor.getParkingSpaces());
+      writer.write(System.lineSeparator());
+    }
+    writer.flush();
+  }
+
+  /**
+   * Counts the parking spaces of the lot
+   *
+   * @return The number of parking spaces on all floors
+   */
+  public long countParkingSpaces() {
+    return floors.stream().mapToLong(FloorTopology::getParkingSpaces).sum();
+  }
+
+}
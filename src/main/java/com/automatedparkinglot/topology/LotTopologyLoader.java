@@ -0,0 +1,102 @@
+package com.automatedparkinglot.topology;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulk-loads the {@link LotTopology} into the floors and parking_spaces tables when the application
+ * starts, replacing the previous lot along with its parking records and bills.
+ * <p>
+ * The previous lot is truncated rather than deleted row by row. Floors are inserted by a single
+ * JDBC batch, and the parking spaces of each floor by one INSERT ... SELECT over H2's SYSTEM_RANGE,
+ * so a lot of 100k parking spaces takes a few hundred statements instead of 100k.
+ * <p>
+ * The topology is read from automated-parking-lot.topology.location.
+ */
+@Component
+public class LotTopologyLoader {
+
+  private final Logger logger = LoggerFactory.getLogger(LotTopologyLoader.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Resource topologyLocation;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param jdbcTemplate     A {@link JdbcTemplate} instance
+   * @param topologyLocation The CSV description of the lot topology
+   */
+  @Autowired
+  public LotTopologyLoader(JdbcTemplate jdbcTemplate,
+      @Value("${automated-parking-lot.topology.location:classpath:lot-topology.csv}")
+          Resource topologyLocation) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.topologyLocation = topologyLocation;
+  }
+
+  /**
+   * Loads the configured topology at startup and logs how long it took
+   *
+   * @throws IOException If the topology cannot be read
+   */
+  public void loadOnStartup() throws IOException {
+    var start = System.nanoTime();
+    var topology = this.load();
+    logger.info("Loaded a lot of {} floors and {} parking spaces from {} in {} ms.",
+        topology.getFloors().size(), topology.countParkingSpaces(), topologyLocation,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * Reads the configured topology and loads it into the database
+   *
+   * @return The loaded topology
+   * @throws IOException If the topology cannot be read
+   */
+  public LotTopology load() throws IOException {
+    LotTopology topology;
+    try (var reader = new InputStreamReader(topologyLocation.getInputStream(),
+        StandardCharsets.UTF_8)) {
+      topology = LotTopology.read(reader);
+    }
+    this.load(topology);
+    return topology;
+  }
+
+  /**
+   * Replaces the lot in the database with the given topology
+   *
+   * @param topology The topology
+   */
+  public void load(LotTopology topology) {
+    // Truncating is immediate whatever the size of the previous lot, and restarts the IDs
+    jdbcTemplate.execute("TRUNCATE TABLE bills");
+    jdbcTemplate.execute("TRUNCATE TABLE parking_records_history");
+    jdbcTemplate.execute("TRUNCATE TABLE parking_records RESTART IDENTITY");
+    jdbcTemplate.execute("TRUNCATE TABLE parking_spaces RESTART IDENTITY");
+    jdbcTemplate.execute("TRUNCATE TABLE floors RESTART IDENTITY");
+    var floorRows = new ArrayList<Object[]>(topology.getFloors().size());
+    var parkingSpaceRows = new ArrayList<Object[]>(topology.getFloors().size());
+    for (var floor : topology.getFloors()) {
+      floorRows.add(new Object[]{floor.getCeilingHeight(), floor.getNumber(),
+          floor.getWeightCapacity(), floor.getWeightCapacity()});
+      parkingSpaceRows.add(new Object[]{floor.getNumber(), floor.getParkingSpaces()});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO floors (ceiling_height, number, allowed_weight, "
+        + "weight_capacity) VALUES (?, ?, ?, ?)", floorRows);
+    jdbcTemplate.batchUpdate("INSERT INTO parking_spaces (floor) "
+        + "SELECT CAST(? AS INT) FROM SYSTEM_RANGE(1, ?)", parkingSpaceRows);
+  }
+
+}
@@ -0,0 +1,118 @@
+package com.automatedparkinglot.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A utility class to calculate bills in fixed-point arithmetic. Amounts are handled as longs in
+ * minor units, i.e. hundredths (cents for prices, and the last two decimal places of the weight
+ * columns for weights), and durations as whole minutes.
+ * <p>
+ * Rounding:
+ * <ul>
+ *   <li>The parking duration is rounded down to whole minutes.</li>
+ *   <li>The price-per-minute is rounded down to the cent: floor(100 * allowed weight before
+ *   parking / weight capacity) cents, with the exception below.</li>
+ *   <li>The parking fee is the duration multiplied by the price-per-minute, which is exact.</li>
+ * </ul>
+ * Prices are the same as the ones of the former formula, which divided the weights as doubles and
+ * rounded the quotient down to two decimal places. The weights are not exact as doubles, so when the
+ * quotient is exactly a whole number of cents, the double quotient may fall just below it and was
+ * rounded down to one cent less (e.g. 200298.36 / 500745.90 = 0.40 was priced 0.39). This case is
+ * reproduced, so bills do not change. Otherwise, the quotient is at least 1 / weight capacity away
+ * from a whole number of cents, which is far more than the error of a double division as long as
+ * weight capacities are below 10^12 minor units.
+ */
+public class BillCalculator {
+
+  /**
+   * The number of decimal places of amounts in minor units
+   */
+  public static final int MINOR_UNIT_SCALE = 2;
+
+  /**
+   * The format of the parking start and end timestamps on a bill
+   */
+  public static final DateTimeFormatter BILLING_TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern(
+      "dd.MM.yyyy HH:mm");
+
+  private BillCalculator() {
+  }
+
+  /**
+   * Converts an amount with at most two decimal places to minor units. Amounts are never rounded:
+   * the weight columns have two decimal places, so an amount with more of them is rejected.
+   *
+   * @param amount The amount, e.g. a weight from the database
+   * @return The amount in hundredths
+   * @throws IllegalArgumentException If the amount has more than two non-zero decimal places
+   */
+  public static long toMinorUnits(BigDecimal amount) {
+    if (amount.scale() > MINOR_UNIT_SCALE
+        && amount.stripTrailingZeros().scale() > MINOR_UNIT_SCALE) {
+      throw new IllegalArgumentException(
+          "An amount in minor units has at most two decimal places: " + amount);
+    }
+    // setScale returns the amount itself if it already has two decimal places, as database values do
+    return amount.setScale(MINOR_UNIT_SCALE, RoundingMode.UNNECESSARY).unscaledValue()
+        .longValueExact();
+  }
+
+  /**
+   * Converts an amount in minor units back to a decimal with two decimal places
+   *
+   * @param amountInMinorUnits The amount in hundredths
+   * @return The amount as a decimal
+   */
+  public static BigDecimal fromMinorUnits(long amountInMinorUnits) {
+    return BigDecimal.valueOf(amountInMinorUnits, MINOR_UNIT_SCALE);
+  }
+
+  /**
+   * Calculates a price-per-minute rate based on demand on the floor
+   *
+   * @param allowedWeightBeforeParking The allowed weight on the floor before parking, in minor
+   *                                   units
+   * @param weightCapacity             The weight capacity of the floor, in minor units
+   * @return The price-per-minute in cents, rounded down
+   */
+  public static long calculatePricePerMinuteInCents(long allowedWeightBeforeParking,
+      long weightCapacity) {
+    var pricePerMinuteInCents = Math.multiplyExact(allowedWeightBeforeParking, 100L)
+        / weightCapacity;
+    // The former double quotient (both weights are below 2^52, so they are converted as exactly as
+    // BigDecimal.doubleValue() converts them)
+    var doubleQuotient = ((double) allowedWeightBeforeParking / 100)
+        / ((double) weightCapacity / 100);
+    return doubleQuotient < pricePerMinuteInCents / 100.0 ? pricePerMinuteInCents - 1
+        : pricePerMinuteInCents;
+  }
+
+  /**
+   * Calculates the duration of a parking
+   *
+   * @param parkingTimestamp  When the car was parked
+   * @param emptyingTimestamp When the car was pulled out
+   * @return The duration in minutes, rounded down
+   */
+  public static long calculateParkingDurationInMinutes(LocalDateTime parkingTimestamp,
+      LocalDateTime emptyingTimestamp) {
+    return ChronoUnit.SECONDS.between(parkingTimestamp, emptyingTimestamp) / 60;
+  }
+
+  /**
+   * Calculates the parking fee
+   *
+   * @param parkingDurationInMinutes The duration of the parking in minutes
+   * @param pricePerMinuteInCents    The price-per-minute in cents
+   * @return The parking fee in cents
+   */
+  public static long calculateTotalAmountInCents(long parkingDurationInMinutes,
+      long pricePerMinuteInCents) {
+    return Math.multiplyExact(parkingDurationInMinutes, pricePerMinuteInCents);
+  }
+
+}
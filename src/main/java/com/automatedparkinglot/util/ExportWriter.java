@@ -0,0 +1,135 @@
+package com.automatedparkinglot.util;
+
+import com.automatedparkinglot.enums.ExportFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A writer of exported rows, one row at a time, so that exports of any size are written in constant
+ * memory. A row is written either as a JSON object on its own line (NDJSON) or as a CSV line after
+ * a header line. JSON field names are camel case, CSV column names are snake case.
+ */
+public class ExportWriter {
+
+  private static final Pattern CAMEL_CASE_BOUNDARY = Pattern.compile("([a-z0-9])([A-Z])");
+  private static final Pattern CSV_SPECIAL_CHARACTERS = Pattern.compile("[\",\r\n]");
+
+  private final List<String> fieldNames;
+  private final JsonGenerator jsonGenerator;
+  private final Writer csvWriter;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param exportFormat The format of the rows
+   * @param fieldNames   The camel case names of the fields of a row, in order
+   * @param outputStream The stream to which the rows are written, which is not closed
+   * @param jsonFactory  A {@link JsonFactory} instance, e.g. the one of the application's object
+   *                     mapper
+   * @throws IOException If the header cannot be written
+   */
+  public ExportWriter(ExportFormat exportFormat, List<String> fieldNames,
+      OutputStream outputStream, JsonFactory jsonFactory) throws IOException {
+    this.fieldNames = fieldNames;
+    if (exportFormat == ExportFormat.NDJSON) {
+      jsonGenerator = jsonFactory.createGenerator(outputStream)
+          .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .setRootValueSeparator(null); // Rows are terminated by a line break instead
+      csvWriter = null;
+      return;
+    }
+    jsonGenerator = null;
+    csvWriter = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    csvWriter.write(fieldNames.stream()
+        .map(fieldName -> CAMEL_CASE_BOUNDARY.matcher(fieldName).replaceAll("$1_$2").toLowerCase())
+        .collect(Collectors.joining(",")));
+    csvWriter.write('\n');
+  }
+
+  /**
+   * Writes a row
+   *
+   * @param values The values of the fields of the row, in the order of the field names: strings,
+   *               numbers, booleans, timestamps, or nulls
+   * @throws IOException If the row cannot be written
+   */
+  public void writeRow(Object[] values) throws IOException {
+    if (Objects.nonNull(jsonGenerator)) {
+      jsonGenerator.writeStartObject();
+      for (int i = 0; i < values.length; i++) {
+        jsonGenerator.writeFieldName(fieldNames.get(i));
+        this.writeJsonValue(values[i]);
+      }
+      jsonGenerator.writeEndObject();
+      jsonGenerator.writeRaw('\n');
+      return;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        csvWriter.write(',');
+      }
+      csvWriter.write(this.toCsvValue(values[i]));
+    }
+    csvWriter.write('\n');
+  }
+
+  /**
+   * Writes the buffered rows to the output stream
+   *
+   * @throws IOException If the rows cannot be written
+   */
+  public void flush() throws IOException {
+    if (Objects.nonNull(jsonGenerator)) {
+      jsonGenerator.flush();
+    } else {
+      csvWriter.flush();
+    }
+  }
+
+  private void writeJsonValue(Object value) throws IOException {
+    if (Objects.isNull(value)) {
+      jsonGenerator.writeNull();
+    } else if (value instanceof BigDecimal) {
+      jsonGenerator.writeNumber((BigDecimal) value);
+    } else if (value instanceof Long || value instanceof Integer) {
+      jsonGenerator.writeNumber(((Number) value).longValue());
+    } else if (value instanceof Boolean) {
+      jsonGenerator.writeBoolean((Boolean) value);
+    } else {
+      jsonGenerator.writeString(this.toText(value));
+    }
+  }
+
+  private String toCsvValue(Object value) {
+    if (Objects.isNull(value)) {
+      return "";
+    }
+    var text = this.toText(value);
+    return CSV_SPECIAL_CHARACTERS.matcher(text).find()
+        ? '"' + text.replace("\"", "\"\"") + '"' : text;
+  }
+
+  private String toText(Object value) {
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).toPlainString();
+    }
+    if (value instanceof LocalDateTime) {
+      return ((LocalDateTime) value).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+    return String.valueOf(value);
+  }
+
+}
@@ -0,0 +1,166 @@
+package com.automatedparkinglot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * A hashed timing wheel to expire a large number of items, e.g. tens of thousands of reservations,
+ * without a timer per item and without scanning all items.
+ * <p>
+ * Time is divided into ticks, and the wheel has a power-of-two number of buckets. An item expiring
+ * at a tick is put into the bucket of that tick modulo the number of buckets, so scheduling and
+ * cancelling are O(1). Advancing the wheel by a tick only visits the items of one bucket, and
+ * expires those whose deadline has been reached; the others are due in a later turn of the wheel.
+ * <p>
+ * The wheel has no thread of its own: its owner advances it, e.g. from a ticker thread, and handles
+ * the returned items outside of the wheel's lock. Deadlines are rounded up to the next tick, so an
+ * item never expires early.
+ *
+ * @param <T> The type of the items
+ */
+public class HashedTimingWheel<T> {
+
+  private final long tickDurationInMillis;
+  private final Timeout<T>[] buckets;
+  private final int mask;
+  private long currentTick;
+  private int size;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param tickDurationInMillis The duration of a tick, i.e. the precision of the deadlines
+   * @param ticksPerWheel        The number of buckets, rounded up to a power of two
+   * @param nowInMillis          The current time, from which the wheel starts turning
+   */
+  @SuppressWarnings("unchecked")
+  public HashedTimingWheel(long tickDurationInMillis, int ticksPerWheel, long nowInMillis) {
+    if (tickDurationInMillis <= 0 || ticksPerWheel <= 0) {
+      throw new IllegalArgumentException("The tick duration and the wheel size must be positive.");
+    }
+    this.tickDurationInMillis = tickDurationInMillis;
+    var numberOfBuckets = Integer.highestOneBit(ticksPerWheel);
+    if (numberOfBuckets < ticksPerWheel) {
+      numberOfBuckets <<= 1;
+    }
+    this.buckets = new Timeout[numberOfBuckets];
+    this.mask = buckets.length - 1;
+    this.currentTick = nowInMillis / tickDurationInMillis;
+  }
+
+  /**
+   * Schedules an item to expire at a deadline. A deadline in the past expires at the next tick.
+   *
+   * @param item             The item
+   * @param deadlineInMillis The time at which the item expires
+   * @return The handle to cancel the expiry with
+   */
+  public synchronized Timeout<T> schedule(T item, long deadlineInMillis) {
+    var deadlineTick = Math.max(ceilDiv(deadlineInMillis, tickDurationInMillis), currentTick + 1);
+    var timeout = new Timeout<>(item, deadlineInMillis, deadlineTick);
+    var bucket = (int) (deadlineTick & mask);
+    timeout.next = buckets[bucket];
+    if (Objects.nonNull(timeout.next)) {
+      timeout.next.previous = timeout;
+    }
+    buckets[bucket] = timeout;
+    timeout.scheduled = true;
+    size++;
+    return timeout;
+  }
+
+  /**
+   * Cancels the expiry of an item
+   *
+   * @param timeout The handle returned when the item was scheduled
+   * @return Whether the expiry has been cancelled, i.e. the item had neither expired nor been
+   * cancelled yet
+   */
+  public synchronized boolean cancel(Timeout<T> timeout) {
+    if (!timeout.scheduled) {
+      return false;
+    }
+    this.unlink(timeout);
+    return true;
+  }
+
+  /**
+   * Advances the wheel to the current time, expiring the items whose deadline has been reached
+   *
+   * @param nowInMillis The current time
+   * @return The expired items, in no particular order
+   */
+  public synchronized List<T> advance(long nowInMillis) {
+    var targetTick = nowInMillis / tickDurationInMillis;
+    var expiredItems = new ArrayList<T>();
+    // After a full turn, every bucket has been visited, so the remaining ticks can be skipped
+    var lastTick = Math.min(targetTick, currentTick + buckets.length);
+    for (var tick = currentTick + 1; tick <= lastTick; tick++) {
+      var timeout = buckets[(int) (tick & mask)];
+      while (Objects.nonNull(timeout)) {
+        var next = timeout.next;
+        if (timeout.deadlineTick <= targetTick) {
+          this.unlink(timeout);
+          expiredItems.add(timeout.item);
+        }
+        timeout = next;
+      }
+    }
+    currentTick = Math.max(currentTick, targetTick);
+    return expiredItems;
+  }
+
+  /**
+   * Counts the scheduled items
+   *
+   * @return The number of items which have neither expired nor been cancelled
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  private void unlink(Timeout<T> timeout) {
+    if (Objects.nonNull(timeout.previous)) {
+      timeout.previous.next = timeout.next;
+    } else {
+      buckets[(int) (timeout.deadlineTick & mask)] = timeout.next;
+    }
+    if (Objects.nonNull(timeout.next)) {
+      timeout.next.previous = timeout.previous;
+    }
+    timeout.previous = null;
+    timeout.next = null;
+    timeout.scheduled = false;
+    size--;
+  }
+
+  private static long ceilDiv(long dividend, long divisor) {
+    return -Math.floorDiv(-dividend, divisor);
+  }
+
+  /**
+   * The handle of a scheduled item, linked into its bucket
+   *
+   * @param <T> The type of the item
+   */
+  public static class Timeout<T> {
+
+    @Getter
+    private final T item;
+    @Getter
+    private final long deadlineInMillis;
+    private final long deadlineTick;
+    private Timeout<T> previous;
+    private Timeout<T> next;
+    private boolean scheduled;
+
+    private Timeout(T item, long deadlineInMillis, long deadlineTick) {
+      this.item = item;
+      this.deadlineInMillis = deadlineInMillis;
+      this.deadlineTick = deadlineTick;
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.automatedparkinglot.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A rate limiter for log messages which may be repeated very often, e.g. rejections while the lot
+ * is full. For each key, at most one message is let through per interval, and the messages
+ * suppressed in the meantime are counted, so they can be reported with the next message.
+ *
+ * @param <K> The type of the keys, e.g. exception codes
+ */
+public class LogSampler<K extends Enum<K>> {
+
+  private final long intervalInNanos;
+  private final Map<K, AtomicLong> nextLogTimesByKey;
+  private final Map<K, LongAdder> suppressedCountsByKey;
+
+  /**
+   * An overloaded constructor of the class
+   *
+   * @param keyType          The class of the keys
+   * @param intervalInMillis The minimum time between two messages with the same key
+   */
+  public LogSampler(Class<K> keyType, long intervalInMillis) {
+    this.intervalInNanos = TimeUnit.MILLISECONDS.toNanos(intervalInMillis);
+    this.nextLogTimesByKey = new EnumMap<>(keyType);
+    this.suppressedCountsByKey = new EnumMap<>(keyType);
+    var now = System.nanoTime();
+    for (var key : keyType.getEnumConstants()) {
+      nextLogTimesByKey.put(key, new AtomicLong(now));
+      suppressedCountsByKey.put(key, new LongAdder());
+    }
+  }
+
+  /**
+   * Decides whether a message is to be logged
+   *
+   * @param key The key of the message
+   * @return The number of messages with the same key suppressed since the last logged one, or -1 if
+   * this message is to be suppressed as well
+   */
+  public long sample(K key) {
+    var nextLogTime = nextLogTimesByKey.get(key);
+    var now = System.nanoTime();
+    var scheduledLogTime = nextLogTime.get();
+    if (now - scheduledLogTime < 0
+        || !nextLogTime.compareAndSet(scheduledLogTime, now + intervalInNanos)) {
+      suppressedCountsByKey.get(key).increment();
+      return -1;
+    }
+    return suppressedCountsByKey.get(key).sumThenReset();
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.automatedparkinglot.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A utility class to tie work to the outcome of the current database transaction, e.g. to undo
+ * changes of the in-memory state of the parking lot when the transaction is rolled back
+ */
+public class TransactionHooks {
+
+  private TransactionHooks() {
+  }
+
+  /**
+   * Runs an action once the current transaction is rolled back (If there is no transaction, the
+   * action is never run.) The actions of a transaction are run in the reverse order of their
+   * registration, so a change made after another one is undone before it, e.g. a parking space
+   * emptied after being occupied is occupied again before it is released.
+   *
+   * @param compensatingAction The action undoing an in-memory change
+   */
+  public static void runOnRollback(Runnable compensatingAction) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    getCompensationsOfCurrentTransaction().compensatingActions.push(compensatingAction);
+  }
+
+  /**
+   * Runs an action once the current transaction is committed (If there is no transaction, the
+   * action is run immediately.)
+   *
+   * @param action The action depending on committed data
+   */
+  public static void runAfterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  /**
+   * Runs an action once the current transaction is completed, whether committed or rolled back (If
+   * there is no transaction, the action is run immediately.)
+   *
+   * @param action The action releasing what the transaction has held
+   */
+  public static void runAfterCompletion(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        action.run();
+      }
+    });
+  }
+
+  private static Compensations getCompensationsOfCurrentTransaction() {
+    // The synchronizations are those of the current transaction only, i.e. those of a suspended
+    // outer transaction are not among them
+    for (var synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof Compensations) {
+        return (Compensations) synchronization;
+      }
+    }
+    var compensations = new Compensations();
+    TransactionSynchronizationManager.registerSynchronization(compensations);
+    return compensations;
+  }
+
+  /**
+   * The compensating actions of a transaction, latest first
+   */
+  private static class Compensations implements TransactionSynchronization {
+
+    private final Deque<Runnable> compensatingActions = new ArrayDeque<>();
+
+    @Override
+    public void afterCompletion(int status) {
+      if (status == STATUS_ROLLED_BACK) {
+        compensatingActions.forEach(Runnable::run);
+      }
+    }
+
+  }
+
+}
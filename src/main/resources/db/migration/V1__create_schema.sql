@@ -0,0 +1,49 @@
+-- The schema of the automated parking lot, as it was generated by Hibernate from the entities.
+-- From now on, the schema is changed by versioned migrations only, and Hibernate merely validates it.
+
+CREATE SEQUENCE bill_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE floors
+(
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    allowed_weight  DECIMAL(19, 2) NOT NULL CHECK (allowed_weight >= 0),
+    ceiling_height  DECIMAL(19, 2) NOT NULL,
+    number          INTEGER        NOT NULL,
+    weight_capacity DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE parking_spaces
+(
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    floor            INTEGER NOT NULL,
+    occupying_car_id VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE parking_records
+(
+    id                                     BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    allowed_weight_on_floor_before_parking DECIMAL(19, 2) NOT NULL,
+    billed                                 BOOLEAN        NOT NULL,
+    car_height                             DECIMAL(19, 2) NOT NULL,
+    car_id                                 VARCHAR(255)   NOT NULL,
+    car_weight                             DECIMAL(19, 2) NOT NULL,
+    emptying_timestamp                     TIMESTAMP,
+    floor                                  INTEGER        NOT NULL,
+    parking_space_id                       BIGINT         NOT NULL,
+    parking_timestamp                      TIMESTAMP      NOT NULL,
+    status                                 VARCHAR(255)   NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE bills
+(
+    id                      BIGINT         NOT NULL,
+    billing_from            VARCHAR(255)   NOT NULL,
+    billing_to              VARCHAR(255)   NOT NULL,
+    car_id                  VARCHAR(255)   NOT NULL,
+    price_per_minute        DECIMAL(19, 2) NOT NULL CHECK (price_per_minute >= 0),
+    total_amount_to_be_paid DECIMAL(19, 2) NOT NULL CHECK (total_amount_to_be_paid >= 0),
+    PRIMARY KEY (id)
+);
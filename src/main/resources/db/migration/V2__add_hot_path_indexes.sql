@@ -0,0 +1,17 @@
+-- Indexes for the columns every park and pull-out looks rows up by
+
+-- Floors are looked up and their weights are updated by floor number, which is unique
+CREATE UNIQUE INDEX ux_floors_number ON floors (number);
+
+-- The parking space of a car is looked up by the car's ID when it is parked and pulled out
+CREATE INDEX ix_parking_spaces_occupying_car_id ON parking_spaces (occupying_car_id);
+
+-- Free parking spaces are looked up and counted per floor. H2 supports neither partial nor
+-- functional indexes, so the index covers the floor and the occupying car, which is null if free.
+CREATE INDEX ix_parking_spaces_floor_occupying_car_id ON parking_spaces (floor, occupying_car_id);
+
+-- The ongoing parking of a car is looked up when it is parked and pulled out
+CREATE INDEX ix_parking_records_car_id_status ON parking_records (car_id, status);
+
+-- Completed parkings waiting for their bills are swept periodically
+CREATE INDEX ix_parking_records_billed_status ON parking_records (billed, status);
@@ -0,0 +1,11 @@
+-- Parking records and bills are exported over a time range, in the order of their timestamps
+
+-- Bills only had their billing period as formatted text, so the end of the parking is added as a
+-- timestamp, filled in from the text for the existing bills
+ALTER TABLE bills ADD COLUMN emptying_timestamp TIMESTAMP;
+UPDATE bills SET emptying_timestamp = PARSEDATETIME(billing_to, 'dd.MM.yyyy HH:mm');
+ALTER TABLE bills ALTER COLUMN emptying_timestamp SET NOT NULL;
+
+-- The range is scanned in index order, so an export neither reads the whole table nor sorts it
+CREATE INDEX ix_parking_records_parking_timestamp ON parking_records (parking_timestamp);
+CREATE INDEX ix_bills_emptying_timestamp ON bills (emptying_timestamp);
@@ -0,0 +1,35 @@
+-- Completed parking records are moved to a history table, so parking_records keeps roughly one row
+-- per parked car however long the lot has been operated
+
+-- The status is stored as the ordinal of ParkingStatus: 0 = PARKING_IN_PROGRESS, 1 = PARKING_OVER
+ALTER TABLE parking_records ADD COLUMN status_ordinal SMALLINT;
+UPDATE parking_records SET status_ordinal = CASE status WHEN 'PARKING_IN_PROGRESS' THEN 0 ELSE 1 END;
+DROP INDEX ix_parking_records_car_id_status;
+DROP INDEX ix_parking_records_billed_status;
+ALTER TABLE parking_records DROP COLUMN status;
+ALTER TABLE parking_records ALTER COLUMN status_ordinal RENAME TO status;
+ALTER TABLE parking_records ALTER COLUMN status SET NOT NULL;
+CREATE INDEX ix_parking_records_car_id_status ON parking_records (car_id, status);
+CREATE INDEX ix_parking_records_billed_status ON parking_records (billed, status);
+
+-- Billed parking records are archived in batches by the background archiver. The IDs are kept, so
+-- they are not generated here.
+CREATE TABLE parking_records_history
+(
+    id                                     BIGINT         NOT NULL,
+    allowed_weight_on_floor_before_parking DECIMAL(19, 2) NOT NULL,
+    billed                                 BOOLEAN        NOT NULL,
+    car_height                             DECIMAL(19, 2) NOT NULL,
+    car_id                                 VARCHAR(255)   NOT NULL,
+    car_weight                             DECIMAL(19, 2) NOT NULL,
+    emptying_timestamp                     TIMESTAMP,
+    floor                                  INTEGER        NOT NULL,
+    parking_space_id                       BIGINT         NOT NULL,
+    parking_timestamp                      TIMESTAMP      NOT NULL,
+    status                                 SMALLINT       NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Archived parking records are still exported over a time range
+CREATE INDEX ix_parking_records_history_parking_timestamp
+    ON parking_records_history (parking_timestamp);
@@ -1,40 +1,83 @@
 package com.automatedparkinglot;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.automatedparkinglot.admission.AdmissionInterceptor;
 import com.automatedparkinglot.dtos.ParkingRequest;
 import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
 import com.automatedparkinglot.enums.ParkingStatus;
+import com.automatedparkinglot.enums.TransportStage;
+import com.automatedparkinglot.lotstate.CarLocationCache;
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.lotstate.LotStateLoader;
+import com.automatedparkinglot.lotstate.ParkingSpaceAllocator;
+import com.automatedparkinglot.movement.MovementScheduler;
 import com.automatedparkinglot.repositories.BillRepository;
 import com.automatedparkinglot.repositories.FloorRepository;
 import com.automatedparkinglot.repositories.ParkingRecordRepository;
 import com.automatedparkinglot.repositories.ParkingSpaceRepository;
+import com.automatedparkinglot.services.BillWriter;
+import com.automatedparkinglot.services.ParkingRecordArchiver;
+import com.automatedparkinglot.topology.LotTopologyLoader;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.http.MediaType;
-import org.springframework.test.context.jdbc.Sql;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-@SpringBootTest(classes = AutomatedParkingLotApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// The cars are moved by the lifts and shuttles a thousand times faster, and the parking records
+// are archived by the tests only
+@SpringBootTest(classes = AutomatedParkingLotApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"automated-parking-lot.movement.time-scale=0.001",
+        "automated-parking-lot.archival.interval-ms=86400000",
+        "automated-parking-lot.admission.gate-ids=gate-21,gate-21b"})
 @AutoConfigureMockMvc
-@Sql({
-    "/data.sql"}) // The same initial data set covering some floors and parking spaces can be used for these tests as well.
 class AutomatedParkingLotE2ETest {
 
   public final CountDownLatch latch = new CountDownLatch(1);
@@ -50,6 +93,40 @@ class AutomatedParkingLotE2ETest {
   private ParkingSpaceRepository parkingSpaceRepository;
   @Autowired
   private BillRepository billRepository;
+  @Autowired
+  private LotTopologyLoader lotTopologyLoader;
+  @Autowired
+  private LotStateLoader lotStateLoader;
+  @Autowired
+  private BillWriter billWriter;
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Autowired
+  private FloorIndex floorIndex;
+  @Autowired
+  private AdmissionInterceptor admissionInterceptor;
+  @Autowired
+  private ParkingRecordArchiver parkingRecordArchiver;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private MovementScheduler movementScheduler;
+  @Autowired
+  private ParkingSpaceAllocator parkingSpaceAllocator;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private CarLocationCache carLocationCache;
+  @LocalServerPort
+  private int port;
+
+  @BeforeEach
+  void rebuildLotState() throws IOException {
+    // The same lot as the application's (lot-topology.csv) is loaded again before each test, which
+    // rewrites the tables behind the application, so the in-memory lot state is rebuilt
+    lotTopologyLoader.load();
+    lotStateLoader.reload();
+  }
 
   @Test
   void test1_parkingACarSuccessfully() throws Exception {
@@ -65,7 +142,7 @@ class AutomatedParkingLotE2ETest {
             .content(objectMapper.writeValueAsBytes(parkingRequest)))
         .andDo(print())
         .andExpect(status().isOk()) // No failure. Successfully parked.
-        .andExpect(jsonPath("$").doesNotExist()) // Because it's void
+        .andExpect(jsonPath("$.stage").value(TransportStage.QUEUED.name())) // Moved afterwards
         .andReturn();
 
     // The ceiling height of the floor 1: 285 cm
@@ -84,7 +161,7 @@ class AutomatedParkingLotE2ETest {
     assertEquals(parkingRequest.getCarWeight(), parkingRecord.getCarWeight());
     assertEquals(3, parkingRecord.getFloor());
     assertEquals(new BigDecimal("20000.00"), parkingRecord.getAllowedWeightOnFloorBeforeParking());
-    assertEquals(ParkingStatus.PARKING_IN_PROGRESS.name(), parkingRecord.getStatus());
+    assertEquals(ParkingStatus.PARKING_IN_PROGRESS, parkingRecord.getStatus());
     assertNotNull(parkingRecord.getParkingTimestamp());
     assertNull(parkingRecord.getEmptyingTimestamp());
 
@@ -118,7 +195,7 @@ class AutomatedParkingLotE2ETest {
             .content(objectMapper.writeValueAsBytes(parkingRequest1)))
         .andDo(print())
         .andExpect(status().isOk()) // No failure. Successfully parked.
-        .andExpect(jsonPath("$").doesNotExist()) // Because it's void
+        .andExpect(jsonPath("$.stage").value(TransportStage.QUEUED.name())) // Moved afterwards
         .andReturn();
 
     // Park the second car
@@ -131,7 +208,7 @@ class AutomatedParkingLotE2ETest {
             .content(objectMapper.writeValueAsBytes(parkingRequest2)))
         .andDo(print())
         .andExpect(status().isOk()) // No failure. Successfully parked.
-        .andExpect(jsonPath("$").doesNotExist()) // Because it's void
+        .andExpect(jsonPath("$.stage").value(TransportStage.QUEUED.name())) // Moved afterwards
         .andReturn();
     var parkingRecordForSecondCar = parkingRecordRepository.findOngoingParkingRecordByCarId(
         parkingRequest2.getCarId());
@@ -146,15 +223,19 @@ class AutomatedParkingLotE2ETest {
             .contentType(MediaType.APPLICATION_JSON))
         .andDo(print())
         .andExpect(status().isOk()) // No failure. The car has successfully left the parking lot.
-        .andExpect(jsonPath("$").doesNotExist()) // Because it's void
+        .andExpect(jsonPath("$.stage").value(TransportStage.QUEUED.name())) // Moved afterwards
         .andReturn();
 
+    // Bills are generated asynchronously, so wait for the bill writer
+    billWriter.flush();
+
     // Verify the parking record for the second car has been updated
     var updatedParkingRecordForSecondCar = parkingRecordRepository.findById(
             parkingRecordForSecondCar.getId())
         .orElseThrow();
     assertNotNull(updatedParkingRecordForSecondCar.getEmptyingTimestamp());
-    assertEquals(ParkingStatus.PARKING_OVER.name(), updatedParkingRecordForSecondCar.getStatus());
+    assertEquals(ParkingStatus.PARKING_OVER, updatedParkingRecordForSecondCar.getStatus());
+    assertTrue(updatedParkingRecordForSecondCar.getBilled());
 
     // Verify the floor after emptying the parking space occupied by the second car
     var floor = floorRepository.findFloorByFloorNumber(parkingRecordForSecondCar.getFloor());
@@ -259,7 +340,7 @@ class AutomatedParkingLotE2ETest {
             .content(objectMapper.writeValueAsBytes(parkingRequest1)))
         .andDo(print())
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$").doesNotExist())
+        .andExpect(jsonPath("$.stage").value(TransportStage.QUEUED.name()))
         .andReturn();
 
     // Try to park another car with the ID 66-GG again
@@ -292,7 +373,7 @@ class AutomatedParkingLotE2ETest {
             .content(objectMapper.writeValueAsBytes(parkingRequest)))
         .andDo(print())
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$").doesNotExist())
+        .andExpect(jsonPath("$.stage").value(TransportStage.QUEUED.name()))
         .andReturn();
 
     // Try to pull the car with another unknown ID out of the parking lot
@@ -392,4 +473,734 @@ class AutomatedParkingLotE2ETest {
             AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR.getExplanatoryMessage()));
   }
 
+  @Test
+  void test11_parkingCarsConcurrently_noParkingSpaceDoubleBookedAndNoWeightLost()
+      throws Exception {
+    // 20 cars arrive at the same time at several gates. Each car is 160 cm high and 1500 kg heavy.
+    // The floor 3 (170 cm) is the best floor, and it has 10 parking spaces.
+    // The remaining 10 cars go to the floor 1 (195 cm), which has 10 parking spaces as well.
+    var executorService = Executors.newFixedThreadPool(8);
+    var parkings = new ArrayList<Future<Integer>>();
+    for (int i = 0; i < 20; i++) {
+      var parkingRequest = new ParkingRequest();
+      parkingRequest.setCarId("111-" + i);
+      parkingRequest.setCarHeight(new BigDecimal("160.00"));
+      parkingRequest.setCarWeight(new BigDecimal("1500.00"));
+      parkings.add(executorService.submit(() -> mockMvc.perform(post("/automated-parking-lot/park")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsBytes(parkingRequest)))
+          .andReturn().getResponse().getStatus()));
+    }
+    for (var parking : parkings) {
+      assertEquals(200, parking.get()); // Every car has been parked.
+    }
+    executorService.shutdown();
+
+    // Verify that no parking space has been assigned to two cars
+    var parkingSpaceIds = new HashSet<Long>();
+    for (int i = 0; i < 20; i++) {
+      var parkingRecord = parkingRecordRepository.findOngoingParkingRecordByCarId("111-" + i);
+      assertNotNull(parkingRecord);
+      assertTrue(parkingSpaceIds.add(parkingRecord.getParkingSpaceId()));
+      assertEquals(parkingRecord.getCarId(),
+          parkingSpaceRepository.findById(parkingRecord.getParkingSpaceId()).orElseThrow()
+              .getOccupyingCarId());
+    }
+
+    // Verify that no weight update has been lost
+    assertEquals(new BigDecimal("5000.00"),
+        floorRepository.findFloorByFloorNumber(3).getAllowedWeight()); // 20000 - 10 * 1500 = 5000
+    assertEquals(new BigDecimal("10000.00"),
+        floorRepository.findFloorByFloorNumber(1).getAllowedWeight()); // 25000 - 10 * 1500 = 10000
+
+    // The lot is now full for such a car.
+    var parkingRequest = new ParkingRequest();
+    parkingRequest.setCarId("111-X");
+    parkingRequest.setCarHeight(new BigDecimal("160.00"));
+    parkingRequest.setCarWeight(new BigDecimal("1500.00"));
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(parkingRequest)))
+        .andDo(print())
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR.name()));
+  }
+
+  @Test
+  void test12_parkingABatchOfCars_validCarsParkedAndFailuresReportedPerCar() throws Exception {
+    // Two cars fitting the floor 3 (170 cm), a car without weight, a car with an ID already in the
+    // batch, and a car too high for all floors
+    var parkingRequests = List.of(
+        createParkingRequest("121-A", "160.00", "1500.00"),
+        createParkingRequest("121-B", "150.00", "1400.00"),
+        createParkingRequest("121-C", "150.00", null),
+        createParkingRequest("121-A", "140.00", "1300.00"),
+        createParkingRequest("121-E", "200.00", "1750.00"));
+
+    // Send a POST request to park the cars and verify the outcome of each car
+    mockMvc.perform(post("/automated-parking-lot/park/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(parkingRequests)))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(5))
+        .andExpect(jsonPath("$[0].floor").value(3))
+        .andExpect(jsonPath("$[0].errorCode").doesNotExist())
+        .andExpect(jsonPath("$[1].floor").value(3))
+        .andExpect(jsonPath("$[2].errorCode").value(
+            AutomatedParkingExceptionCode.CAR_WEIGHT_MISSING.name()))
+        .andExpect(jsonPath("$[3].errorCode").value(
+            AutomatedParkingExceptionCode.CAR_ALREADY_PARKED.name()))
+        .andExpect(jsonPath("$[4].errorCode").value(
+            AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR.name()));
+
+    // Verify parking records: the second car sees the weight left by the first one
+    var parkingRecordA = parkingRecordRepository.findOngoingParkingRecordByCarId("121-A");
+    assertEquals(new BigDecimal("20000.00"), parkingRecordA.getAllowedWeightOnFloorBeforeParking());
+    var parkingRecordB = parkingRecordRepository.findOngoingParkingRecordByCarId("121-B");
+    assertEquals(new BigDecimal("18500.00"), parkingRecordB.getAllowedWeightOnFloorBeforeParking());
+    assertNotEquals(parkingRecordA.getParkingSpaceId(), parkingRecordB.getParkingSpaceId());
+    assertNull(parkingRecordRepository.findOngoingParkingRecordByCarId("121-E"));
+
+    // Verify floor: 20000 - 1500 - 1400 = 17100
+    assertEquals(new BigDecimal("17100.00"),
+        floorRepository.findFloorByFloorNumber(3).getAllowedWeight());
+  }
+
+  @Test
+  void test13_parkingAndFailingCars_phasesTimedAndErrorsCountedAndFloorsGauged() throws Exception {
+    var floorSelectionTimer = meterRegistry.find("parking.phase.duration")
+        .tags("operation", "park", "phase", "floor-selection").timer();
+    var floorSelections = Objects.isNull(floorSelectionTimer) ? 0 : floorSelectionTimer.count();
+    var noAvailableFloorErrorCounter = meterRegistry.find("parking.errors")
+        .tags("code", AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR.name()).counter();
+    var noAvailableFloorErrors = Objects.isNull(noAvailableFloorErrorCounter)
+        ? 0 : noAvailableFloorErrorCounter.count();
+
+    // Park a car on the floor 3 (170 cm), and fail to park a car too heavy for the only floor high
+    // enough for it (195 cm, 25000 kg), though within the limits of the lot
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("131-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk());
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("131-B", "180.00", "28000.00"))))
+        .andExpect(status().isBadRequest());
+
+    assertEquals(floorSelections + 2, meterRegistry.get("parking.phase.duration")
+        .tags("operation", "park", "phase", "floor-selection").timer().count());
+    assertEquals(noAvailableFloorErrors + 1, meterRegistry.get("parking.errors")
+        .tags("code", AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR.name()).counter().count());
+    assertEquals(1, meterRegistry.get("parking.floor.parking.spaces.occupied")
+        .tag("floor", "3").gauge().value());
+    assertEquals(18500, meterRegistry.get("parking.floor.allowed.weight")
+        .tag("floor", "3").gauge().value()); // 20000 - 1500 = 18500
+  }
+
+  @Test
+  void test14_carParkedBeforeReload_pulledOutOnceAndParkedAgain() throws Exception {
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("141-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk());
+    var parkingRecord = parkingRecordRepository.findOngoingParkingRecordByCarId("141-A");
+
+    // Rebuild the car location cache from the parking records, as at startup
+    lotStateLoader.reload();
+
+    mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/141-A")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    var completedParkingRecord = parkingRecordRepository.findById(parkingRecord.getId())
+        .orElseThrow();
+    assertEquals(ParkingStatus.PARKING_OVER, completedParkingRecord.getStatus());
+    assertNotNull(completedParkingRecord.getEmptyingTimestamp());
+    assertNull(parkingSpaceRepository.findById(parkingRecord.getParkingSpaceId()).orElseThrow()
+        .getOccupyingCarId());
+    assertEquals(new BigDecimal("20000.00"), floorRepository.findFloorByFloorNumber(3)
+        .getAllowedWeight());
+
+    // The car has left, so it can't leave again, but it can be parked again
+    mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/141-A")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.NO_PARKED_CAR_WITH_THIS_ID.name()));
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("141-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void test15_reservedCarArrivingLighter_parkedInReservedSpaceAndUnusedWeightGivenBack()
+      throws Exception {
+    var reservationResponse = mockMvc.perform(post("/automated-parking-lot/reserve")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("151-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.carId").value("151-A"))
+        .andExpect(jsonPath("$.floor").value(3))
+        .andExpect(jsonPath("$.expiresAt").exists())
+        .andReturn().getResponse().getContentAsString();
+    var reservedParkingSpaceId = objectMapper.readTree(reservationResponse)
+        .get("parkingSpaceId").asLong();
+    assertEquals("151-A", parkingSpaceRepository.findById(reservedParkingSpaceId).orElseThrow()
+        .getOccupyingCarId());
+    assertEquals(new BigDecimal("18500.00"), floorRepository.findFloorByFloorNumber(3)
+        .getAllowedWeight());
+
+    // The same car can't reserve twice, and it is not parked before it arrives
+    mockMvc.perform(post("/automated-parking-lot/reserve")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("151-A", "160.00", "1500.00"))))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.CAR_ALREADY_RESERVED.name()));
+    assertNull(parkingRecordRepository.findOngoingParkingRecordByCarId("151-A"));
+
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("151-A", "160.00", "1200.00"))))
+        .andExpect(status().isOk());
+    var parkingRecord = parkingRecordRepository.findOngoingParkingRecordByCarId("151-A");
+    assertEquals(reservedParkingSpaceId, parkingRecord.getParkingSpaceId());
+    assertEquals(3, parkingRecord.getFloor());
+    assertEquals(new BigDecimal("20000.00"), parkingRecord.getAllowedWeightOnFloorBeforeParking());
+    assertEquals(new BigDecimal("18800.00"), floorRepository.findFloorByFloorNumber(3)
+        .getAllowedWeight());
+  }
+
+  @Test
+  void test16_reservationCancelled_parkingSpaceAndWeightReleased() throws Exception {
+    var reservationResponse = mockMvc.perform(post("/automated-parking-lot/reserve")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("161-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    var reservedParkingSpaceId = objectMapper.readTree(reservationResponse)
+        .get("parkingSpaceId").asLong();
+
+    mockMvc.perform(post("/automated-parking-lot/cancel-reservation/161-A")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    assertNull(parkingSpaceRepository.findById(reservedParkingSpaceId).orElseThrow()
+        .getOccupyingCarId());
+    assertEquals(new BigDecimal("20000.00"), floorRepository.findFloorByFloorNumber(3)
+        .getAllowedWeight());
+
+    mockMvc.perform(post("/automated-parking-lot/cancel-reservation/161-A")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.NO_RESERVATION_WITH_THIS_ID.name()));
+  }
+
+  @Test
+  void test17_parkedAndPulledOutCars_recordsExportedAsNdjsonAndBillsAsCsv() throws Exception {
+    for (var carId : List.of("171-A", "171,\"B\"")) {
+      mockMvc.perform(post("/automated-parking-lot/park")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsBytes(
+                  createParkingRequest(carId, "160.00", "1500.00"))))
+          .andExpect(status().isOk());
+    }
+    mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/171,\"B\"")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+    billWriter.flush();
+    var from = LocalDateTime.now().minusDays(1).toString();
+    var to = LocalDateTime.now().plusDays(1).toString();
+
+    var parkingRecordLines = exportRows(
+        "/automated-parking-lot/export/parking-records?from=" + from + "&to=" + to);
+    assertEquals(2, parkingRecordLines.length);
+    var firstParkingRecord = objectMapper.readTree(parkingRecordLines[0]);
+    assertEquals("171-A", firstParkingRecord.get("carId").asText());
+    assertTrue(parkingRecordLines[0].contains("\"carWeight\":1500.00,"), parkingRecordLines[0]);
+    assertTrue(firstParkingRecord.get("emptyingTimestamp").isNull());
+    assertEquals(ParkingStatus.PARKING_OVER.name(),
+        objectMapper.readTree(parkingRecordLines[1]).get("status").asText());
+
+    var billLines = exportRows(
+        "/automated-parking-lot/export/bills?format=csv&from=" + from + "&to=" + to);
+    assertEquals(2, billLines.length);
+    assertEquals("id,car_id,billing_from,billing_to,emptying_timestamp,price_per_minute,"
+        + "total_amount_to_be_paid", billLines[0]);
+    assertTrue(billLines[1].contains(",\"171,\"\"B\"\"\","), billLines[1]);
+
+    mockMvc.perform(get("/automated-parking-lot/export/bills?from=" + to + "&to=" + from))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.INVALID_TIME_RANGE.name()));
+  }
+
+  @Test
+  void test18_carParked_occupancyServedFromInMemoryCounters() throws Exception {
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("181-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/automated-parking-lot/occupancy"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.parkingSpaces").value(30))
+        .andExpect(jsonPath("$.freeParkingSpaces").value(29))
+        .andExpect(jsonPath("$.weightCapacity").value(75000.0))
+        .andExpect(jsonPath("$.allowedWeight").value(73500.0));
+
+    mockMvc.perform(get("/automated-parking-lot/occupancy/floors"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3))
+        .andExpect(jsonPath("$[0].floor").value(1))
+        .andExpect(jsonPath("$[2].freeParkingSpaces").value(9));
+
+    mockMvc.perform(get("/automated-parking-lot/occupancy/floors/3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.ceilingHeight").value(170.0))
+        .andExpect(jsonPath("$.freeParkingSpaces").value(9))
+        .andExpect(jsonPath("$.allowedWeight").value(18500.0));
+
+    // Floors 1 (195 cm) and 3 (170 cm) fit the height: 10 + 9 free parking spaces, of which only 7
+    // on floor 3 can take 2500 kg each (18500 / 2500)
+    mockMvc.perform(get("/automated-parking-lot/occupancy/fitting-cars?carHeight=160"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.fittingCars").value(19));
+    mockMvc.perform(
+            get("/automated-parking-lot/occupancy/fitting-cars?carHeight=160&carWeight=2500"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.fittingCars").value(17));
+
+    mockMvc.perform(get("/automated-parking-lot/occupancy/floors/4"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.NO_FLOOR_WITH_THIS_NUMBER.name()));
+  }
+
+  @Test
+  void test19_occupancyStreamed_fullStateThenCoalescedChanges() throws Exception {
+    // Read over a connection to the server, since the events are written by the sender threads of
+    // the stream, and every read waits for the next event for at most 5 s
+    var connection = (HttpURLConnection) new URL(
+        "http://localhost:" + port + "/automated-parking-lot/occupancy/stream").openConnection();
+    connection.setReadTimeout(5000);
+    try (var reader = new BufferedReader(
+        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      var event = this.readEvent(reader);
+      assertTrue(event.startsWith("event:occupancy\ndata:[{\"floor\":1,"), event);
+      assertTrue(event.contains("{\"floor\":3,\"ceilingHeight\":170.00,\"parkingSpaces\":10,"
+          + "\"freeParkingSpaces\":10,"), event);
+
+      // Changes are pushed per floor, with the counters of the floor at the time of publishing
+      for (var carId : List.of("191-A", "191-B")) {
+        mockMvc.perform(post("/automated-parking-lot/park")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(
+                    createParkingRequest(carId, "160.00", "1500.00"))))
+            .andExpect(status().isOk());
+      }
+      // The lot state reloaded before the test may still be pushed along, as a change of all
+      // floors
+      do {
+        event = this.readEvent(reader);
+      } while (!event.contains("\"freeParkingSpaces\":8,"));
+      assertTrue(event.endsWith("{\"floor\":3,\"ceilingHeight\":170.00,\"parkingSpaces\":10,"
+          + "\"freeParkingSpaces\":8,\"weightCapacity\":20000.00,"
+          + "\"allowedWeight\":17000.00}]"), event);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  @Test
+  void test20_retriesWithIdempotencyKey_originalOutcomesReplayedWithoutHandlingAgain()
+      throws Exception {
+    var replays = meterRegistry.get("parking.idempotency.replays").counter().count();
+
+    // The retried park gets the original success instead of CAR_ALREADY_PARKED, even if its
+    // amounts are sent with another scale
+    for (var carWeight : List.of("1500.00", "1500.0", "1500")) {
+      mockMvc.perform(post("/automated-parking-lot/park")
+              .header("Idempotency-Key", "park-201-A")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsBytes(
+                  createParkingRequest("201-A", "160.00", carWeight))))
+          .andExpect(status().isOk());
+    }
+    assertEquals(replays + 2, meterRegistry.get("parking.idempotency.replays").counter().count());
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .header("Idempotency-Key", "park-201-A")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("201-A", "160.00", "1500.01"))))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.IDEMPOTENCY_KEY_REUSED.name()));
+    assertEquals(new BigDecimal("18500.00"), floorRepository.findFloorByFloorNumber(3)
+        .getAllowedWeight());
+
+    // The retried pull-out gets the original success, and the car is billed once
+    for (int attempt = 0; attempt < 3; attempt++) {
+      mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/201-A")
+              .header("Idempotency-Key", "pull-out-201-A")
+              .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk());
+    }
+    billWriter.flush();
+    assertEquals(1, StreamSupport.stream(billRepository.findAll().spliterator(), false)
+        .filter(bill -> bill.getCarId().equals("201-A")).count());
+
+    // A rejection is replayed as well, and a key can't be reused for another request
+    for (int attempt = 0; attempt < 2; attempt++) {
+      mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/201-B")
+              .header("Idempotency-Key", "pull-out-201-B")
+              .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(status().isBadRequest())
+          .andExpect(jsonPath("$.errorCode").value(
+              AutomatedParkingExceptionCode.NO_PARKED_CAR_WITH_THIS_ID.name()));
+    }
+    mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/201-C")
+            .header("Idempotency-Key", "pull-out-201-B")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.IDEMPOTENCY_KEY_REUSED.name()));
+    assertEquals(replays + 5, meterRegistry.get("parking.idempotency.replays").counter().count());
+  }
+
+  @Test
+  void test21_impossibleCarsRejectedUpFrontAndRequestsBeyondGateLimitRejectedWith429()
+      throws Exception {
+    // The limits of the lot: the highest ceiling (195 cm) and allowed weight (30000 kg)
+    var capacityLimits = floorIndex.getCapacityLimits();
+    assertEquals(new BigDecimal("195.00"), capacityLimits.getMaxCarHeight());
+    assertEquals(new BigDecimal("30000.00"), capacityLimits.getMaxCarWeight());
+
+    // A car above the limits is rejected before any floor is selected for it
+    var floorSelectionTimer = meterRegistry.find("parking.phase.duration")
+        .tags("operation", "park", "phase", "floor-selection").timer();
+    var floorSelections = Objects.isNull(floorSelectionTimer) ? 0 : floorSelectionTimer.count();
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("211-A", "200.00", "1500.00"))))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR.name()));
+    floorSelectionTimer = meterRegistry.find("parking.phase.duration")
+        .tags("operation", "park", "phase", "floor-selection").timer();
+    assertEquals(floorSelections,
+        Objects.isNull(floorSelectionTimer) ? 0 : floorSelectionTimer.count());
+
+    // At most 4 requests of a gate are admitted at once, the others are rejected until one ends
+    var admittedRequests = new ArrayList<MockHttpServletRequest>();
+    for (int i = 0; i < 4; i++) {
+      var request = new MockHttpServletRequest("POST", "/automated-parking-lot/park");
+      request.addHeader("Gate-Id", "gate-21");
+      assertTrue(admissionInterceptor.preHandle(request, new MockHttpServletResponse(), null));
+      admittedRequests.add(request);
+    }
+    var rejectedRequest = new MockHttpServletRequest("POST", "/automated-parking-lot/park");
+    rejectedRequest.addHeader("Gate-Id", "gate-21");
+    var rejectedResponse = new MockHttpServletResponse();
+    assertFalse(admissionInterceptor.preHandle(rejectedRequest, rejectedResponse, null));
+    assertEquals(429, rejectedResponse.getStatus());
+    assertEquals("1", rejectedResponse.getHeader("Retry-After"));
+    assertEquals(AutomatedParkingExceptionCode.LOT_OVERLOADED.name(), objectMapper
+        .readTree(rejectedResponse.getContentAsString()).get("errorCode").asText());
+
+    // Other gates are not affected, and the gate is admitted again once a request has ended
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .header("Gate-Id", "gate-21b")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("211-B", "160.00", "1500.00"))))
+        .andExpect(status().isOk());
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .header("Gate-Id", "gate-21")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("211-C", "160.00", "1500.00"))))
+        .andExpect(status().isTooManyRequests());
+    for (var request : admittedRequests) {
+      admissionInterceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+    }
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .header("Gate-Id", "gate-21")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("211-C", "160.00", "1500.00"))))
+        .andExpect(status().isOk());
+
+    // Unknown gate IDs share a single limit of a gate
+    var unknownGateRequests = new ArrayList<MockHttpServletRequest>();
+    for (int i = 0; i < 4; i++) {
+      var request = new MockHttpServletRequest("POST", "/automated-parking-lot/park");
+      request.addHeader("Gate-Id", "unknown-gate-" + i);
+      assertTrue(admissionInterceptor.preHandle(request, new MockHttpServletResponse(), null));
+      unknownGateRequests.add(request);
+    }
+    var unknownGateRequest = new MockHttpServletRequest("POST", "/automated-parking-lot/park");
+    unknownGateRequest.addHeader("Gate-Id", "unknown-gate-4");
+    var unknownGateResponse = new MockHttpServletResponse();
+    assertFalse(admissionInterceptor.preHandle(unknownGateRequest, unknownGateResponse, null));
+    assertEquals(429, unknownGateResponse.getStatus());
+    for (var request : unknownGateRequests) {
+      admissionInterceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+    }
+  }
+
+  @Test
+  void test22_parkingAndPullingOut_carsTransportedAsynchronouslyByTasks() throws Exception {
+    var transportTimer = meterRegistry.find("parking.transport.duration")
+        .tags("operation", "pull-out").timer();
+    var pullOutTransports = Objects.isNull(transportTimer) ? 0 : transportTimer.count();
+
+    // The parking returns the task transporting the car, before the car is moved
+    var parkingResponse = mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("221-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.operation").value("park"))
+        .andExpect(jsonPath("$.carId").value("221-A"))
+        .andExpect(jsonPath("$.floor").value(3))
+        .andExpect(jsonPath("$.stage").value(TransportStage.QUEUED.name()))
+        .andReturn().getResponse().getContentAsString();
+    this.awaitTransportCompleted(objectMapper.readTree(parkingResponse).get("taskId").asLong());
+
+    // So does the pull-out
+    var pullOutResponse = mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/221-A")
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.operation").value("pull-out"))
+        .andExpect(jsonPath("$.floor").value(3))
+        .andReturn().getResponse().getContentAsString();
+    this.awaitTransportCompleted(objectMapper.readTree(pullOutResponse).get("taskId").asLong());
+    assertEquals(pullOutTransports + 1, meterRegistry.get("parking.transport.duration")
+        .tags("operation", "pull-out").timer().count());
+
+    // Every car parked in a batch gets its own task
+    mockMvc.perform(post("/automated-parking-lot/park/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(List.of(
+                createParkingRequest("221-B", "160.00", "1500.00"),
+                createParkingRequest("221-C", "160.00", null)))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].transportTaskId").isNumber())
+        .andExpect(jsonPath("$[1].transportTaskId").doesNotExist());
+
+    mockMvc.perform(get("/automated-parking-lot/transport-tasks/999999999"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.NO_TRANSPORT_TASK_WITH_THIS_ID.name()));
+  }
+
+  @Test
+  void test23_billedParkingRecordsArchived_hotTableKeepsParkedCarsAndExportsKeepAll()
+      throws Exception {
+    for (var carId : List.of("231-A", "231-B", "231-C")) {
+      mockMvc.perform(post("/automated-parking-lot/park")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsBytes(
+                  createParkingRequest(carId, "160.00", "1500.00"))))
+          .andExpect(status().isOk());
+    }
+    for (var carId : List.of("231-A", "231-C")) {
+      mockMvc.perform(post("/automated-parking-lot/pull-out-and-bill/" + carId)
+              .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk());
+    }
+
+    // Unbilled parking records stay for the bill writer
+    assertEquals(0, parkingRecordArchiver.archive());
+    billWriter.flush();
+    // Nothing is archived while parking records are being exported
+    assertEquals(0, parkingRecordArchiver.runWithoutArchiving(parkingRecordArchiver::archive));
+    assertEquals(2, parkingRecordArchiver.archive());
+    assertEquals(1, parkingRecordRepository.count());
+    assertEquals(2, jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM parking_records_history", Long.class));
+    assertEquals(ParkingStatus.PARKING_IN_PROGRESS,
+        parkingRecordRepository.findOngoingParkingRecordByCarId("231-B").getStatus());
+
+    // Archived parking records are still exported, in order and with the names of their statuses
+    var from = LocalDateTime.now().minusDays(1).toString();
+    var to = LocalDateTime.now().plusDays(1).toString();
+    var parkingRecordLines = exportRows(
+        "/automated-parking-lot/export/parking-records?from=" + from + "&to=" + to);
+    assertEquals(3, parkingRecordLines.length);
+    var statuses = new ArrayList<String>();
+    for (var parkingRecordLine : parkingRecordLines) {
+      var parkingRecord = objectMapper.readTree(parkingRecordLine);
+      statuses.add(parkingRecord.get("carId").asText() + "=" + parkingRecord.get("status")
+          .asText());
+    }
+    assertEquals(List.of("231-A=PARKING_OVER", "231-B=PARKING_IN_PROGRESS",
+        "231-C=PARKING_OVER"), statuses);
+
+    // An archived car can be parked again
+    mockMvc.perform(post("/automated-parking-lot/park")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(
+                createParkingRequest("231-A", "160.00", "1500.00"))))
+        .andExpect(status().isOk());
+    assertTrue(parkingRecordRepository.findOngoingParkingRecordByCarId("231-A").getId() > 3);
+  }
+
+  @Test
+  void test24_floorWeightTakenWhileParking_parkingRolledBackAndParkingSpaceHandedOutAgain()
+      throws Exception {
+    // Only floor 3 can take the cars below
+    jdbcTemplate.update("UPDATE floors SET allowed_weight = 0 WHERE number = 1");
+    lotStateLoader.reload();
+
+    // The weight of floor 3 is taken by another transaction once the car has been assigned to a
+    // parking space there, so the parking space is emptied again and, as no other floor is left,
+    // the parking is rolled back
+    var executorService = Executors.newSingleThreadExecutor();
+    var parking = new TransactionTemplate(transactionManager).execute(status -> {
+      jdbcTemplate.update("UPDATE floors SET allowed_weight = 0 WHERE number = 3");
+      var submittedParking = executorService.submit(
+          () -> mockMvc.perform(post("/automated-parking-lot/park")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsBytes(
+                  createParkingRequest("241-A", "160.00", "1500.00")))));
+      while (parkingSpaceAllocator.countFreeParkingSpaces(3) == 10
+          && !submittedParking.isDone()) {
+        Thread.onSpinWait();
+      }
+      return submittedParking;
+    });
+    executorService.shutdown();
+    Objects.requireNonNull(parking).get(10, TimeUnit.SECONDS)
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR.name()));
+    assertEquals(10, parkingSpaceAllocator.countFreeParkingSpaces(3));
+
+    // Once the weight is given back, every parking space of the floor is handed out again
+    jdbcTemplate.update("UPDATE floors SET allowed_weight = 20000 WHERE number = 3");
+    for (int i = 0; i < 10; i++) {
+      mockMvc.perform(post("/automated-parking-lot/park")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsBytes(
+                  createParkingRequest("241-" + i, "160.00", "1500.00"))))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.floor").value(3));
+    }
+  }
+
+  @Test
+  void test25_batchWithMissingParkingRequestOrTooManyCars_rejectedAsAWhole() throws Exception {
+    mockMvc.perform(post("/automated-parking-lot/park/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(Arrays.asList(
+                createParkingRequest("251-A", "160.00", "1500.00"), null))))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.PARKING_REQUEST_MISSING.name()));
+
+    var parkingRequests = IntStream.rangeClosed(0, 100)
+        .mapToObj(i -> createParkingRequest("251-" + i, "160.00", "10.00"))
+        .collect(Collectors.toList());
+    mockMvc.perform(post("/automated-parking-lot/park/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(parkingRequests)))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errorCode").value(
+            AutomatedParkingExceptionCode.BATCH_TOO_LARGE.name()));
+    assertNull(parkingRecordRepository.findOngoingParkingRecordByCarId("251-A"));
+    assertNull(parkingRecordRepository.findOngoingParkingRecordByCarId("251-0"));
+  }
+
+  @Test
+  void test26_sameCarParkedConcurrentlyWhileCacheIncomplete_parkedOnce() throws Exception {
+    // Every car is beyond the capacity of the car location cache, so the cache is incomplete and
+    // a car missing from it may still be parked
+    var capacity = ReflectionTestUtils.getField(carLocationCache, "capacity");
+    ReflectionTestUtils.setField(carLocationCache, "capacity", 0);
+    try {
+      var executorService = Executors.newFixedThreadPool(8);
+      var start = new CountDownLatch(1);
+      var parkings = new ArrayList<Future<Integer>>();
+      for (int i = 0; i < 8; i++) {
+        parkings.add(executorService.submit(() -> {
+          start.await();
+          return mockMvc.perform(post("/automated-parking-lot/park")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsBytes(
+                      createParkingRequest("261-A", "160.00", "1500.00"))))
+              .andReturn().getResponse().getStatus();
+        }));
+      }
+      start.countDown();
+      var statuses = new ArrayList<Integer>();
+      for (var parking : parkings) {
+        statuses.add(parking.get(10, TimeUnit.SECONDS));
+      }
+      executorService.shutdown();
+
+      assertEquals(1, Collections.frequency(statuses, 200), statuses.toString());
+      assertEquals(7, Collections.frequency(statuses, 400), statuses.toString());
+      assertFalse(carLocationCache.isComplete());
+      assertEquals(1, jdbcTemplate.queryForObject(
+          "SELECT COUNT(*) FROM parking_records WHERE car_id = '261-A'", Integer.class));
+      assertEquals(1, jdbcTemplate.queryForObject(
+          "SELECT COUNT(*) FROM parking_spaces WHERE occupying_car_id = '261-A'", Integer.class));
+    } finally {
+      ReflectionTestUtils.setField(carLocationCache, "capacity", capacity);
+    }
+  }
+
+  private void awaitTransportCompleted(long taskId) throws Exception {
+    assertTrue(movementScheduler.awaitTransportCompleted(taskId, 5000));
+    assertEquals(TransportStage.COMPLETED.name(), objectMapper.readTree(mockMvc.perform(
+            get("/automated-parking-lot/transport-tasks/" + taskId))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString()).get("stage").asText());
+  }
+
+  /**
+   * Reads the lines of the next server-sent event
+   *
+   * @return The lines of the event, without the blank line ending it
+   */
+  private String readEvent(BufferedReader reader) throws IOException {
+    var lines = new ArrayList<String>();
+    String line;
+    while (Objects.nonNull(line = reader.readLine()) && !line.isEmpty()) {
+      lines.add(line);
+    }
+    return String.join("\n", lines);
+  }
+
+  private String[] exportRows(String url) throws Exception {
+    var exportResult = mockMvc.perform(get(url))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(exportResult))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString().split("\n");
+  }
+
+  private ParkingRequest createParkingRequest(String carId, String carHeight, String carWeight) {
+    var parkingRequest = new ParkingRequest();
+    parkingRequest.setCarId(carId);
+    parkingRequest.setCarHeight(new BigDecimal(carHeight));
+    parkingRequest.setCarWeight(carWeight == null ? null : new BigDecimal(carWeight));
+    return parkingRequest;
+  }
+
 }
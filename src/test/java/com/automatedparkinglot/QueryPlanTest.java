@@ -0,0 +1,107 @@
+package com.automatedparkinglot;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.automatedparkinglot.repositories.FloorRepository;
+import com.automatedparkinglot.repositories.ParkingRecordRepository;
+import com.automatedparkinglot.repositories.ParkingSpaceRepository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Query plan regression tests: every query run by the repositories on the hot path of parking and
+ * pulling out cars is recorded as Hibernate sends it to the database, and its H2 execution plan
+ * must not contain a full table scan.
+ */
+@SpringBootTest(classes = AutomatedParkingLotApplication.class, properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.automatedparkinglot.QueryPlanTest$RecordingStatementInspector")
+@Transactional // Modifying queries are rolled back after each test
+class QueryPlanTest {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private FloorRepository floorRepository;
+  @Autowired
+  private ParkingSpaceRepository parkingSpaceRepository;
+  @Autowired
+  private ParkingRecordRepository parkingRecordRepository;
+
+  @Test
+  void floorQueries_useFloorNumberIndex() {
+    assertNoTableScan(() -> floorRepository.findFloorByFloorNumber(1));
+    assertNoTableScan(
+        () -> floorRepository.decreaseAllowedWeightIfSufficient(1, new BigDecimal("1500.00")));
+    assertNoTableScan(() -> floorRepository.increaseAllowedWeight(1, new BigDecimal("1500.00")));
+  }
+
+  @Test
+  void parkingSpaceQueries_useOccupyingCarAndFloorIndexes() {
+    assertNoTableScan(() -> parkingSpaceRepository.findParkingSpaceByOccupyingCarId("11-AA"));
+    assertNoTableScan(
+        () -> parkingSpaceRepository.findOccupyingCarIdsAmong(Set.of("11-AA", "22-BB")));
+    assertNoTableScan(() -> parkingSpaceRepository.findAvailableParkingSpacesOnFloor(1));
+    assertNoTableScan(() -> parkingSpaceRepository.occupyParkingSpaceIfEmpty(1L, "11-AA"));
+    assertNoTableScan(() -> parkingSpaceRepository.vacateParkingSpaceIfOccupiedBy(1L, "11-AA"));
+  }
+
+  @Test
+  void parkingRecordQueries_useCarIdStatusAndBilledIndexes() {
+    assertNoTableScan(() -> parkingRecordRepository.findOngoingParkingRecordByCarId("11-AA"));
+    assertNoTableScan(
+        () -> parkingRecordRepository.completeParkingRecord(1L, LocalDateTime.now()));
+    assertNoTableScan(() -> parkingRecordRepository.findUnbilledParkingRecordIds());
+    assertNoTableScan(
+        () -> parkingRecordRepository.findUnbilledParkingRecordsByIds(List.of(1L, 2L)));
+    assertNoTableScan(() -> parkingRecordRepository.markParkingRecordsAsBilled(List.of(1L, 2L)));
+  }
+
+  /**
+   * Runs a repository query and verifies the execution plans of all statements it sent
+   *
+   * @param query The repository query
+   */
+  private void assertNoTableScan(Runnable query) {
+    RecordingStatementInspector.statements.clear();
+    query.run();
+    var statements = new ArrayList<>(RecordingStatementInspector.statements);
+    assertFalse(statements.isEmpty());
+    for (var statement : statements) {
+      var plan = jdbcTemplate.queryForObject("EXPLAIN " + statement, String.class,
+          Collections.nCopies(countParameters(statement), null).toArray());
+      assertTrue(plan != null && !plan.contains("tableScan"),
+          () -> "Full table scan in the plan of: " + statement + "\n" + plan);
+    }
+  }
+
+  private static int countParameters(String statement) {
+    return (int) statement.chars().filter(character -> character == '?').count();
+  }
+
+  /**
+   * Records the SQL statements prepared by Hibernate
+   */
+  public static class RecordingStatementInspector implements StatementInspector {
+
+    static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+      statements.add(sql);
+      return sql;
+    }
+  }
+
+}
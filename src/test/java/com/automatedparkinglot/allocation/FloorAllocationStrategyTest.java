@@ -0,0 +1,52 @@
+package com.automatedparkinglot.allocation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import com.automatedparkinglot.dtos.ParkingRequest;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FloorAllocationStrategyTest {
+
+  @Test
+  void tallestCarsOfAWindowChooseFirst() {
+    // The only free space high enough for the tall car is also the closest one for the short car
+    var floors = List.of(floor(1, "200", "5000", 1), floor(2, "150", "5000", 0));
+    var cars = Arrays.asList(car("140", "1500"), null, car("190", "1500"));
+
+    assertArrayEquals(new Integer[]{1, null, null},
+        new GreedyAllocationStrategy().assignFloors(cars, floors));
+    assertArrayEquals(new Integer[]{null, null, 1},
+        new BatchBestFitAllocationStrategy().assignFloors(cars, floors));
+  }
+
+  @Test
+  void batchBestFitLeavesNoSpaceStrandedWithoutWeight() {
+    // Two floors of the same ceiling height, with 2500 kg and 1500 kg left per free space
+    var floors = List.of(floor(1, "200", "5000", 2), floor(2, "200", "3000", 2));
+    var cars = List.of(car("150", "1500"), car("150", "1500"), car("150", "3500"),
+        car("150", "1500"));
+
+    // Greedily, the light cars use up the weight that only the first floor has for the heavy car
+    assertArrayEquals(new Integer[]{1, 1, null, 2},
+        new GreedyAllocationStrategy().assignFloors(cars, floors));
+    assertArrayEquals(new Integer[]{1, 2, 1, 2},
+        new BatchBestFitAllocationStrategy().assignFloors(cars, floors));
+  }
+
+  private static FloorCapacity floor(int number, String ceilingHeight, String allowedWeight,
+      int freeParkingSpaces) {
+    return new FloorCapacity(number, new BigDecimal(ceilingHeight), new BigDecimal(allowedWeight),
+        freeParkingSpaces);
+  }
+
+  private static ParkingRequest car(String carHeight, String carWeight) {
+    var parkingRequest = new ParkingRequest();
+    parkingRequest.setCarHeight(new BigDecimal(carHeight));
+    parkingRequest.setCarWeight(new BigDecimal(carWeight));
+    return parkingRequest;
+  }
+
+}
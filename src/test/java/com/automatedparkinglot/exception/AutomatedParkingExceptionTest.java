@@ -0,0 +1,31 @@
+package com.automatedparkinglot.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import org.junit.jupiter.api.Test;
+
+class AutomatedParkingExceptionTest {
+
+  @Test
+  void of_returnsTheSharedStacklessExceptionOfTheCode() {
+    for (var exceptionCode : AutomatedParkingExceptionCode.values()) {
+      var exception = AutomatedParkingException.of(exceptionCode);
+      assertSame(exception, AutomatedParkingException.of(exceptionCode));
+      assertEquals(exceptionCode, exception.getExceptionCode());
+      assertEquals(exceptionCode.getExplanatoryMessage(), exception.getMessage());
+      assertEquals(0, exception.getStackTrace().length);
+
+      // Throwing the shared instance records neither a stack trace nor suppressed exceptions
+      try {
+        throw exception;
+      } catch (AutomatedParkingException thrownException) {
+        thrownException.addSuppressed(new IllegalStateException());
+        assertEquals(0, thrownException.getStackTrace().length);
+        assertEquals(0, thrownException.getSuppressed().length);
+      }
+    }
+  }
+
+}
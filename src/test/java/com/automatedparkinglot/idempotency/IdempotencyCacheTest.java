@@ -0,0 +1,60 @@
+package com.automatedparkinglot.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.exception.AutomatedParkingException;
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.lotstate.ParkingSpaceAllocator;
+import com.automatedparkinglot.lotstate.ReservationRegistry;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+class IdempotencyCacheTest {
+
+  private final ParkingMetrics parkingMetrics = new ParkingMetrics(new SimpleMeterRegistry(),
+      new FloorIndex(null, null, null), new ParkingSpaceAllocator(null),
+      new ReservationRegistry(100, 64));
+
+  @Test
+  void requestStillBeingHandled_neitherEvictedNorWaitedForBeyondTheReplayTimeout()
+      throws Exception {
+    var idempotencyCache = new IdempotencyCache(parkingMetrics, 1, 60_000, 100);
+    var handling = new CountDownLatch(1);
+    var handled = new CountDownLatch(1);
+    var firstResponse = CompletableFuture.supplyAsync(() -> idempotencyCache.execute("key-1",
+        ParkingOperation.PULL_OUT, "11-AA", () -> {
+          handling.countDown();
+          try {
+            handled.await();
+          } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+          }
+          return ResponseEntity.ok("first");
+        }));
+    assertTrue(handling.await(5, TimeUnit.SECONDS));
+
+    // Another outcome beyond the capacity does not evict the one still being handled
+    assertEquals("second", idempotencyCache.execute("key-2", ParkingOperation.PULL_OUT, "22-BB",
+        () -> ResponseEntity.ok("second")).getBody());
+    var inProgressException = assertThrows(AutomatedParkingException.class,
+        () -> idempotencyCache.execute("key-1", ParkingOperation.PULL_OUT, "11-AA",
+            () -> ResponseEntity.ok("handled again")));
+    assertEquals(AutomatedParkingExceptionCode.IDEMPOTENT_REQUEST_IN_PROGRESS,
+        inProgressException.getExceptionCode());
+
+    handled.countDown();
+    assertEquals("first", firstResponse.get(5, TimeUnit.SECONDS).getBody());
+    assertEquals("first", idempotencyCache.execute("key-1", ParkingOperation.PULL_OUT, "11-AA",
+        () -> ResponseEntity.ok("handled again")).getBody());
+  }
+
+}
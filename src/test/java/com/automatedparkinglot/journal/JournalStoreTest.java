@@ -0,0 +1,114 @@
+package com.automatedparkinglot.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalStoreTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void parkedAndPulledOutCars_replayedAfterRestart() throws IOException {
+    var journalStore = new JournalStore(directory, SEGMENT_SIZE);
+    journalStore.open();
+    journalStore.appendParked(createParking(1L, "11-AA"));
+    journalStore.appendParked(createParking(2L, "22-BB"));
+    journalStore.appendPulledOut(1L);
+    journalStore.flush();
+
+    var parkings = byParkingRecordId(new JournalStore(directory, SEGMENT_SIZE).open());
+    assertEquals(1, parkings.size());
+    var parking = parkings.get(2L);
+    assertEquals("22-BB", parking.getCarId());
+    assertEquals(new BigDecimal("1500.25"), parking.getCarWeight());
+    assertEquals(new BigDecimal("160.00"), parking.getCarHeight());
+    assertEquals(new BigDecimal("20000.00"), parking.getAllowedWeightOnFloorBeforeParking());
+    assertEquals(LocalDateTime.of(2022, 5, 14, 10, 15, 30, 123_000_000),
+        parking.getParkingTimestamp());
+    assertEquals(3, parking.getFloor());
+    assertEquals(22L, parking.getParkingSpaceId());
+  }
+
+  @Test
+  void snapshotAndFullSegments_snapshotLoadedAndTailReplayed() throws IOException {
+    var journalStore = new JournalStore(directory, SEGMENT_SIZE);
+    journalStore.open();
+    // Enough entries to fill several segments
+    for (long id = 1; id <= 200; id++) {
+      journalStore.appendParked(createParking(id, "CAR-" + id));
+    }
+    journalStore.writeSnapshot();
+    for (long id = 1; id <= 100; id++) {
+      journalStore.appendPulledOut(id);
+    }
+    journalStore.appendParked(createParking(201L, "CAR-201"));
+    journalStore.flush();
+
+    var recoveredJournalStore = new JournalStore(directory, SEGMENT_SIZE);
+    var parkings = byParkingRecordId(recoveredJournalStore.open());
+    assertEquals(101, parkings.size());
+    assertTrue(parkings.containsKey(101L) && parkings.containsKey(201L));
+    assertEquals(200, recoveredJournalStore.getSnapshotSequence());
+    assertEquals(101, recoveredJournalStore.getReplayedEntries());
+    try (var files = Files.list(directory)) {
+      // The segments filled before the snapshot have been deleted
+      assertEquals(1, files.filter(path -> path.toString().endsWith(".snap")).count());
+    }
+  }
+
+  @Test
+  void tornEntryAtTheEnd_ignored() throws IOException {
+    var journalStore = new JournalStore(directory, SEGMENT_SIZE);
+    journalStore.open();
+    journalStore.appendParked(createParking(1L, "11-AA"));
+    journalStore.appendParked(createParking(2L, "22-BB"));
+    journalStore.flush();
+
+    // Corrupt the last byte of the second entry, as if the crash happened while writing it
+    var segmentPath = directory.resolve(String.format("journal-%020d.log", 1));
+    try (var fileChannel = FileChannel.open(segmentPath, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      var entryLength = ByteBuffer.allocate(Integer.BYTES);
+      fileChannel.read(entryLength, 0);
+      var secondEntryLength = ByteBuffer.allocate(Integer.BYTES);
+      fileChannel.read(secondEntryLength, 8 + entryLength.getInt(0));
+      fileChannel.write(ByteBuffer.wrap(new byte[]{0x7f}),
+          8 + entryLength.getInt(0) + 8 + secondEntryLength.getInt(0) - 1);
+    }
+
+    var parkings = byParkingRecordId(new JournalStore(directory, SEGMENT_SIZE).open());
+    assertEquals(1, parkings.size());
+    assertTrue(parkings.containsKey(1L));
+  }
+
+  private static JournaledParking createParking(Long parkingRecordId, String carId) {
+    return new JournaledParking(parkingRecordId, carId, new BigDecimal("1500.25"),
+        new BigDecimal("160.00"), new BigDecimal("20000.00"),
+        LocalDateTime.of(2022, 5, 14, 10, 15, 30, 123_000_000), 3, parkingRecordId + 20);
+  }
+
+  private static Map<Long, JournaledParking> byParkingRecordId(
+      Collection<JournaledParking> parkings) {
+    return parkings.stream()
+        .collect(Collectors.toMap(JournaledParking::getParkingRecordId, Function.identity()));
+  }
+
+}
@@ -0,0 +1,101 @@
+package com.automatedparkinglot.movement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.automatedparkinglot.enums.ParkingOperation;
+import com.automatedparkinglot.enums.TransportStage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.junit.jupiter.api.Test;
+
+class TransportSystemTest {
+
+  private final VirtualClock clock = new VirtualClock();
+  private final List<String> completedTasks = new ArrayList<>();
+
+  @Test
+  void pullOutsGoBeforeParksWaitingForTheSameLift() {
+    // One lift of 1 s per floor, and shuttles without delay
+    var transportSystem = this.createTransportSystem(1, 0);
+    transportSystem.submit(task(1, ParkingOperation.PARK, "A", 1));
+    transportSystem.submit(task(2, ParkingOperation.PARK, "B", 1));
+    transportSystem.submit(task(3, ParkingOperation.PULL_OUT, "C", 2));
+    clock.runAll();
+
+    // C is waiting at its landing when the lift has left A, so it is carried down before B
+    assertEquals(List.of("A@1000", "C@4000", "B@5000"), completedTasks);
+  }
+
+  @Test
+  void liftCarriesTheNextCarWhileTheShuttleStoresThePreviousOne() {
+    // One lift of 1 s per floor, and shuttles of 10 s
+    var transportSystem = this.createTransportSystem(1, 10000);
+    transportSystem.submit(task(1, ParkingOperation.PARK, "A", 1));
+    transportSystem.submit(task(2, ParkingOperation.PARK, "B", 2));
+    clock.runAll();
+
+    // The lift is back at the entrance after 2 s and leaves B on the floor 2 after 4 s
+    assertEquals(List.of("A@11000", "B@14000"), completedTasks);
+  }
+
+  @Test
+  void pullOutOfACarStillBeingParkedWaitsForTheParking() {
+    var transportSystem = this.createTransportSystem(1, 10000);
+    var parking = task(1, ParkingOperation.PARK, "A", 2);
+    var pullOut = task(2, ParkingOperation.PULL_OUT, "A", 2);
+    transportSystem.submit(parking);
+    transportSystem.submit(pullOut);
+    assertEquals(TransportStage.ON_LIFT, parking.getStage());
+    assertEquals(TransportStage.QUEUED, pullOut.getStage());
+    assertEquals(1, transportSystem.countWaitingTasks());
+    clock.runAll();
+
+    // Parked after 2 + 10 s, and delivered after 10 + 2 s more
+    assertEquals(List.of("A@12000", "A@24000"), completedTasks);
+    assertEquals(24000, pullOut.getDurationInMillis());
+    assertEquals(0, transportSystem.countWaitingTasks());
+  }
+
+  private TransportSystem createTransportSystem(int lifts, long shuttleMillis) {
+    return new TransportSystem(lifts, 1, new TransportTimings(1000, 0, shuttleMillis), clock,
+        task -> completedTasks.add(task.getCarId() + "@" + task.getCompletedAt()));
+  }
+
+  private static TransportTask task(long id, ParkingOperation operation, String carId,
+      int floor) {
+    return new TransportTask(id, operation, carId, floor, null);
+  }
+
+  /**
+   * A clock running the scheduled movements in virtual time
+   */
+  private static class VirtualClock implements MovementClock {
+
+    private final PriorityQueue<long[]> events = new PriorityQueue<>(
+        Comparator.<long[]>comparingLong(event -> event[0]).thenComparingLong(event -> event[1]));
+    private final List<Runnable> actions = new ArrayList<>();
+    private long now;
+
+    @Override
+    public long now() {
+      return now;
+    }
+
+    @Override
+    public void schedule(Runnable action, long delayInMillis) {
+      events.add(new long[]{now + delayInMillis, actions.size()});
+      actions.add(action);
+    }
+
+    private void runAll() {
+      while (!events.isEmpty()) {
+        var event = events.poll();
+        now = event[0];
+        actions.get((int) event[1]).run();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,137 @@
+package com.automatedparkinglot.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.lotstate.OccupancyCounters;
+import com.automatedparkinglot.lotstate.ParkingSpaceAllocator;
+import com.automatedparkinglot.lotstate.ReservationRegistry;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class OccupancyStreamTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void subscribersWhichStoppedReading_disconnectedWithoutHoldingTheSenderFromOthers()
+      throws Exception {
+    var parkingMetrics = new ParkingMetrics(meterRegistry, new FloorIndex(null, null, null),
+        new ParkingSpaceAllocator(null), new ReservationRegistry(100, 64));
+    // A heartbeat every 10 ms, written by a single sender thread
+    var occupancyStream = new OccupancyStream(new OccupancyService(new OccupancyCounters()),
+        parkingMetrics, new ObjectMapper(), 4, 1, 0, 10, 10);
+    occupancyStream.start();
+    var request = new MockHttpServletRequest();
+    request.setAsyncSupported(true);
+    var outputStream = new StubOutputStream(Integer.MAX_VALUE);
+    try {
+      // The connections of these subscribers take the full state, and nothing after it
+      var stalledRequests = new ArrayList<MockHttpServletRequest>();
+      for (int i = 0; i < 4; i++) {
+        var stalledRequest = new MockHttpServletRequest();
+        stalledRequest.setAsyncSupported(true);
+        occupancyStream.subscribe(stalledRequest, new StubResponse(new StubOutputStream(1)));
+        stalledRequests.add(stalledRequest);
+      }
+      occupancyStream.subscribe(request, new StubResponse(outputStream));
+
+      var deadline = System.currentTimeMillis() + 5000;
+      while ((occupancyStream.countSubscribers() > 1 || outputStream.countHeartbeats() < 20)
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, occupancyStream.countSubscribers());
+      assertTrue(outputStream.countHeartbeats() >= 20, outputStream.toString());
+      assertTrue(outputStream.toString().startsWith("event:occupancy\ndata:[]\n\n"));
+      assertEquals(4, meterRegistry.get("parking.occupancy.subscribers.dropped").counter()
+          .count());
+      // The responses of the dropped subscribers are completed at once
+      stalledRequests.forEach(stalledRequest -> assertFalse(stalledRequest.isAsyncStarted()));
+      assertTrue(request.isAsyncStarted());
+    } finally {
+      occupancyStream.stop();
+    }
+    assertFalse(request.isAsyncStarted());
+  }
+
+  /**
+   * A response written to a {@link StubOutputStream}
+   */
+  private static class StubResponse extends MockHttpServletResponse {
+
+    private final StubOutputStream outputStream;
+
+    private StubResponse(StubOutputStream outputStream) {
+      this.outputStream = outputStream;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      return outputStream;
+    }
+  }
+
+  /**
+   * An output stream in non-blocking mode, which can't be written after a number of writes, like
+   * the connection of a client which stopped reading
+   */
+  private static class StubOutputStream extends ServletOutputStream {
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final int writableTimes;
+    private int writtenTimes;
+
+    private StubOutputStream(int writableTimes) {
+      this.writableTimes = writableTimes;
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+      return writtenTimes < writableTimes;
+    }
+
+    // Like a container, which calls the listener once the stream can be written
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      try {
+        writeListener.onWritePossible();
+      } catch (IOException ioException) {
+        writeListener.onError(ioException);
+      }
+    }
+
+    @Override
+    public synchronized void write(int b) {
+      written.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+      writtenTimes++;
+      written.write(b, off, len);
+    }
+
+    private synchronized int countHeartbeats() {
+      return written.toString(StandardCharsets.UTF_8).split(":heartbeat\n\n", -1).length - 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+      return written.toString(StandardCharsets.UTF_8);
+    }
+  }
+
+}
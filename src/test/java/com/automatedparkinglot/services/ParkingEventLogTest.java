@@ -0,0 +1,76 @@
+package com.automatedparkinglot.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.automatedparkinglot.entities.Bill;
+import com.automatedparkinglot.lotstate.FloorIndex;
+import com.automatedparkinglot.lotstate.ParkingSpaceAllocator;
+import com.automatedparkinglot.lotstate.ReservationRegistry;
+import com.automatedparkinglot.metrics.ParkingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+class ParkingEventLogTest {
+
+  private static final String AT = "at=\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?Z";
+
+  private final Logger eventLogger = (Logger) LoggerFactory.getLogger("parking-events");
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @BeforeEach
+  void attachAppender() {
+    appender.start();
+    eventLogger.addAppender(appender);
+  }
+
+  @AfterEach
+  void detachAppender() {
+    eventLogger.detachAppender(appender);
+  }
+
+  @Test
+  void eventsBeyondQueueCapacityDroppedAndCountedAndTheRestWrittenAsKeyValues()
+      throws InterruptedException {
+    var parkingMetrics = new ParkingMetrics(meterRegistry, new FloorIndex(null, null, null),
+        new ParkingSpaceAllocator(null), new ReservationRegistry(100, 64));
+    var parkingEventLog = new ParkingEventLog(parkingMetrics, 3, false);
+
+    // The writer thread is not started yet, so the queue fills up
+    parkingEventLog.carArriving("11-AA");
+    parkingEventLog.carAssigned("11-AA", 21L, 3);
+    var bill = new Bill();
+    bill.setCarId("22-BB");
+    bill.setBillingFrom("14.05.2022 10:15");
+    bill.setBillingTo("14.05.2022 10:17");
+    bill.setPricePerMinute(new BigDecimal("0.92"));
+    bill.setTotalAmountToBePaid(new BigDecimal("1.84"));
+    parkingEventLog.billGenerated(bill);
+    parkingEventLog.carLeaving("33-CC");
+    parkingEventLog.parkingOver("33-CC", 7L, 1);
+    assertEquals(2, meterRegistry.get("parking.events.dropped").counter().count());
+
+    // Stopping drains the queue
+    parkingEventLog.start();
+    parkingEventLog.stop();
+    var lines = appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+        .collect(Collectors.toList());
+    assertEquals(3, lines.size(), lines::toString);
+    assertTrue(lines.get(0).matches("event=car-arriving " + AT + " carId=11-AA"), lines.get(0));
+    assertTrue(lines.get(1).matches(
+        "event=car-assigned " + AT + " carId=11-AA parkingSpaceId=21 floor=3"), lines.get(1));
+    assertTrue(lines.get(2).matches("event=bill-generated " + AT + " carId=22-BB "
+            + "billingFrom=\"14.05.2022 10:15\" billingTo=\"14.05.2022 10:17\" "
+            + "pricePerMinute=0.92 totalAmount=1.84"), lines.get(2));
+  }
+
+}
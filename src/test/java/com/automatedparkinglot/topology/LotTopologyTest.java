@@ -0,0 +1,47 @@
+package com.automatedparkinglot.topology;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class LotTopologyTest {
+
+  @Test
+  void generatedTopology_writtenAndReadBack() throws IOException {
+    var topology = LotTopology.generate(500, 200, 42);
+    assertEquals(100_000, topology.countParkingSpaces());
+    assertEquals(new BigDecimal("250"), topology.getFloors().get(499).getCeilingHeight());
+
+    var csv = new StringWriter();
+    topology.write(csv);
+    var readTopology = LotTopology.read(new StringReader(csv.toString()));
+    assertEquals(500, readTopology.getFloors().size());
+    for (int floor = 0; floor < 500; floor++) {
+      var generatedFloor = topology.getFloors().get(floor);
+      var readFloor = readTopology.getFloors().get(floor);
+      assertEquals(generatedFloor.getNumber(), readFloor.getNumber());
+      assertEquals(generatedFloor.getCeilingHeight(), readFloor.getCeilingHeight());
+      assertEquals(generatedFloor.getWeightCapacity(), readFloor.getWeightCapacity());
+      assertEquals(generatedFloor.getParkingSpaces(), readFloor.getParkingSpaces());
+    }
+  }
+
+  @Test
+  void duplicateFloor_rejectedWithLineNumber() {
+    var csv = "# A comment\n"
+        + "floor,ceiling_height,weight_capacity,parking_spaces\n"
+        + "1,195,25000,10\n"
+        + "\n"
+        + "1,130,30000,10\n";
+    var exception = assertThrows(IllegalArgumentException.class,
+        () -> LotTopology.read(new StringReader(csv)));
+    assertTrue(exception.getMessage().contains("line 5"), exception.getMessage());
+  }
+
+}
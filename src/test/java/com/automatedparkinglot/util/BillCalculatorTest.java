@@ -0,0 +1,111 @@
+package com.automatedparkinglot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link BillCalculator} with the former formula, which calculated the price-per-minute
+ * from doubles and the fee from BigDecimals
+ */
+class BillCalculatorTest {
+
+  private static final LocalDateTime PARKING_TIMESTAMP = LocalDateTime.of(2022, 5, 14, 8, 30, 15);
+
+  @Test
+  void pricePerMinute_sameAsFormerFormulaOnBoundariesAndItsRoundingQuirk() {
+    var weightPairs = List.of(
+        List.of("0.00", "20000.00"), // Full floor
+        List.of("20000.00", "20000.00"), // Empty floor
+        List.of("18500.00", "20000.00"),
+        List.of("19999.99", "20000.00"),
+        List.of("0.01", "20000.00"),
+        List.of("1.00", "3.00"),
+        List.of("2.00", "3.00"),
+        List.of("0.01", "0.01"),
+        List.of("9999999999.99", "9999999999.99"));
+    for (var weightPair : weightPairs) {
+      this.assertSamePricePerMinute(new BigDecimal(weightPair.get(0)),
+          new BigDecimal(weightPair.get(1)));
+    }
+
+    // The exact quotient is 0.40, but the double one is just below it, so it was priced 0.39
+    assertEquals(new BigDecimal("0.40"), new BigDecimal("200298.36")
+        .divide(new BigDecimal("500745.90"), 2, RoundingMode.DOWN));
+    assertEquals(new BigDecimal("0.39"),
+        this.calculatePricePerMinute(new BigDecimal("200298.36"), new BigDecimal("500745.90")));
+    this.assertSamePricePerMinute(new BigDecimal("200298.36"), new BigDecimal("500745.90"));
+  }
+
+  @Test
+  void pricePerMinute_sameAsFormerFormulaOnRandomWeights() {
+    var random = new SplittableRandom(42);
+    for (int i = 0; i < 200_000; i++) {
+      var weightCapacity = 1 + random.nextLong(1_000_000_000_000L);
+      this.assertSamePricePerMinute(BigDecimal.valueOf(random.nextLong(weightCapacity + 1), 2),
+          BigDecimal.valueOf(weightCapacity, 2));
+      // Quotients of a whole number of cents, where the former formula may lose a cent
+      var centOfCapacity = 1 + random.nextLong(10_000_000_000L);
+      this.assertSamePricePerMinute(BigDecimal.valueOf(centOfCapacity * random.nextInt(101), 2),
+          BigDecimal.valueOf(centOfCapacity * 100, 2));
+    }
+  }
+
+  @Test
+  void parkingFee_sameAsFormerFormulaForDurationsAroundWholeMinutes() {
+    var parkingDurationsInSeconds = List.of(0L, 1L, 59L, 60L, 61L, 119L, 120L, 3599L, 3600L,
+        86_399L, 86_400L, 30 * 86_400L + 17);
+    var pricesPerMinute = List.of("0.00", "0.01", "0.39", "0.92", "1.00");
+    for (var parkingDurationInSeconds : parkingDurationsInSeconds) {
+      var emptyingTimestamp = PARKING_TIMESTAMP.plusSeconds(parkingDurationInSeconds);
+      for (var pricePerMinute : pricesPerMinute) {
+        var price = new BigDecimal(pricePerMinute);
+        var formerTotalAmount = new BigDecimal(
+            ChronoUnit.SECONDS.between(PARKING_TIMESTAMP, emptyingTimestamp) / 60)
+            .setScale(0, RoundingMode.DOWN).multiply(price).setScale(2, RoundingMode.DOWN);
+        var totalAmount = BillCalculator.fromMinorUnits(
+            BillCalculator.calculateTotalAmountInCents(
+                BillCalculator.calculateParkingDurationInMinutes(PARKING_TIMESTAMP,
+                    emptyingTimestamp),
+                BillCalculator.toMinorUnits(price)));
+        assertEquals(formerTotalAmount, totalAmount,
+            () -> parkingDurationInSeconds + " s at " + pricePerMinute);
+      }
+    }
+  }
+
+  @Test
+  void toMinorUnits_acceptsUpToTwoDecimalPlacesOnly() {
+    assertEquals(150_000L, BillCalculator.toMinorUnits(new BigDecimal("1500")));
+    assertEquals(150_000L, BillCalculator.toMinorUnits(new BigDecimal("1500.0")));
+    assertEquals(150_000L, BillCalculator.toMinorUnits(new BigDecimal("1500.000")));
+    assertEquals(150_001L, BillCalculator.toMinorUnits(new BigDecimal("1500.01")));
+    assertThrows(IllegalArgumentException.class,
+        () -> BillCalculator.toMinorUnits(new BigDecimal("1500.005")));
+  }
+
+  private void assertSamePricePerMinute(BigDecimal allowedWeightBeforeParking,
+      BigDecimal weightCapacity) {
+    var formerPricePerMinute = BigDecimal.valueOf(
+            allowedWeightBeforeParking.doubleValue() / weightCapacity.doubleValue())
+        .setScale(2, RoundingMode.DOWN);
+    assertEquals(formerPricePerMinute,
+        this.calculatePricePerMinute(allowedWeightBeforeParking, weightCapacity),
+        () -> allowedWeightBeforeParking + " / " + weightCapacity);
+  }
+
+  private BigDecimal calculatePricePerMinute(BigDecimal allowedWeightBeforeParking,
+      BigDecimal weightCapacity) {
+    return BillCalculator.fromMinorUnits(BillCalculator.calculatePricePerMinuteInCents(
+        BillCalculator.toMinorUnits(allowedWeightBeforeParking),
+        BillCalculator.toMinorUnits(weightCapacity)));
+  }
+
+}
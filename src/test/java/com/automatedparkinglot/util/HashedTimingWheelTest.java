@@ -0,0 +1,52 @@
+package com.automatedparkinglot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class HashedTimingWheelTest {
+
+  private static final long START = 1_000_000L;
+
+  @Test
+  void itemsExpireAtTheirDeadlineAcrossTurnsOfTheWheel() {
+    // 8 buckets of 100 ms, so deadlines beyond 800 ms are due in a later turn
+    var timingWheel = new HashedTimingWheel<String>(100, 8, START);
+    timingWheel.schedule("a", START + 250);
+    timingWheel.schedule("b", START + 1050); // The same bucket as "a", one turn later
+    timingWheel.schedule("c", START + 2000);
+
+    assertEquals(List.of(), timingWheel.advance(START + 299));
+    assertEquals(List.of("a"), timingWheel.advance(START + 300)); // Rounded up to the tick
+    assertEquals(List.of(), timingWheel.advance(START + 1099));
+    assertEquals(List.of("b"), timingWheel.advance(START + 1100));
+    assertEquals(1, timingWheel.size());
+    // A late advance expires everything overdue
+    assertEquals(List.of("c"), timingWheel.advance(START + 60_000));
+    assertEquals(0, timingWheel.size());
+  }
+
+  @Test
+  void cancelledItemsNeverExpire() {
+    var timingWheel = new HashedTimingWheel<Integer>(10, 64, START);
+    var timeouts = IntStream.range(0, 10_000)
+        .mapToObj(item -> timingWheel.schedule(item, START + 10 + item % 5_000))
+        .collect(Collectors.toList());
+    for (int item = 0; item < 10_000; item += 2) {
+      assertTrue(timingWheel.cancel(timeouts.get(item)));
+    }
+    assertFalse(timingWheel.cancel(timeouts.get(0)));
+
+    var expiredItems = new HashSet<>(timingWheel.advance(START + 10_000));
+    assertEquals(5_000, expiredItems.size());
+    assertTrue(expiredItems.stream().allMatch(item -> item % 2 == 1));
+    assertFalse(timingWheel.cancel(timeouts.get(1)));
+  }
+
+}
@@ -0,0 +1,67 @@
+package com.automatedparkinglot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.automatedparkinglot.enums.AutomatedParkingExceptionCode;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LogSamplerTest {
+
+  @Test
+  void oneMessagePerKeyLetThroughPerIntervalUnderConcurrentBursts() throws Exception {
+    // An interval far longer than the test, so only the first message of each key is logged
+    var logSampler = new LogSampler<>(AutomatedParkingExceptionCode.class,
+        TimeUnit.HOURS.toMillis(1));
+    var executor = Executors.newFixedThreadPool(8);
+    var start = new CountDownLatch(1);
+    try {
+      var tasks = new ArrayList<Callable<Integer>>();
+      for (int thread = 0; thread < 8; thread++) {
+        tasks.add(() -> {
+          start.await();
+          var loggedMessages = 0;
+          for (int i = 0; i < 10_000; i++) {
+            if (logSampler.sample(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR) >= 0) {
+              loggedMessages++;
+            }
+          }
+          return loggedMessages;
+        });
+      }
+      var futures = new ArrayList<Future<Integer>>();
+      for (var task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      start.countDown();
+      var loggedMessages = 0;
+      for (var future : futures) {
+        loggedMessages += future.get(1, TimeUnit.MINUTES);
+      }
+      assertEquals(1, loggedMessages);
+    } finally {
+      executor.shutdownNow();
+    }
+    // Other keys are sampled on their own
+    assertEquals(0, logSampler.sample(AutomatedParkingExceptionCode.CAR_ALREADY_PARKED));
+  }
+
+  @Test
+  void suppressedMessagesReportedWithTheNextLoggedOne() throws InterruptedException {
+    var logSampler = new LogSampler<>(AutomatedParkingExceptionCode.class, 20);
+    assertEquals(0, logSampler.sample(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR));
+    assertEquals(-1, logSampler.sample(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR));
+    assertEquals(-1, logSampler.sample(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR));
+
+    // Once the interval is over, the next message is logged with the count of the suppressed ones
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertEquals(2, logSampler.sample(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR));
+    assertEquals(-1, logSampler.sample(AutomatedParkingExceptionCode.NO_AVAILABLE_FLOOR));
+  }
+
+}